@@ -23,8 +23,10 @@ import javax.annotation.Nullable;
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.size.MaxSize;
@@ -33,6 +35,7 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.android.encoder.AndroidDeleteEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidInsertEncoderBuilder;
+import net.digitalid.database.android.encoder.AndroidReturningInsertEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidSelectEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidUpdateEncoderBuilder;
 import net.digitalid.database.android.encoder.AndroidWhereClauseEncoder;
@@ -42,6 +45,7 @@ import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.dialect.SQLDialect;
 import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
 import net.digitalid.database.dialect.identifier.SQLIdentifier;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
 import net.digitalid.database.dialect.statement.SQLTableStatement;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
@@ -52,6 +56,7 @@ import net.digitalid.database.dialect.statement.table.drop.SQLDropTableStatement
 import net.digitalid.database.dialect.statement.update.SQLUpdateStatement;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.SQLTemplate;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
 
@@ -164,6 +169,23 @@ public class AndroidDatabase extends Database {
         return AndroidInsertEncoderBuilder.withSqLiteDatabase(helper.getWritableDatabase()).withTableName(tableName).withColumnNames(columnNames).build();
     }
     
+    /**
+     * SQLite returns the row ID of an inserted row, by which the returned columns are then selected from the inserted row.
+     * 
+     * @require template.getStatement() instanceof SQLInsertStatement : "Only insert statements can return the columns of the affected rows.";
+     */
+    @Override
+    @PureWithSideEffects
+    public @Nonnull SQLActionEncoder getReturningEncoder(@Nonnull SQLTemplate<? extends SQLTableStatement> template, @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLColumnName> columns) throws DatabaseException {
+        Require.that(template.getStatement() instanceof SQLInsertStatement).orThrow("Only insert statements can return the columns of the affected rows on Android but $ was given.", template.getStatement().getClass().getSimpleName());
+        final @Nonnull SQLInsertStatement insertStatement = (SQLInsertStatement) template.getStatement();
+        begin();
+        final @Nonnull @NonEmpty @MaxSize(63) String tableName = insertStatement.getTable().getTable().getString();
+        final @Nonnull @NonNullableElements String[] columnNames = insertStatement.getColumns().map(SQLIdentifier::getString).toArray(new String[0]);
+        final @Nonnull String query = "SELECT " + columns.map(SQLIdentifier::getString).join() + " FROM " + tableName + " WHERE rowid = ?";
+        return AndroidReturningInsertEncoderBuilder.withSqLiteDatabase(helper.getWritableDatabase()).withTableName(tableName).withColumnNames(columnNames).withQuery(query).build();
+    }
+    
     @Pure
     private @Nullable String getWhereClauseString(@Nullable SQLBooleanExpression whereClause, @Nonnull Unit unit) {
         @Nullable String whereClauseString = null;
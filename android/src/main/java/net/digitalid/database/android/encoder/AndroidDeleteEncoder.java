@@ -21,6 +21,7 @@ import javax.annotation.Nullable;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
@@ -46,5 +47,11 @@ public abstract class AndroidDeleteEncoder extends AndroidWhereClauseEncoder imp
     public void execute() throws DatabaseException {
         sqliteDatabase.delete(tableName, whereClause, whereArgs);
     }
+    
+    @Override
+    @PureWithSideEffects
+    public @NonNegative int executeWithCount() throws DatabaseException {
+        return sqliteDatabase.delete(tableName, whereClause, whereArgs);
+    }
        
 }
@@ -20,6 +20,7 @@ import javax.annotation.Nonnull;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
@@ -43,4 +44,10 @@ public abstract class AndroidInsertEncoder extends AndroidInsertUpdateEncoder im
         sqliteDatabase.insert(tableName, null, contentValues);
     }
     
+    @Override
+    @PureWithSideEffects
+    public @NonNegative int executeWithCount() throws DatabaseException {
+        return sqliteDatabase.insert(tableName, null, contentValues) == -1 ? 0 : 1;
+    }
+    
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.android.encoder;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+
+import net.digitalid.database.android.decoder.AndroidDecoderBuilder;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.SQLDecoder;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * This encoder inserts a row and returns the requested columns of the inserted row,
+ * which are selected with the given query by the row ID that SQLite returns for the inserted row.
+ */
+@GenerateBuilder
+@GenerateSubclass
+public abstract class AndroidReturningInsertEncoder extends AndroidInsertEncoder {
+    
+    /**
+     * The query which selects the returned columns of the row whose row ID is given as its only parameter.
+     */
+    private final @Nonnull String query;
+    
+    protected AndroidReturningInsertEncoder(@Nonnull SQLiteDatabase sqLiteDatabase, @Nonnull String tableName, @Nonnull String[] columnNames, @Nonnull String query) {
+        super(sqLiteDatabase, tableName, columnNames);
+        this.query = query;
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public @Capturable <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull @NonNullableElements @NonFrozen FreezableList<TYPE> executeReturning(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws DatabaseException, RecoveryException {
+        final @Nonnull FreezableArrayList<TYPE> results = FreezableArrayList.withNoElements();
+        final long rowID = sqliteDatabase.insert(tableName, null, contentValues);
+        if (rowID == -1) { return results; }
+        final @Nonnull SQLDecoder decoder = AndroidDecoderBuilder.withCursor(sqliteDatabase.rawQuery(query, new String[] { String.valueOf(rowID) })).build();
+        try {
+            while (decoder.moveToNextRow()) { results.add(decoder.decodeObject(converter, provided)); }
+        } finally {
+            decoder.close();
+        }
+        return results;
+    }
+    
+}
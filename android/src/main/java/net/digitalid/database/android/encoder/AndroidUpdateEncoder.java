@@ -24,6 +24,7 @@ import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.size.MaxSize;
 import net.digitalid.utility.validation.annotations.size.Size;
 
@@ -55,6 +56,12 @@ public abstract class AndroidUpdateEncoder extends AndroidInsertUpdateEncoder im
         sqliteDatabase.update(tableName, contentValues, androidWhereClauseEncoder.whereClause, androidWhereClauseEncoder.whereArgs);
     }
     
+    @Override
+    @PureWithSideEffects
+    public @NonNegative int executeWithCount() throws DatabaseException {
+        return sqliteDatabase.update(tableName, contentValues, androidWhereClauseEncoder.whereClause, androidWhereClauseEncoder.whereArgs);
+    }
+    
     @Impure
     @Override
     public void encodeNull(int typeCode) throws DatabaseException {
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.h2.H2Dialect;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.jdbc.JDBCDatabaseBuilder;
+import net.digitalid.database.sqlite.SQLiteDialect;
+
+/**
+ * This class configures the embedded database on which the benchmarks are run.
+ */
+@Utility
+public abstract class BenchmarkDatabase {
+    
+    /**
+     * Stores the name of the embedded H2 database.
+     */
+    public static final @Nonnull String H2 = "h2";
+    
+    /**
+     * Stores the name of the embedded SQLite database.
+     */
+    public static final @Nonnull String SQLITE = "sqlite";
+    
+    /**
+     * Configures the dialect and the database with the given name, which is either {@link #H2} or {@link #SQLITE}.
+     * The SQLite database is stored in a new temporary file, which is deleted when the virtual machine exits.
+     */
+    @Impure
+    public static void configure(@Nonnull String name) throws IOException {
+        if (H2.equals(name)) {
+            H2Dialect.initializeDialect();
+            final @Nonnull String URL = "jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS " + Unit.DEFAULT.getName() + ";MODE=MySQL;";
+            Database.instance.set(JDBCDatabaseBuilder.withDriver(new org.h2.Driver()).withURL(URL).withUser("sa").withPassword("sa").build());
+        } else if (SQLITE.equals(name)) {
+            SQLiteDialect.initializeDialect();
+            final @Nonnull File file = File.createTempFile("benchmarks", ".db");
+            file.deleteOnExit();
+            Database.instance.set(JDBCDatabaseBuilder.withDriver(new org.sqlite.JDBC()).withURL("jdbc:sqlite:" + file.getAbsolutePath()).build());
+        } else {
+            throw new IllegalArgumentException("The database '" + name + "' is not supported.");
+        }
+    }
+    
+    /**
+     * Closes the configured database.
+     */
+    @Impure
+    public static void close() throws Exception {
+        Database.instance.get().close();
+    }
+    
+}
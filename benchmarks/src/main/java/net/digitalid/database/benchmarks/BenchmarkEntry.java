@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateTableConverter;
+import net.digitalid.utility.validation.annotations.generation.Recover;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.constraints.PrimaryKey;
+
+/**
+ * This class models a row with a primary key and columns of the most common types.
+ */
+@Immutable
+@GenerateBuilder
+@GenerateTableConverter
+public class BenchmarkEntry {
+    
+    @PrimaryKey
+    public final long key;
+    
+    public final boolean flag;
+    
+    public final int number;
+    
+    public final double decimal;
+    
+    public final @Nonnull String text;
+    
+    protected BenchmarkEntry(long key, boolean flag, int number, double decimal, @Nonnull String text) {
+        this.key = key;
+        this.flag = flag;
+        this.number = number;
+        this.decimal = decimal;
+        this.text = text;
+    }
+    
+    @Pure
+    @Recover
+    public static @Nonnull BenchmarkEntry get(long key, boolean flag, int number, double decimal, @Nonnull String text) {
+        return new BenchmarkEntry(key, flag, number, decimal, text);
+    }
+    
+    /**
+     * Returns a deterministic entry with the given key.
+     */
+    @Pure
+    public static @Nonnull BenchmarkEntry withKey(long key) {
+        return new BenchmarkEntry(key, key % 2 == 0, (int) key, key / 3.0, "entry-" + key);
+    }
+    
+}
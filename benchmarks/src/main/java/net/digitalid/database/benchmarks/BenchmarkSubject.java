@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.generator.annotations.generators.GenerateTableConverter;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.constraints.PrimaryKey;
+import net.digitalid.database.property.annotations.GeneratePersistentProperty;
+import net.digitalid.database.property.map.WritablePersistentSimpleMapProperty;
+import net.digitalid.database.property.subject.Subject;
+import net.digitalid.database.property.value.WritablePersistentValueProperty;
+
+/**
+ * This class models a subject with a persistent map property and a persistent value property for the property benchmarks.
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+@GenerateTableConverter
+public abstract class BenchmarkSubject extends Subject<Unit> {
+    
+    @Pure
+    @PrimaryKey
+    public abstract long getKey();
+    
+    @Pure
+    @GeneratePersistentProperty
+    public abstract @Nonnull WritablePersistentSimpleMapProperty<BenchmarkSubject, Integer, Integer> values();
+    
+    @Pure
+    @Default("\"\"")
+    @GeneratePersistentProperty
+    public abstract @Nonnull WritablePersistentValueProperty<BenchmarkSubject, @Nonnull String> name();
+    
+}
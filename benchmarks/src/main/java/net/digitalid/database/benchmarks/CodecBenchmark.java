@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.conversion.enumerations.Representation;
+
+import net.digitalid.database.jdbc.decoder.JDBCDecoder;
+import net.digitalid.database.jdbc.decoder.JDBCDecoderBuilder;
+import net.digitalid.database.jdbc.encoder.JDBCActionEncoder;
+import net.digitalid.database.jdbc.encoder.JDBCActionEncoderBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class benchmarks the throughput of the JDBC encoder and decoder per type on a plain JDBC connection.
+ * The encoding benchmarks only bind the parameters, and the decoding benchmarks decode a single column of all rows of a table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.SQLITE})
+    public String database;
+    
+    /**
+     * Stores the number of rows that are decoded per invocation.
+     */
+    private static final int ROWS = 1_000;
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    private static final @Nonnull String STRING = "The quick brown fox jumps over the lazy dog.";
+    
+    private static final @Nonnull byte[] BINARY = new byte[64];
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private Connection connection;
+    
+    private PreparedStatement insertStatement;
+    
+    private PreparedStatement selectBoolean;
+    
+    private PreparedStatement selectInteger32;
+    
+    private PreparedStatement selectInteger64;
+    
+    private PreparedStatement selectDecimal64;
+    
+    private PreparedStatement selectString;
+    
+    private PreparedStatement selectBinary;
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (BenchmarkDatabase.H2.equals(database)) { connection = DriverManager.getConnection("jdbc:h2:mem:codec", "sa", "sa"); }
+        else { connection = DriverManager.getConnection("jdbc:sqlite::memory:"); }
+        connection.setAutoCommit(false);
+        
+        try (@Nonnull Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE codec (b BOOLEAN, i INTEGER, l BIGINT, d DOUBLE, s VARCHAR(100), x BLOB)");
+        }
+        insertStatement = connection.prepareStatement("INSERT INTO codec (b, i, l, d, s, x) VALUES (?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < ROWS; i++) {
+            insertStatement.setBoolean(1, i % 2 == 0);
+            insertStatement.setInt(2, i);
+            insertStatement.setLong(3, i * 1_000_000_007L);
+            insertStatement.setDouble(4, i / 7.0);
+            insertStatement.setString(5, STRING);
+            insertStatement.setBytes(6, BINARY);
+            insertStatement.addBatch();
+        }
+        insertStatement.executeBatch();
+        connection.commit();
+        
+        selectBoolean = connection.prepareStatement("SELECT b FROM codec");
+        selectInteger32 = connection.prepareStatement("SELECT i FROM codec");
+        selectInteger64 = connection.prepareStatement("SELECT l FROM codec");
+        selectDecimal64 = connection.prepareStatement("SELECT d FROM codec");
+        selectString = connection.prepareStatement("SELECT s FROM codec");
+        selectBinary = connection.prepareStatement("SELECT x FROM codec");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+    
+    /* -------------------------------------------------- Helpers -------------------------------------------------- */
+    
+    /**
+     * Returns a new encoder which binds the parameters of the insert statement from the first parameter on.
+     */
+    private @Nonnull JDBCActionEncoder getEncoder() {
+        return JDBCActionEncoderBuilder.withPreparedStatement(insertStatement).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).withStatementCache(null).build();
+    }
+    
+    /**
+     * Returns a new decoder for the result of the given select statement.
+     */
+    private static @Nonnull JDBCDecoder getDecoder(@Nonnull PreparedStatement selectStatement) throws Exception {
+        return JDBCDecoderBuilder.withResultSet(selectStatement.executeQuery()).withStatementCache(null).build();
+    }
+    
+    /* -------------------------------------------------- Encoding -------------------------------------------------- */
+    
+    @Benchmark
+    public void encodeBoolean() throws Exception {
+        getEncoder().encodeBoolean(true);
+    }
+    
+    @Benchmark
+    public void encodeInteger32() throws Exception {
+        getEncoder().encodeInteger32(123_456);
+    }
+    
+    @Benchmark
+    public void encodeInteger64() throws Exception {
+        getEncoder().encodeInteger64(123_456_789_012L);
+    }
+    
+    @Benchmark
+    public void encodeDecimal64() throws Exception {
+        getEncoder().encodeDecimal64(Math.PI);
+    }
+    
+    @Benchmark
+    public void encodeString() throws Exception {
+        getEncoder().encodeString(STRING);
+    }
+    
+    @Benchmark
+    public void encodeBinary() throws Exception {
+        getEncoder().encodeBinary(BINARY);
+    }
+    
+    /* -------------------------------------------------- Decoding -------------------------------------------------- */
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void decodeBoolean(@Nonnull Blackhole blackhole) throws Exception {
+        final @Nonnull JDBCDecoder decoder = getDecoder(selectBoolean);
+        while (decoder.moveToNextRow()) { blackhole.consume(decoder.decodeBoolean()); }
+        decoder.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void decodeInteger32(@Nonnull Blackhole blackhole) throws Exception {
+        final @Nonnull JDBCDecoder decoder = getDecoder(selectInteger32);
+        while (decoder.moveToNextRow()) { blackhole.consume(decoder.decodeInteger32()); }
+        decoder.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void decodeInteger64(@Nonnull Blackhole blackhole) throws Exception {
+        final @Nonnull JDBCDecoder decoder = getDecoder(selectInteger64);
+        while (decoder.moveToNextRow()) { blackhole.consume(decoder.decodeInteger64()); }
+        decoder.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void decodeDecimal64(@Nonnull Blackhole blackhole) throws Exception {
+        final @Nonnull JDBCDecoder decoder = getDecoder(selectDecimal64);
+        while (decoder.moveToNextRow()) { blackhole.consume(decoder.decodeDecimal64()); }
+        decoder.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void decodeString(@Nonnull Blackhole blackhole) throws Exception {
+        final @Nonnull JDBCDecoder decoder = getDecoder(selectString);
+        while (decoder.moveToNextRow()) { blackhole.consume(decoder.decodeString()); }
+        decoder.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void decodeBinary(@Nonnull Blackhole blackhole) throws Exception {
+        final @Nonnull JDBCDecoder decoder = getDecoder(selectBinary);
+        while (decoder.moveToNextRow()) { blackhole.consume(decoder.decodeBinary()); }
+        decoder.close();
+    }
+    
+}
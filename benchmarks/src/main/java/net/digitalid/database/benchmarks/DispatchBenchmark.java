@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.conversion.model.CustomType;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.SQLNode;
+import net.digitalid.database.dialect.SQLRenderer;
+import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
+import net.digitalid.database.dialect.expression.bool.SQLBooleanLiteral;
+import net.digitalid.database.dialect.expression.number.SQLCurrentTime;
+import net.digitalid.database.dialect.expression.number.SQLLongLiteralBuilder;
+import net.digitalid.database.dialect.expression.number.SQLVariadicNumberOperator;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.dialect.identifier.column.SQLColumnNameBuilder;
+import net.digitalid.database.dialect.identifier.table.SQLImplicitlyQualifiedTableBuilder;
+import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
+import net.digitalid.database.dialect.identifier.table.SQLTableNameBuilder;
+import net.digitalid.database.dialect.statement.schema.SQLCreateSchemaStatement;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatementBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLAllColumnsBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.sources.SQLTableSourceBuilder;
+import net.digitalid.database.dialect.statement.table.create.SQLColumnDeclaration;
+import net.digitalid.database.dialect.statement.table.create.SQLColumnDeclarationBuilder;
+import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
+import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatementBuilder;
+import net.digitalid.database.dialect.statement.table.create.SQLType;
+import net.digitalid.database.dialect.statement.table.create.SQLTypeBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class compares the dispatch of nodes to the renderers of a dialect with a chain of instance checks and with a lookup in the registered renderers.
+ * Both dialects override the same node types as the SQLite dialect but unparse them with their default implementation so that only the dispatch differs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    
+    /* -------------------------------------------------- Dialects -------------------------------------------------- */
+    
+    /**
+     * This dialect dispatches the nodes with a chain of instance checks before falling back to the default implementation.
+     */
+    private static class InstanceCheckDialect extends SQLDialect {
+        
+        @Override
+        public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @Nonnull StringBuilder string) {
+            if (node instanceof SQLType) { node.unparse(this, unit, string); }
+            else if (node instanceof SQLColumnDeclaration) { node.unparse(this, unit, string); }
+            else if (node instanceof SQLBooleanLiteral) { node.unparse(this, unit, string); }
+            else if (node instanceof SQLVariadicNumberOperator) { node.unparse(this, unit, string); }
+            else if (node instanceof SQLCreateSchemaStatement) { node.unparse(this, unit, string); }
+            else if (node instanceof SQLQualifiedTable) { node.unparse(this, unit, string); }
+            else if (node instanceof SQLCurrentTime) { node.unparse(this, unit, string); }
+            else { node.unparse(this, unit, string); }
+        }
+    
+    }
+    
+    /**
+     * This dialect dispatches the nodes with the renderers that are registered for the same node types.
+     */
+    private static class RegisteredDialect extends SQLDialect {
+        
+        private RegisteredDialect() {
+            final @Nonnull SQLRenderer<SQLNode> renderer = (node, unit, string) -> node.unparse(this, unit, string);
+            register(SQLType.class, renderer);
+            register(SQLColumnDeclaration.class, renderer);
+            register(SQLBooleanLiteral.class, renderer);
+            register(SQLVariadicNumberOperator.class, renderer);
+            register(SQLCreateSchemaStatement.class, renderer);
+            register(SQLQualifiedTable.class, renderer);
+            register(SQLCurrentTime.class, renderer);
+        }
+    
+    }
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Param({"instanceof", "registered"})
+    public String dispatch;
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    private static final int NUMBER_OF_COLUMNS = 50;
+    
+    private static final int DEPTH_OF_WHERE_CLAUSE = 64;
+    
+    private SQLDialect dialect;
+    
+    private SQLCreateTableStatement createTableStatement;
+    
+    private SQLSimpleSelectStatement selectStatement;
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.dialect = "instanceof".equals(dispatch) ? new InstanceCheckDialect() : new RegisteredDialect();
+        
+        final @Nonnull SQLQualifiedTable table = SQLImplicitlyQualifiedTableBuilder.withTable(SQLTableNameBuilder.withString("dispatch_table").build()).build();
+        final @Nonnull SQLColumnName[] columns = new SQLColumnName[NUMBER_OF_COLUMNS];
+        final @Nonnull SQLColumnDeclaration[] columnDeclarations = new SQLColumnDeclaration[NUMBER_OF_COLUMNS];
+        for (int i = 0; i < NUMBER_OF_COLUMNS; i++) {
+            columns[i] = SQLColumnNameBuilder.withString("column_" + i).build();
+            columnDeclarations[i] = SQLColumnDeclarationBuilder.withName(columns[i]).withType(SQLTypeBuilder.withType(i % 2 == 0 ? CustomType.INTEGER64 : CustomType.STRING64).build()).withNotNull(true).withPrimaryKey(i == 0).build();
+        }
+        this.createTableStatement = SQLCreateTableStatementBuilder.withTable(table).withColumnDeclarations(ImmutableList.withElements(columnDeclarations)).build();
+        
+        @Nonnull SQLBooleanExpression whereClause = columns[0].equal(SQLLongLiteralBuilder.withValue(0).build());
+        for (int i = 1; i < DEPTH_OF_WHERE_CLAUSE; i++) {
+            final @Nonnull SQLBooleanExpression condition = columns[i % NUMBER_OF_COLUMNS].equal(SQLLongLiteralBuilder.withValue(i).build());
+            whereClause = i % 2 == 0 ? whereClause.and(condition) : whereClause.or(condition);
+        }
+        this.selectStatement = SQLSimpleSelectStatementBuilder.withColumns(ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(table))).withSources(ImmutableList.withElements(SQLTableSourceBuilder.withSource(table).build())).withWhereClause(whereClause).build();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Benchmark
+    public String unparseCreateTable() {
+        final @Nonnull StringBuilder string = new StringBuilder();
+        dialect.unparse(createTableStatement, unit, string);
+        return string.toString();
+    }
+    
+    @Benchmark
+    public String unparseNestedWhereClause() {
+        final @Nonnull StringBuilder string = new StringBuilder();
+        dialect.unparse(selectStatement, unit, string);
+        return string.toString();
+    }
+    
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.interfaces.Database;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the addition and retrieval of entries of a persistent map property.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyBenchmark {
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.SQLITE})
+    public String database;
+    
+    @Param({"100"})
+    public int entries;
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    private BenchmarkSubject subject;
+    
+    private int index = 0;
+    
+    /**
+     * Stores the key of the next entry that is added, which does not collide with the pre-populated entries.
+     */
+    private int nextKey = 1_000_000_000;
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.configure(database);
+        SQL.createTable(BenchmarkSubjectConverter.INSTANCE, unit);
+        BenchmarkSubjectSubclass.MODULE.accept(table -> SQL.createTable(table, unit));
+        subject = BenchmarkSubjectBuilder.withKey(1).build();
+        SQL.insertOrAbort(BenchmarkSubjectConverter.INSTANCE, subject, unit);
+        for (int i = 0; i < entries; i++) { subject.values().add(i, i); }
+        Database.commit();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkSubjectSubclass.MODULE.accept(table -> SQL.dropTable(table, unit));
+        SQL.dropTable(BenchmarkSubjectConverter.INSTANCE, unit);
+        BenchmarkDatabase.close();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Benchmark
+    public boolean add() throws Exception {
+        final boolean added = subject.values().add(nextKey++, 0);
+        Database.commit();
+        return added;
+    }
+    
+    /**
+     * Retrieves an entry of the map, which is loaded only once.
+     */
+    @Benchmark
+    public Integer get() throws Exception {
+        return subject.values().get(index++ % entries);
+    }
+    
+    /**
+     * Retrieves an entry of the map after resetting it, which reloads the whole map.
+     */
+    @Benchmark
+    public Integer getAfterReset() throws Exception {
+        subject.values().reset();
+        return subject.values().get(index++ % entries);
+    }
+    
+}
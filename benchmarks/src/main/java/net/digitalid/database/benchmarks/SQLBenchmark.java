@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.conversion.WhereConditionBuilder;
+import net.digitalid.database.interfaces.Database;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the insertion, selection, update and deletion of entries through the {@link SQL} facade.
+ * Every modifying operation is committed individually in order to measure the whole persistence path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SQLBenchmark {
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.SQLITE})
+    public String database;
+    
+    @Param({"100"})
+    public int rows;
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    /**
+     * Stores the current state of the pre-populated entries.
+     */
+    private BenchmarkEntry[] entries;
+    
+    /**
+     * Stores the index of the next entry that is updated or deleted.
+     */
+    private int index = 0;
+    
+    /**
+     * Stores the key of the next entry that is inserted, which does not collide with the pre-populated entries.
+     */
+    private long nextKey = 1_000_000_000L;
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.configure(database);
+        SQL.createTable(BenchmarkEntryConverter.INSTANCE, unit);
+        entries = new BenchmarkEntry[rows];
+        for (int i = 0; i < rows; i++) {
+            entries[i] = BenchmarkEntry.withKey(i);
+            SQL.insertOrAbort(BenchmarkEntryConverter.INSTANCE, entries[i], unit);
+        }
+        Database.commit();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        SQL.dropTable(BenchmarkEntryConverter.INSTANCE, unit);
+        BenchmarkDatabase.close();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Benchmark
+    public void insert() throws Exception {
+        SQL.insertOrAbort(BenchmarkEntryConverter.INSTANCE, BenchmarkEntry.withKey(nextKey++), unit);
+        Database.commit();
+    }
+    
+    @Benchmark
+    public FreezableList<BenchmarkEntry> selectAll() throws Exception {
+        return SQL.selectAll(BenchmarkEntryConverter.INSTANCE, null, unit);
+    }
+    
+    @Benchmark
+    public void update() throws Exception {
+        final int i = index++ % rows;
+        final @Nonnull BenchmarkEntry entry = entries[i];
+        final @Nonnull BenchmarkEntry updatedEntry = BenchmarkEntry.get(entry.key, !entry.flag, entry.number + 1, entry.decimal, entry.text);
+        SQL.update(BenchmarkEntryConverter.INSTANCE, updatedEntry, unit, WhereConditionBuilder.withConverter(BenchmarkEntryConverter.INSTANCE).withObject(entry).build());
+        Database.commit();
+        entries[i] = updatedEntry;
+    }
+    
+    /**
+     * Deletes an entry and inserts it again so that the number of entries stays the same.
+     */
+    @Benchmark
+    public void delete() throws Exception {
+        final @Nonnull BenchmarkEntry entry = entries[index++ % rows];
+        SQL.delete(BenchmarkEntryConverter.INSTANCE, unit, WhereConditionBuilder.withConverter(BenchmarkEntryConverter.INSTANCE).withObject(entry).build());
+        SQL.insertOrAbort(BenchmarkEntryConverter.INSTANCE, entry, unit);
+        Database.commit();
+    }
+    
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.functional.iterables.InfiniteIterable;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.conversion.SQLUtility;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.expression.SQLParameter;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.insert.SQLExpressionsBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatementBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLRowsBuilder;
+import net.digitalid.database.dialect.statement.select.SQLSelectStatement;
+import net.digitalid.database.dialect.statement.select.ordered.SQLOrderedSelectStatementBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatementBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLAllColumnsBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.sources.SQLTableSourceBuilder;
+import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
+import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatementBuilder;
+import net.digitalid.database.h2.H2Dialect;
+import net.digitalid.database.sqlite.SQLiteDialect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the unparsing of representative statements in the dialects of the embedded databases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnparseBenchmark {
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.SQLITE})
+    public String dialect;
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    private SQLCreateTableStatement createTableStatement;
+    
+    private SQLInsertStatement insertStatement;
+    
+    private SQLSelectStatement selectStatement;
+    
+    private SQLSelectStatement selectFirstStatement;
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (BenchmarkDatabase.H2.equals(dialect)) { H2Dialect.initializeDialect(); }
+        else { SQLiteDialect.initializeDialect(); }
+        
+        final @Nonnull SQLQualifiedTable table = SQLUtility.getQualifiedTableName(BenchmarkEntryConverter.INSTANCE, unit);
+        final @Nonnull ImmutableList<@Nonnull SQLColumnName> columns = SQLUtility.getColumnNames(BenchmarkEntryConverter.INSTANCE);
+        
+        this.createTableStatement = SQLCreateTableStatementBuilder.withTable(table).withColumnDeclarations(SQLUtility.getColumnDeclarations(BenchmarkEntryConverter.INSTANCE)).build();
+        
+        final @Nonnull ImmutableList<@Nonnull SQLParameter> row = ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(columns.size()));
+        this.insertStatement = SQLInsertStatementBuilder.withTable(table).withColumns(columns).withValues(SQLRowsBuilder.withRows(ImmutableList.withElements(SQLExpressionsBuilder.withExpressions(row).build())).build()).withConflictClause(SQLConflictClause.ABORT).build();
+        
+        final @Nonnull SQLSimpleSelectStatement simpleSelectStatement = SQLSimpleSelectStatementBuilder.withColumns(ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(table))).withSources(ImmutableList.withElements(SQLTableSourceBuilder.withSource(table).build())).build();
+        this.selectStatement = simpleSelectStatement;
+        this.selectFirstStatement = SQLOrderedSelectStatementBuilder.withSelectStatement(simpleSelectStatement).withLimit(1).build();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    @Benchmark
+    public String unparseCreateTable() {
+        return SQLDialect.unparse(createTableStatement, unit);
+    }
+    
+    @Benchmark
+    public String unparseInsert() {
+        return SQLDialect.unparse(insertStatement, unit);
+    }
+    
+    @Benchmark
+    public String unparseSelect() {
+        return SQLDialect.unparse(selectStatement, unit);
+    }
+    
+    @Benchmark
+    public String unparseSelectFirst() {
+        return SQLDialect.unparse(selectFirstStatement, unit);
+    }
+    
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.tuples.Pair;
+
+import net.digitalid.database.conversion.SQL;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the throughput of reading a loaded persistent value property from 32 threads at the same time.
+ * Since reads of a loaded value only dereference the published snapshot, the throughput should scale with the number of threads instead of contending for the lock.
+ */
+@Threads(32)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValuePropertyBenchmark {
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.SQLITE})
+    public String database;
+    
+    /* -------------------------------------------------- State -------------------------------------------------- */
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    private BenchmarkSubject subject;
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.configure(database);
+        SQL.createTable(BenchmarkSubjectConverter.INSTANCE, unit);
+        BenchmarkSubjectSubclass.MODULE.accept(table -> SQL.createTable(table, unit));
+        subject = BenchmarkSubjectBuilder.withKey(1).build();
+        SQL.insertOrAbort(BenchmarkSubjectConverter.INSTANCE, subject, unit);
+        subject.name().set("benchmark");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkSubjectSubclass.MODULE.accept(table -> SQL.dropTable(table, unit));
+        SQL.dropTable(BenchmarkSubjectConverter.INSTANCE, unit);
+        BenchmarkDatabase.close();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    /**
+     * Reads the loaded value of the property.
+     */
+    @Benchmark
+    public String get() throws Exception {
+        return subject.name().get();
+    }
+    
+    /**
+     * Reads the loaded value of the property together with the time of its last modification, which used to acquire the lock.
+     */
+    @Benchmark
+    public Pair<String, Time> getValueWithTimeOfLastModification() throws Exception {
+        return subject.name().getValueWithTimeOfLastModification();
+    }
+    
+}
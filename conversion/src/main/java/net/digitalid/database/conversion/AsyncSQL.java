@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.storage.Table;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+
+/**
+ * This class provides non-blocking variants of the methods in {@link SQL}, which are executed by the configured {@link SQLExecutor executor}.
+ * The operations on a unit are executed in the order of their submission and its modifications belong to the transaction of the unit until it is {@link #commit(Unit) committed} or {@link #rollback(Unit) rolled back}.
+ * If an operation fails, all uncommitted modifications on its unit are rolled back and the subsequent modifications begin a new transaction.
+ * If the executor is overloaded, the returned futures fail immediately with a {@link java.util.concurrent.RejectedExecutionException}
+ * and callers should only submit further operations once the future returned by {@link #whenAccepting(Unit)} is completed.
+ */
+@Utility
+public abstract class AsyncSQL {
+    
+    /* -------------------------------------------------- Executor -------------------------------------------------- */
+    
+    /**
+     * Stores the executor which executes the asynchronous operations.
+     * The threads of the default executor are only started when the first operation is submitted.
+     */
+    public static final @Nonnull Configuration<SQLExecutor> executor = Configuration.with(SQLExecutorBuilder.withNumberOfLanes(4).withQueueCapacity(1_000).build());
+    
+    /* -------------------------------------------------- Insert -------------------------------------------------- */
+    
+    /**
+     * Inserts the given object asynchronously.
+     * 
+     * @see SQL#insert(Table, Object, Unit, SQLConflictClause)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> @Nonnull CompletableFuture<Integer> insert(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) {
+        return executor.get().submit(unit, () -> SQL.insert(table, object, unit, conflictClause));
+    }
+    
+    /**
+     * Inserts the given objects asynchronously in batches.
+     * 
+     * @see SQL#insertAll(Table, Iterable, Unit, SQLConflictClause)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> @Nonnull CompletableFuture<int[]> insertAll(@Nonnull Table<TYPE, ?> table, @Nonnull Iterable<? extends TYPE> objects, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) {
+        return executor.get().submit(unit, () -> SQL.insertAll(table, objects, unit, conflictClause));
+    }
+    
+    /**
+     * Inserts the given objects asynchronously with statements of several rows.
+     * 
+     * @see SQL#insertRows(Table, Iterable, Unit, SQLConflictClause)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> @Nonnull CompletableFuture<Void> insertRows(@Nonnull Table<TYPE, ?> table, @Nonnull Iterable<? extends TYPE> objects, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) {
+        return executor.get().submit(unit, () -> { SQL.insertRows(table, objects, unit, conflictClause); return null; });
+    }
+    
+    /* -------------------------------------------------- Upsert -------------------------------------------------- */
+    
+    /**
+     * Inserts or updates the given object asynchronously.
+     * 
+     * @see SQL#upsert(Table, Object, Unit)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> @Nonnull CompletableFuture<Void> upsert(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) {
+        return executor.get().submit(unit, () -> { SQL.upsert(table, object, unit); return null; });
+    }
+    
+    /* -------------------------------------------------- Update -------------------------------------------------- */
+    
+    /**
+     * Updates the entries with the given where conditions asynchronously.
+     * 
+     * @see SQL#update(Table, Object, Unit, WhereCondition...)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable UPDATE_TYPE> @Nonnull CompletableFuture<Integer> update(@Nonnull Table<UPDATE_TYPE, ?> updateTable, @Nonnull UPDATE_TYPE updateObject, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return executor.get().submit(unit, () -> SQL.update(updateTable, updateObject, unit, whereConditions));
+    }
+    
+    /* -------------------------------------------------- Delete -------------------------------------------------- */
+    
+    /**
+     * Deletes the entries with the given where conditions asynchronously.
+     * 
+     * @see SQL#delete(Table, Unit, WhereCondition...)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Nonnull CompletableFuture<Integer> delete(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return executor.get().submit(unit, () -> SQL.delete(deleteTable, unit, whereConditions));
+    }
+    
+    /* -------------------------------------------------- Select -------------------------------------------------- */
+    
+    /**
+     * Returns the entries with the given where conditions asynchronously.
+     * 
+     * @see SQL#selectAll(Table, Object, Unit, WhereCondition...)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull CompletableFuture<@Nonnull @NonNullableElements @NonFrozen FreezableList<SELECT_TYPE>> selectAll(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return executor.get().submitQuery(unit, () -> SQL.selectAll(selectTable, provided, unit, whereConditions));
+    }
+    
+    /**
+     * Returns the first entry with the given where conditions or null if there is no such entry asynchronously.
+     * 
+     * @see SQL#selectFirst(Table, Object, Unit, WhereCondition...)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull CompletableFuture<@Nullable SELECT_TYPE> selectFirst(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        return executor.get().submitQuery(unit, () -> SQL.selectFirst(selectTable, provided, unit, whereConditions));
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    
+    /**
+     * Commits the operations on the given unit which were submitted before asynchronously and ends the transaction of the unit.
+     * 
+     * @see SQLExecutor#commit(Unit)
+     */
+    @Impure
+    @Committing
+    public static @Nonnull CompletableFuture<Void> commit(@Nonnull Unit unit) {
+        return executor.get().commit(unit);
+    }
+    
+    /**
+     * Rolls back the operations on the given unit which were submitted before asynchronously and ends the transaction of the unit.
+     * 
+     * @see SQLExecutor#rollback(Unit)
+     */
+    @Impure
+    @Committing
+    public static @Nonnull CompletableFuture<Void> rollback(@Nonnull Unit unit) {
+        return executor.get().rollback(unit);
+    }
+    
+    /* -------------------------------------------------- Backpressure -------------------------------------------------- */
+    
+    /**
+     * Returns a future that is completed as soon as the executor accepts another operation on the given unit.
+     * 
+     * @see SQLExecutor#whenAccepting(Unit)
+     */
+    @Impure
+    public static @Nonnull CompletableFuture<Void> whenAccepting(@Nonnull Unit unit) {
+        return executor.get().whenAccepting(unit);
+    }
+    
+}
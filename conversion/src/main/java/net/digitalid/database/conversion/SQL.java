@@ -15,43 +15,73 @@
  */
 package net.digitalid.database.conversion;
 
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Specifiable;
 import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.collections.list.FreezableArrayList;
 import net.digitalid.utility.collections.list.FreezableList;
 import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.conversion.exceptions.RecoveryExceptionBuilder;
+import net.digitalid.utility.conversion.interfaces.Converter;
 import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.functional.failable.FailableConsumer;
+import net.digitalid.utility.functional.interfaces.UnaryFunction;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
 import net.digitalid.utility.functional.iterables.InfiniteIterable;
 import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.storage.Table;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Utility;
 
 import net.digitalid.database.annotations.transaction.Committing;
 import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.dialect.SQLDialect;
 import net.digitalid.database.dialect.expression.SQLParameter;
 import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
+import net.digitalid.database.dialect.expression.bool.SQLComparisonOperator;
+import net.digitalid.database.dialect.expression.bool.SQLRowComparisonBooleanExpressionBuilder;
+import net.digitalid.database.dialect.expression.bool.SQLRowInValuesBooleanExpressionBuilder;
 import net.digitalid.database.dialect.identifier.column.SQLColumnName;
 import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
+import net.digitalid.database.dialect.statement.SQLStatementNode;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatementBuilder;
 import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.insert.SQLExpressions;
 import net.digitalid.database.dialect.statement.insert.SQLExpressionsBuilder;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatementBuilder;
 import net.digitalid.database.dialect.statement.insert.SQLRows;
 import net.digitalid.database.dialect.statement.insert.SQLRowsBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatement;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatementBuilder;
+import net.digitalid.database.dialect.statement.select.SQLSelectStatement;
+import net.digitalid.database.dialect.statement.select.ordered.SQLOrderedSelectStatementBuilder;
+import net.digitalid.database.dialect.statement.select.ordered.SQLOrderingTerm;
+import net.digitalid.database.dialect.statement.select.ordered.SQLOrderingTermBuilder;
 import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
 import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatementBuilder;
 import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLAllColumns;
@@ -70,7 +100,11 @@ import net.digitalid.database.dialect.statement.update.SQLUpdateStatementBuilder
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
 import net.digitalid.database.interfaces.SQLDecoder;
+import net.digitalid.database.interfaces.SQLTemplate;
+import net.digitalid.database.interfaces.SQLTemplateBuilder;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+import net.digitalid.database.interfaces.encoder.SQLBulkEncoder;
+import net.digitalid.database.interfaces.encoder.SQLEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
 
 /**
@@ -86,6 +120,137 @@ public abstract class SQL {
      */
     public static final @Nonnull Configuration<Boolean> configuration = Configuration.with(Boolean.TRUE).addDependency(Database.instance);
     
+    /**
+     * Stores the maximum number of statement templates that are cached before the cache is cleared.
+     */
+    public static final @Nonnull Configuration<Integer> templateCacheSize = Configuration.with(1_024);
+    
+    /**
+     * Stores the number of rows after which the batch of a bulk operation is executed.
+     */
+    public static final @Nonnull Configuration<Integer> batchSize = Configuration.with(500);
+    
+    /* -------------------------------------------------- Templates -------------------------------------------------- */
+    
+    /**
+     * Stores the cached statement templates with the kind of statement, the table, the unit and the shape of the statement as the key.
+     */
+    private static final @Nonnull ConcurrentMap<@Nonnull List<?>, @Nonnull SQLTemplate<?>> templates = new ConcurrentHashMap<>();
+    
+    /**
+     * Stores the dialect for which the cached templates were unparsed.
+     */
+    private static volatile @Nullable SQLDialect templatesDialect;
+    
+    /**
+     * Stores the database for which the cached templates were compiled.
+     */
+    private static volatile @Nullable Database templatesDatabase;
+    
+    private static final @Nonnull AtomicLong templateHits = new AtomicLong();
+    
+    /**
+     * Returns the number of statements whose template was reused from the cache.
+     */
+    @Pure
+    public static long getTemplateHits() {
+        return templateHits.get();
+    }
+    
+    private static final @Nonnull AtomicLong templateMisses = new AtomicLong();
+    
+    /**
+     * Returns the number of statements whose template had to be compiled because it was not in the cache.
+     */
+    @Pure
+    public static long getTemplateMisses() {
+        return templateMisses.get();
+    }
+    
+    /**
+     * Clears the cached templates if the configured dialect or database has changed since they were compiled.
+     */
+    @Impure
+    private static void invalidateTemplatesIfReconfigured() {
+        final @Nonnull SQLDialect dialect = SQLDialect.instance.get();
+        final @Nonnull Database database = Database.instance.get();
+        if (dialect != templatesDialect || database != templatesDatabase) {
+            synchronized (templates) {
+                if (dialect != templatesDialect || database != templatesDatabase) {
+                    templates.clear();
+                    templatesDialect = dialect;
+                    templatesDatabase = database;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the cached template with the given key or null if there is no such template or it was unparsed in another dialect.
+     */
+    @Impure
+    @SuppressWarnings("unchecked")
+    private static <@Unspecifiable STATEMENT extends SQLStatementNode> @Nullable SQLTemplate<STATEMENT> getTemplate(@Nonnull List<?> key) {
+        invalidateTemplatesIfReconfigured();
+        final @Nullable SQLTemplate<?> template = templates.get(key);
+        if (template != null && template.isCurrent()) {
+            templateHits.incrementAndGet();
+            return (SQLTemplate<STATEMENT>) template;
+        } else {
+            templateMisses.incrementAndGet();
+            return null;
+        }
+    }
+    
+    /**
+     * Compiles the given statement at the given unit into a template and caches it with the given key.
+     */
+    @Impure
+    private static <@Unspecifiable STATEMENT extends SQLStatementNode> @Nonnull SQLTemplate<STATEMENT> putTemplate(@Nonnull List<?> key, @Nonnull STATEMENT statement, @Nonnull Unit unit) {
+        final @Nonnull SQLTemplate<STATEMENT> template = SQLTemplateBuilder.withStatement(statement).withUnit(unit).withDialect(SQLDialect.instance.get()).build();
+        if (templates.size() >= templateCacheSize.get()) { templates.clear(); }
+        templates.put(key, template);
+        return template;
+    }
+    
+    /**
+     * Returns the key of a template for the given kind of statement, the given table, the given unit, the given conflict clause and the shape of the given where conditions.
+     */
+    @Pure
+    private static @Nonnull List<?> getTemplateKey(@Nonnull String kind, @Nonnull Table<?, ?> table, @Nonnull Unit unit, @Nullable SQLConflictClause conflictClause, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) {
+        final @Nonnull Object[] key = new Object[4 + 2 * whereConditions.length];
+        key[0] = kind;
+        key[1] = table;
+        key[2] = unit;
+        key[3] = conflictClause;
+        for (int i = 0; i < whereConditions.length; i++) {
+            key[4 + 2 * i] = whereConditions[i].getConverter();
+            key[5 + 2 * i] = whereConditions[i].getPrefix();
+        }
+        return Arrays.asList(key);
+    }
+    
+    /* -------------------------------------------------- Encoding -------------------------------------------------- */
+    
+    /**
+     * Encodes the parameters of a statement on the given encoder with the given encoding and returns the encoder.
+     * If the encoding fails, the encoder is closed because a cached statement is otherwise only released when it is executed.
+     */
+    @Impure
+    private static <@Unspecifiable ENCODER extends SQLEncoder> @Nonnull ENCODER encode(@Nonnull ENCODER encoder, @Nonnull FailableConsumer<? super ENCODER, ? extends DatabaseException> encoding) throws DatabaseException {
+        try {
+            encoding.consume(encoder);
+        } catch (@Nonnull DatabaseException | RuntimeException exception) {
+            try {
+                encoder.close();
+            } catch (@Nonnull DatabaseException closingException) {
+                exception.addSuppressed(closingException);
+            }
+            throw exception;
+        }
+        return encoder;
+    }
+    
     /* -------------------------------------------------- Create Table -------------------------------------------------- */
     
     /**
@@ -123,22 +288,56 @@ public abstract class SQL {
     
     /**
      * Inserts the given object with the given converter into its table in the given unit.
+     * 
+     * @return the number of inserted rows, which is zero if the object was ignored because of the given conflict clause.
      */
     @NonCommitting
     @PureWithSideEffects
-    public static <@Unspecifiable TYPE> void insert(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
-        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
-        SQLUtility.fillColumnNames(table, columns, "");
-        
-        final @Nonnull ImmutableList<@Nonnull SQLParameter> row = ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(columns.size()));
-        final @Nonnull SQLRows rows = SQLRowsBuilder.withRows(ImmutableList.withElements(SQLExpressionsBuilder.withExpressions(row).build())).build();
-        
-        final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(table, unit);
-        final SQLInsertStatement insertStatement = SQLInsertStatementBuilder.withTable(qualifiedTable).withColumns(ImmutableList.withElementsOf(columns)).withValues(rows).withConflictClause(conflictClause).build();
-        
-        final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getEncoder(insertStatement, unit);
-        actionEncoder.encodeObject(table, object);
-        actionEncoder.execute();
+    public static <@Unspecifiable TYPE> @NonNegative int insert(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
+        final @Nonnull SQLActionEncoder actionEncoder = encode(Database.instance.get().getActionEncoder(getInsertTemplate(table, unit, conflictClause)), encoder -> encoder.encodeObject(table, object));
+        return actionEncoder.executeWithCount();
+    }
+    
+    /**
+     * Inserts the given object with the given converter into its table in the given unit and returns the given columns of the inserted row recovered with the given key converter.
+     * If the dialect does not support a {@code RETURNING} clause, the {@link Database#getReturningEncoder(SQLTemplate, ImmutableList) database} might only be able to return the key that it generated for the inserted row.
+     * 
+     * @return the recovered columns of the inserted row or null if the object was ignored because of the given conflict clause.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE, @Unspecifiable KEY, @Specifiable PROVIDED> @Nullable KEY insertReturning(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause, @Nonnull Converter<KEY, PROVIDED> keyConverter, @Shared PROVIDED provided) throws DatabaseException, RecoveryException {
+        final @Nonnull SQLActionEncoder actionEncoder = encode(Database.instance.get().getReturningEncoder(getInsertTemplate(table, unit, conflictClause), SQLUtility.getColumnNames(keyConverter)), encoder -> encoder.encodeObject(table, object));
+        final @Nonnull FreezableList<KEY> keys = actionEncoder.executeReturning(keyConverter, provided);
+        return keys.isEmpty() ? null : keys.getFirst();
+    }
+    
+    @Impure
+    @NonCommitting
+    private static @Nonnull SQLTemplate<SQLInsertStatement> getInsertTemplate(@Nonnull Table<?, ?> table, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
+        return getInsertTemplate(table, unit, conflictClause, 1);
+    }
+    
+    /**
+     * Returns the template of a statement which inserts the given number of rows into the given table.
+     */
+    @Impure
+    @NonCommitting
+    private static @Nonnull SQLTemplate<SQLInsertStatement> getInsertTemplate(@Nonnull Table<?, ?> table, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause, @Positive int numberOfRows) throws DatabaseException {
+        final @Nonnull List<?> key = getTemplateKey(numberOfRows == 1 ? "INSERT" : "INSERT " + numberOfRows, table, unit, conflictClause);
+        @Nullable SQLTemplate<SQLInsertStatement> template = getTemplate(key);
+        if (template == null) {
+            final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
+            SQLUtility.fillColumnNames(table, columns, "");
+            
+            final @Nonnull ImmutableList<@Nonnull SQLParameter> row = ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(columns.size()));
+            final @Nonnull SQLRows rows = SQLRowsBuilder.withRows(ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLExpressionsBuilder.withExpressions(row).build()).limit(numberOfRows))).build();
+            
+            final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(table, unit);
+            final SQLInsertStatement insertStatement = SQLInsertStatementBuilder.withTable(qualifiedTable).withColumns(ImmutableList.withElementsOf(columns)).withValues(rows).withConflictClause(conflictClause).withKeyColumns(SQLUtility.getPrimaryKeyColumnNames(table)).build();
+            template = putTemplate(key, insertStatement, unit);
+        }
+        return template;
     }
     
     /**
@@ -146,17 +345,19 @@ public abstract class SQL {
      */
     @NonCommitting
     @PureWithSideEffects
-    public static <@Unspecifiable TYPE> void insertOrAbort(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) throws DatabaseException {
-        insert(table, object, unit, SQLConflictClause.ABORT);
+    public static <@Unspecifiable TYPE> @NonNegative int insertOrAbort(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) throws DatabaseException {
+        return insert(table, object, unit, SQLConflictClause.ABORT);
     }
     
     /**
      * Inserts or ignores the given object with the given converter into its table in the given unit.
+     * 
+     * @return one if the object was inserted and zero if a row with the same key already existed.
      */
     @NonCommitting
     @PureWithSideEffects
-    public static <@Unspecifiable TYPE> void insertOrIgnore(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) throws DatabaseException {
-        insert(table, object, unit, SQLConflictClause.IGNORE);
+    public static <@Unspecifiable TYPE> @NonNegative int insertOrIgnore(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) throws DatabaseException {
+        return insert(table, object, unit, SQLConflictClause.IGNORE);
     }
     
     /**
@@ -164,8 +365,137 @@ public abstract class SQL {
      */
     @NonCommitting
     @PureWithSideEffects
-    public static <@Unspecifiable TYPE> void insertOrReplace(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) throws DatabaseException {
-        insert(table, object, unit, SQLConflictClause.REPLACE);
+    public static <@Unspecifiable TYPE> @NonNegative int insertOrReplace(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) throws DatabaseException {
+        return insert(table, object, unit, SQLConflictClause.REPLACE);
+    }
+    
+    /**
+     * Inserts the given objects with the given converter into its table in the given unit by executing them in batches of the configured {@link #batchSize size}.
+     * 
+     * @return the number of affected rows for each object, which is {@link Statement#SUCCESS_NO_INFO} if the database does not provide it.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> @Nonnull int[] insertAll(@Nonnull Table<TYPE, ?> table, @Nonnull Iterable<? extends TYPE> objects, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
+        final @Nonnull SQLTemplate<SQLInsertStatement> template = getInsertTemplate(table, unit, conflictClause);
+        final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getActionEncoder(template);
+        if (!actionEncoder.supportsBatching()) {
+            actionEncoder.close();
+            int size = 0;
+            for (@Nonnull TYPE object : objects) {
+                insert(table, object, unit, conflictClause);
+                size++;
+            }
+            return getUnknownCounts(size);
+        }
+        try {
+            final @Nonnull SQLBatch batch = new SQLBatch(actionEncoder, batchSize.get());
+            for (@Nonnull TYPE object : objects) {
+                actionEncoder.encodeObject(table, object);
+                batch.addRow();
+            }
+            batch.flush();
+            return batch.getCounts();
+        } finally {
+            actionEncoder.close();
+        }
+    }
+    
+    /**
+     * Inserts the given objects with the given converter into its table in the given unit by executing statements with several rows.
+     * Each statement contains at most as many rows as the configured {@link #batchSize batch size} and at most as many parameters as the {@link SQLDialect#getMaximumNumberOfParameters() dialect} allows.
+     * Unlike {@link #insertAll(Table, Iterable, Unit, SQLConflictClause)}, this method reduces the number of executed statements, which matters for databases like SQLite where batching does not.
+     * If the dialect does not {@link SQLDialect#supportsIgnoringConflicts() support} ignoring conflicts, each statement contains a single row so that only the conflicting rows are ignored.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> void insertRows(@Nonnull Table<TYPE, ?> table, @Nonnull Iterable<? extends TYPE> objects, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
+        final @Nonnull SQLDialect dialect = SQLDialect.instance.get();
+        final int numberOfColumns = getInsertTemplate(table, unit, conflictClause).getStatement().getColumns().size();
+        final int numberOfRows = conflictClause == SQLConflictClause.IGNORE && !dialect.supportsIgnoringConflicts() ? 1 : Math.max(1, Math.min(batchSize.get(), dialect.getMaximumNumberOfParameters() / numberOfColumns));
+        final @Nonnull List<TYPE> rows = new ArrayList<>(numberOfRows);
+        for (@Nonnull TYPE object : objects) {
+            rows.add(object);
+            if (rows.size() == numberOfRows) {
+                insertChunk(table, rows, unit, conflictClause);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) { insertChunk(table, rows, unit, conflictClause); }
+    }
+    
+    /**
+     * Inserts the given objects with a single statement.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static <@Unspecifiable TYPE> void insertChunk(@Nonnull Table<TYPE, ?> table, @Nonnull List<TYPE> rows, @Nonnull Unit unit, @Nonnull SQLConflictClause conflictClause) throws DatabaseException {
+        final @Nonnull SQLActionEncoder actionEncoder = encode(Database.instance.get().getActionEncoder(getInsertTemplate(table, unit, conflictClause, rows.size())), encoder -> {
+            for (@Nonnull TYPE object : rows) { encoder.encodeObject(table, object); }
+        });
+        actionEncoder.execute();
+    }
+    
+    /* -------------------------------------------------- Upsert -------------------------------------------------- */
+    
+    /**
+     * Inserts the given object with the given converter into its table in the given unit or updates the row with the same primary key in place.
+     * In contrast to {@link #insertOrReplace(Table, Object, Unit)}, the existing row is not deleted first.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> void upsert(@Nonnull Table<TYPE, ?> table, @Nonnull TYPE object, @Nonnull Unit unit) throws DatabaseException {
+        final @Nonnull SQLActionEncoder actionEncoder = encode(Database.instance.get().getActionEncoder(getUpsertTemplate(table, unit)), encoder -> encoder.encodeObject(table, object));
+        actionEncoder.execute();
+    }
+    
+    /**
+     * Returns the template of a statement which upserts a row into the given table based on its primary key.
+     */
+    @Impure
+    @NonCommitting
+    private static @Nonnull SQLTemplate<SQLUpsertStatement> getUpsertTemplate(@Nonnull Table<?, ?> table, @Nonnull Unit unit) throws DatabaseException {
+        final @Nonnull List<?> key = getTemplateKey("UPSERT", table, unit, null);
+        @Nullable SQLTemplate<SQLUpsertStatement> template = getTemplate(key);
+        if (template == null) {
+            final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
+            SQLUtility.fillColumnNames(table, columns, "");
+            
+            final @Nonnull ImmutableList<@Nonnull SQLParameter> row = ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(columns.size()));
+            final @Nonnull SQLRows rows = SQLRowsBuilder.withRows(ImmutableList.withElements(SQLExpressionsBuilder.withExpressions(row).build())).build();
+            
+            final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(table, unit);
+            final @Nonnull SQLUpsertStatement upsertStatement = SQLUpsertStatementBuilder.withTable(qualifiedTable).withColumns(ImmutableList.withElementsOf(columns)).withKeyColumns(SQLUtility.getPrimaryKeyColumnNames(table)).withValues(rows).build();
+            template = putTemplate(key, upsertStatement, unit);
+        }
+        return template;
+    }
+    
+    /* -------------------------------------------------- Bulk Load -------------------------------------------------- */
+    
+    /**
+     * Loads the given objects with the given converter into its table in the given unit with the native bulk loading mechanism of the database, such as COPY in PostgreSQL.
+     * If the database does not provide such a mechanism, the objects are inserted with {@link #insertRows(Table, Iterable, Unit, SQLConflictClause) statements of several rows} instead.
+     * The rows are loaded within the current transaction and a conflict with an existing row aborts the whole load.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable TYPE> void bulkLoad(@Nonnull Table<TYPE, ?> table, @Nonnull Iterable<? extends TYPE> objects, @Nonnull Unit unit) throws DatabaseException {
+        final @Nonnull SQLInsertStatement insertStatement = getInsertTemplate(table, unit, SQLConflictClause.ABORT).getStatement();
+        final @Nullable SQLBulkEncoder bulkEncoder = Database.instance.get().getBulkEncoder(insertStatement, unit);
+        if (bulkEncoder == null) {
+            insertRows(table, objects, unit, SQLConflictClause.ABORT);
+            return;
+        }
+        try {
+            for (@Nonnull TYPE object : objects) {
+                bulkEncoder.encodeObject(table, object);
+                bulkEncoder.addRow();
+            }
+            bulkEncoder.execute();
+        } finally {
+            bulkEncoder.close();
+        }
     }
     
     /* -------------------------------------------------- Where -------------------------------------------------- */
@@ -191,50 +521,174 @@ public abstract class SQL {
     
     /**
      * Updates the columns of the given converter to the values of the given object with the given where condition in the given unit.
+     * 
+     * @return the number of updated rows.
      */
     @NonCommitting
     @PureWithSideEffects
-    public static <@Unspecifiable UPDATE_TYPE, @Unspecifiable WHERE_TYPE> void update(@Nonnull Table<UPDATE_TYPE, ?> updateTable, @Nonnull UPDATE_TYPE updateObject, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
-        final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(updateTable, unit);
-        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
-        SQLUtility.fillColumnNames(updateTable, columns, "");
-        final @Nonnull FiniteIterable<SQLAssignment> assignments = columns.map(column -> SQLAssignmentBuilder.withColumn(column).withExpression(SQLParameter.INSTANCE).build());
-        final SQLUpdateStatement updateStatement = SQLUpdateStatementBuilder.withTable(qualifiedTable).withAssignments(ImmutableList.withElementsOf(assignments)).withWhereClause(getWhereClause(whereConditions)).build();
-    
-        final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getEncoder(updateStatement, unit);
-        actionEncoder.encodeObject(updateTable, updateObject);
-        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
-        actionEncoder.execute();
+    public static <@Unspecifiable UPDATE_TYPE, @Unspecifiable WHERE_TYPE> @NonNegative int update(@Nonnull Table<UPDATE_TYPE, ?> updateTable, @Nonnull UPDATE_TYPE updateObject, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull SQLActionEncoder actionEncoder = encode(Database.instance.get().getActionEncoder(getUpdateTemplate(updateTable, unit, whereConditions)), encoder -> {
+            encoder.encodeObject(updateTable, updateObject);
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(encoder); }
+        });
+        return actionEncoder.executeWithCount();
+    }
+    
+    @Impure
+    @NonCommitting
+    private static @Nonnull SQLTemplate<SQLUpdateStatement> getUpdateTemplate(@Nonnull Table<?, ?> updateTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<?> key = getTemplateKey("UPDATE", updateTable, unit, null, whereConditions);
+        @Nullable SQLTemplate<SQLUpdateStatement> template = getTemplate(key);
+        if (template == null) {
+            final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(updateTable, unit);
+            final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> columns = FreezableArrayList.withNoElements();
+            SQLUtility.fillColumnNames(updateTable, columns, "");
+            final @Nonnull FiniteIterable<SQLAssignment> assignments = columns.map(column -> SQLAssignmentBuilder.withColumn(column).withExpression(SQLParameter.INSTANCE).build());
+            final SQLUpdateStatement updateStatement = SQLUpdateStatementBuilder.withTable(qualifiedTable).withAssignments(ImmutableList.withElementsOf(assignments)).withWhereClause(getWhereClause(whereConditions)).build();
+            template = putTemplate(key, updateStatement, unit);
+        }
+        return template;
+    }
+    
+    /**
+     * Updates the columns of the given converter to the values of each of the given objects with the where conditions extracted from the respective object in the given unit.
+     * The updates are executed in batches of the configured {@link #batchSize size} and the extracted where conditions have to be of the same shape for all objects.
+     * 
+     * @return the number of affected rows for each object, which is {@link Statement#SUCCESS_NO_INFO} if the database does not provide it.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable UPDATE_TYPE> @Nonnull int[] updateAll(@Nonnull Table<UPDATE_TYPE, ?> updateTable, @Nonnull Iterable<? extends UPDATE_TYPE> updateObjects, @Nonnull Unit unit, @Nonnull UnaryFunction<? super UPDATE_TYPE, @Nonnull @NonNullableElements WhereCondition<?>[]> whereConditionsExtractor) throws DatabaseException {
+        @Nullable SQLActionEncoder actionEncoder = null;
+        @Nullable SQLBatch batch = null;
+        @Nullable List<?> key = null;
+        int size = 0;
+        try {
+            for (@Nonnull UPDATE_TYPE updateObject : updateObjects) {
+                final @Nonnull WhereCondition<?>[] whereConditions = whereConditionsExtractor.evaluate(updateObject);
+                if (actionEncoder == null) {
+                    key = getTemplateKey("UPDATE", updateTable, unit, null, whereConditions);
+                    actionEncoder = Database.instance.get().getActionEncoder(getUpdateTemplate(updateTable, unit, whereConditions));
+                    if (actionEncoder.supportsBatching()) { batch = new SQLBatch(actionEncoder, batchSize.get()); }
+                } else {
+                    Require.that(getTemplateKey("UPDATE", updateTable, unit, null, whereConditions).equals(key)).orThrow("The where conditions of all objects have to be of the same shape.");
+                }
+                if (batch != null) {
+                    actionEncoder.encodeObject(updateTable, updateObject);
+                    for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
+                    batch.addRow();
+                } else {
+                    update(updateTable, updateObject, unit, whereConditions);
+                    size++;
+                }
+            }
+            if (batch == null) { return getUnknownCounts(size); }
+            batch.flush();
+            return batch.getCounts();
+        } finally {
+            if (actionEncoder != null) { actionEncoder.close(); }
+        }
     }
     
     /* -------------------------------------------------- Delete -------------------------------------------------- */
     
     /**
      * Deletes the entries of the given table with the given where conditions in the given unit.
+     * 
+     * @return the number of deleted rows.
      */
     @NonCommitting
     @PureWithSideEffects
-    public static <@Unspecifiable WHERE_TYPE> void delete(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
-        final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(deleteTable, unit);
-        final SQLDeleteStatement deleteStatement = SQLDeleteStatementBuilder.withTable(qualifiedTable).withWhereClause(getWhereClause(whereConditions)).build();
+    public static <@Unspecifiable WHERE_TYPE> @NonNegative int delete(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull SQLActionEncoder actionEncoder = encode(Database.instance.get().getActionEncoder(getDeleteTemplate(deleteTable, unit, whereConditions)), encoder -> {
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(encoder); }
+        });
+        return actionEncoder.executeWithCount();
+    }
     
-        final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getEncoder(deleteStatement, unit);
-        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
-        actionEncoder.execute();
+    @Impure
+    @NonCommitting
+    private static @Nonnull SQLTemplate<SQLDeleteStatement> getDeleteTemplate(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<?> key = getTemplateKey("DELETE", deleteTable, unit, null, whereConditions);
+        @Nullable SQLTemplate<SQLDeleteStatement> template = getTemplate(key);
+        if (template == null) {
+            final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(deleteTable, unit);
+            final SQLDeleteStatement deleteStatement = SQLDeleteStatementBuilder.withTable(qualifiedTable).withWhereClause(getWhereClause(whereConditions)).build();
+            template = putTemplate(key, deleteStatement, unit);
+        }
+        return template;
+    }
+    
+    /**
+     * Deletes the entries of the given table with each of the given where conditions in the given unit.
+     * The deletions are executed in batches of the configured {@link #batchSize size} and the where conditions have to be of the same shape for all rows.
+     * 
+     * @return the number of deleted rows for each where conditions, which is {@link Statement#SUCCESS_NO_INFO} if the database does not provide it.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Nonnull int[] deleteAll(@Nonnull Table<?, ?> deleteTable, @Nonnull Unit unit, @Nonnull Iterable<? extends @Nonnull @NonNullableElements WhereCondition<?>[]> whereConditionsOfRows) throws DatabaseException {
+        @Nullable SQLActionEncoder actionEncoder = null;
+        @Nullable SQLBatch batch = null;
+        @Nullable List<?> key = null;
+        int size = 0;
+        try {
+            for (@Nonnull WhereCondition<?>[] whereConditions : whereConditionsOfRows) {
+                if (actionEncoder == null) {
+                    key = getTemplateKey("DELETE", deleteTable, unit, null, whereConditions);
+                    actionEncoder = Database.instance.get().getActionEncoder(getDeleteTemplate(deleteTable, unit, whereConditions));
+                    if (actionEncoder.supportsBatching()) { batch = new SQLBatch(actionEncoder, batchSize.get()); }
+                } else {
+                    Require.that(getTemplateKey("DELETE", deleteTable, unit, null, whereConditions).equals(key)).orThrow("The where conditions of all rows have to be of the same shape.");
+                }
+                if (batch != null) {
+                    for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(actionEncoder); }
+                    batch.addRow();
+                } else {
+                    delete(deleteTable, unit, whereConditions);
+                    size++;
+                }
+            }
+            if (batch == null) { return getUnknownCounts(size); }
+            batch.flush();
+            return batch.getCounts();
+        } finally {
+            if (actionEncoder != null) { actionEncoder.close(); }
+        }
+    }
+    
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    /**
+     * Returns the given number of update counts that are unknown because the rows were not executed in a batch.
+     */
+    @Pure
+    private static @Nonnull int[] getUnknownCounts(int size) {
+        final @Nonnull int[] counts = new int[size];
+        Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+        return counts;
     }
     
     /* -------------------------------------------------- Select -------------------------------------------------- */
     
     @NonCommitting
     @PureWithSideEffects
-    private static @Capturable SQLDecoder getDecoder(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
-        final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(selectTable, unit);
-        final @Nonnull ImmutableList<SQLAllColumns> columns = ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable));
-        final @Nonnull ImmutableList<SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
-        final @Nonnull SQLSimpleSelectStatement selectStatement = SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(getWhereClause(whereConditions)).build();
+    private static @Capturable SQLDecoder getDecoder(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, boolean onlyFirst, boolean streaming, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<?> key = getTemplateKey(onlyFirst ? "SELECT FIRST" : "SELECT", selectTable, unit, null, whereConditions);
+        @Nullable SQLTemplate<SQLSelectStatement> template = getTemplate(key);
+        if (template == null) {
+            final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(selectTable, unit);
+            final @Nonnull ImmutableList<SQLAllColumns> columns = ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable));
+            final @Nonnull ImmutableList<SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
+            final @Nonnull SQLSimpleSelectStatement simpleSelectStatement = SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(getWhereClause(whereConditions)).build();
+            final @Nonnull SQLSelectStatement selectStatement = onlyFirst ? SQLOrderedSelectStatementBuilder.withSelectStatement(simpleSelectStatement).withLimit(1).build() : simpleSelectStatement;
+            template = putTemplate(key, selectStatement, unit);
+        }
         
-        final @Nonnull SQLQueryEncoder queryEncoder = Database.instance.get().getEncoder(selectStatement, unit);
-        for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(queryEncoder); }
+        final @Nonnull SQLQueryEncoder queryEncoder = encode(Database.instance.get().getQueryEncoder(template), encoder -> {
+            encoder.setStreaming(streaming);
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(encoder); }
+        });
         return queryEncoder.execute();
     }
     
@@ -244,24 +698,178 @@ public abstract class SQL {
     @NonCommitting
     @PureWithSideEffects
     public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull @NonNullableElements @NonFrozen FreezableList<SELECT_TYPE> selectAll(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException {
-        final @Nonnull SQLDecoder decoder = getDecoder(selectTable, unit, whereConditions);
         final @Nonnull FreezableArrayList<SELECT_TYPE> results = FreezableArrayList.withNoElements();
-        if (decoder.moveToNextRow()) {
-            do {
-                results.add(selectTable.recover(decoder, provided));
-            } while (decoder.moveToNextRow());
+        try (@Nonnull SQLCursor<SELECT_TYPE, PROVIDED> cursor = selectStream(selectTable, provided, unit, whereConditions)) {
+            while (cursor.hasNext()) { results.add(cursor.next()); }
+        }
+        return results;
+    }
+    
+    /**
+     * Returns a cursor over the entries of the given table with the given where conditions in the given unit, which recovers the entries lazily one row at a time.
+     * The returned cursor has to be closed if it is not iterated until the end.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull SQLCursor<SELECT_TYPE, PROVIDED> selectStream(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        return selectStream(selectTable, provided, unit, false, whereConditions);
+    }
+    
+    /**
+     * Returns a cursor over the entries of the given table with the given where conditions in the given unit, which recovers the entries lazily one row at a time.
+     * If streaming is requested, the database does not buffer the whole result so that even large tables can be scanned in constant memory.
+     * Depending on the database, no other statements can then be executed in the current transaction until the cursor is closed.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nonnull SQLCursor<SELECT_TYPE, PROVIDED> selectStream(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, boolean streaming, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        return new SQLCursor<>(selectTable, provided, getDecoder(selectTable, unit, false, streaming, whereConditions));
+    }
+    
+    /**
+     * Passes each entry of the given table with the given where conditions in the given unit to the given consumer without materializing the whole result.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED, @Unspecifiable EXCEPTION extends Exception> void forEach(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull FailableConsumer<? super SELECT_TYPE, ? extends EXCEPTION> consumer, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException, EXCEPTION {
+        try (@Nonnull SQLCursor<SELECT_TYPE, PROVIDED> cursor = selectStream(selectTable, provided, unit, whereConditions)) {
+            while (cursor.hasNext()) { consumer.consume(cursor.next()); }
+        }
+    }
+    
+    /* -------------------------------------------------- Select Page -------------------------------------------------- */
+    
+    @NonCommitting
+    @PureWithSideEffects
+    private static <@Unspecifiable ORDER_TYPE> @Capturable SQLDecoder getPageDecoder(@Nonnull Table<?, ?> selectTable, @Nonnull Unit unit, @Nonnull Converter<ORDER_TYPE, ?> orderConverter, @Nonnull String orderPrefix, @Nullable ORDER_TYPE after, @Positive int limit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException {
+        final @Nonnull List<Object> key = new ArrayList<>(getTemplateKey(after == null ? "SELECT PAGE" : "SELECT PAGE AFTER", selectTable, unit, null, whereConditions));
+        key.add(orderConverter);
+        key.add(orderPrefix);
+        key.add(limit);
+        @Nullable SQLTemplate<SQLSelectStatement> template = getTemplate(key);
+        if (template == null) {
+            final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> orderColumns = FreezableArrayList.withNoElements();
+            SQLUtility.fillColumnNames(orderConverter, orderColumns, orderPrefix);
+            
+            @Nullable SQLBooleanExpression whereClause = getWhereClause(whereConditions);
+            if (after != null) {
+                final @Nonnull ImmutableList<@Nonnull SQLParameter> parameters = ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(orderColumns.size()));
+                final @Nonnull SQLBooleanExpression afterCondition = SQLRowComparisonBooleanExpressionBuilder.withOperator(SQLComparisonOperator.GREATER).withLeftExpressions(ImmutableList.withElementsOf(orderColumns)).withRightExpressions(parameters).build();
+                whereClause = whereClause == null ? afterCondition : whereClause.and(afterCondition);
+            }
+            
+            final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(selectTable, unit);
+            final @Nonnull ImmutableList<SQLAllColumns> columns = ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable));
+            final @Nonnull ImmutableList<SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
+            final @Nonnull SQLSimpleSelectStatement simpleSelectStatement = SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(whereClause).build();
+            final @Nonnull ImmutableList<@Nonnull SQLOrderingTerm> orders = ImmutableList.withElementsOf(orderColumns.map(column -> SQLOrderingTermBuilder.withExpression(column).build()));
+            final @Nonnull SQLSelectStatement selectStatement = SQLOrderedSelectStatementBuilder.withSelectStatement(simpleSelectStatement).withOrders(orders).withLimit(limit).build();
+            template = putTemplate(key, selectStatement, unit);
+        }
+        
+        final @Nonnull SQLQueryEncoder queryEncoder = encode(Database.instance.get().getQueryEncoder(template), encoder -> {
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(encoder); }
+            if (after != null) { encoder.encodeNullableObject(orderConverter, after); }
+        });
+        return queryEncoder.execute();
+    }
+    
+    /**
+     * Returns at most the given number of entries of the given table with the given where conditions in the given unit,
+     * which are ordered by the columns of the given converter with the given prefix and follow the given object in this order (or start at the beginning if the object is null).
+     * Passing the corresponding object of the last entry of a page as the object after which the next page starts allows to iterate through large tables in constant memory.
+     * In contrast to an offset, this keyset pagination lets the database seek directly to the start of each page with the index of the ordering columns,
+     * which have to identify the entries uniquely within the where conditions and should thus cover the rest of the primary key.
+     * If the converter has several columns, the database has to support the comparison of row values.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED, @Unspecifiable ORDER_TYPE> @Nonnull @NonNullableElements @NonFrozen FreezableList<SELECT_TYPE> selectPage(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull Converter<ORDER_TYPE, ?> orderConverter, @Nonnull String orderPrefix, @Nullable ORDER_TYPE after, @Positive int limit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException {
+        final @Nonnull FreezableArrayList<SELECT_TYPE> results = FreezableArrayList.withNoElements();
+        try (@Nonnull SQLCursor<SELECT_TYPE, PROVIDED> cursor = new SQLCursor<>(selectTable, provided, getPageDecoder(selectTable, unit, orderConverter, orderPrefix, after, limit, whereConditions))) {
+            while (cursor.hasNext()) { results.add(cursor.next()); }
         }
         return results;
     }
     
+    /* -------------------------------------------------- Select In -------------------------------------------------- */
+    
+    /**
+     * Adds the entries of the given table whose columns with the given prefix match one of the given objects to the given results.
+     * The given objects are padded with the last object to the given number of rows so that chunks of similar sizes share the same template.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED, @Unspecifiable IN_TYPE> void selectChunkIn(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull Converter<IN_TYPE, ?> inConverter, @Nonnull String inPrefix, @Nonnull @NonEmpty List<IN_TYPE> objects, @Positive int numberOfRows, @NonCaptured @Modified @Nonnull FreezableList<SELECT_TYPE> results, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException {
+        final @Nonnull List<Object> key = new ArrayList<>(getTemplateKey("SELECT IN", selectTable, unit, null, whereConditions));
+        key.add(inConverter);
+        key.add(inPrefix);
+        key.add(numberOfRows);
+        @Nullable SQLTemplate<SQLSelectStatement> template = getTemplate(key);
+        if (template == null) {
+            final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> inColumns = FreezableArrayList.withNoElements();
+            SQLUtility.fillColumnNames(inConverter, inColumns, inPrefix);
+            
+            final @Nonnull SQLExpressions row = SQLExpressionsBuilder.withExpressions(ImmutableList.withElementsOf(InfiniteIterable.repeat(SQLParameter.INSTANCE).limit(inColumns.size()))).build();
+            final @Nonnull SQLBooleanExpression inCondition = SQLRowInValuesBooleanExpressionBuilder.withExpressions(ImmutableList.withElementsOf(inColumns)).withRows(ImmutableList.withElementsOf(InfiniteIterable.repeat(row).limit(numberOfRows))).build();
+            final @Nullable SQLBooleanExpression whereClause = getWhereClause(whereConditions);
+            
+            final @Nonnull SQLQualifiedTable qualifiedTable = SQLUtility.getQualifiedTableName(selectTable, unit);
+            final @Nonnull ImmutableList<SQLAllColumns> columns = ImmutableList.withElements(SQLAllColumnsBuilder.buildWithTable(qualifiedTable));
+            final @Nonnull ImmutableList<SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
+            final @Nonnull SQLSimpleSelectStatement selectStatement = SQLSimpleSelectStatementBuilder.withColumns(columns).withSources(sources).withWhereClause(whereClause == null ? inCondition : whereClause.and(inCondition)).build();
+            template = putTemplate(key, selectStatement, unit);
+        }
+        
+        final @Nonnull SQLQueryEncoder queryEncoder = encode(Database.instance.get().getQueryEncoder(template), encoder -> {
+            for (@Nonnull WhereCondition<?> whereCondition : whereConditions) { whereCondition.encode(encoder); }
+            for (int i = 0; i < numberOfRows; i++) { encoder.encodeNullableObject(inConverter, objects.get(Math.min(i, objects.size() - 1))); }
+        });
+        try (@Nonnull SQLCursor<SELECT_TYPE, PROVIDED> cursor = new SQLCursor<>(selectTable, provided, queryEncoder.execute())) {
+            while (cursor.hasNext()) { results.add(cursor.next()); }
+        }
+    }
+    
+    /**
+     * Returns the entries of the given table with the given where conditions in the given unit whose columns with the given prefix match one of the given objects,
+     * such as the entries of many subjects at once with {@code WHERE subject IN (...)}, which avoids a separate query for each object.
+     * The objects are queried in chunks of at most the configured {@link #batchSize batch size} and as many parameters as the {@link SQLDialect#getMaximumNumberOfParameters() dialect} allows.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Capturable <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED, @Unspecifiable IN_TYPE> @Nonnull @NonNullableElements @NonFrozen FreezableList<SELECT_TYPE> selectAllIn(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull Converter<IN_TYPE, ?> inConverter, @Nonnull String inPrefix, @Nonnull Iterable<? extends IN_TYPE> objects, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException {
+        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> inColumns = FreezableArrayList.withNoElements();
+        SQLUtility.fillColumnNames(inConverter, inColumns, inPrefix);
+        final int numberOfRows = Math.max(1, Math.min(batchSize.get(), SQLDialect.instance.get().getMaximumNumberOfParameters() / Math.max(1, inColumns.size())));
+        
+        final @Nonnull FreezableArrayList<SELECT_TYPE> results = FreezableArrayList.withNoElements();
+        final @Nonnull List<IN_TYPE> chunk = new ArrayList<>(numberOfRows);
+        for (IN_TYPE object : objects) {
+            chunk.add(object);
+            if (chunk.size() == numberOfRows) {
+                selectChunkIn(selectTable, provided, unit, inConverter, inPrefix, chunk, numberOfRows, results, whereConditions);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            // The last chunk is only padded to the next power of two in order to bound both the number of templates and the number of superfluous parameters.
+            final int paddedRows = chunk.size() == 1 ? 1 : Math.min(numberOfRows, Integer.highestOneBit(chunk.size() - 1) << 1);
+            selectChunkIn(selectTable, provided, unit, inConverter, inPrefix, chunk, paddedRows, results, whereConditions);
+        }
+        return results;
+    }
+    
+    /* -------------------------------------------------- Select First -------------------------------------------------- */
+    
     /**
      * Returns the first entry of the given table as a decoded object with the given where conditions in the given unit or null if there is no such entry.
      */
     @NonCommitting
     @PureWithSideEffects
     public static <@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> @Nullable SELECT_TYPE selectFirst(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull Unit unit, @Nonnull @NonNullableElements WhereCondition<?>... whereConditions) throws DatabaseException, RecoveryException {
-        final @Nonnull FreezableList<SELECT_TYPE> results = selectAll(selectTable, provided, unit, whereConditions);
-        if (results.isEmpty()) { return null; } else { return results.getFirst(); }
+        try (@Nonnull SQLCursor<SELECT_TYPE, PROVIDED> cursor = new SQLCursor<>(selectTable, provided, getDecoder(selectTable, unit, true, false, whereConditions))) {
+            if (cursor.hasNext()) { return cursor.next(); } else { return null; }
+        }
     }
     
     /**
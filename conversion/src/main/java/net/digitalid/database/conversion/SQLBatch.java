@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+
+/**
+ * This class adds rows to the batch of an action encoder, flushes them whenever the batch size is reached and collects the update counts.
+ */
+@Mutable
+class SQLBatch {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull SQLActionEncoder actionEncoder;
+    
+    private final @Positive int batchSize;
+    
+    private @NonNegative int pendingRows = 0;
+    
+    private @Nonnull int[] counts = new int[16];
+    
+    private @NonNegative int numberOfCounts = 0;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    SQLBatch(@Nonnull SQLActionEncoder actionEncoder, @Positive int batchSize) {
+        this.actionEncoder = actionEncoder;
+        this.batchSize = batchSize;
+    }
+    
+    /* -------------------------------------------------- Rows -------------------------------------------------- */
+    
+    /**
+     * Adds the values which were encoded since the last row as a new row and flushes the batch if it is full.
+     */
+    @Impure
+    void addRow() throws DatabaseException {
+        actionEncoder.addBatch();
+        if (++pendingRows >= batchSize) { flush(); }
+    }
+    
+    /**
+     * Executes the pending rows and appends their update counts.
+     */
+    @Impure
+    void flush() throws DatabaseException {
+        if (pendingRows == 0) { return; }
+        pendingRows = 0;
+        final @Nonnull int[] batchCounts = actionEncoder.executeBatch();
+        if (numberOfCounts + batchCounts.length > counts.length) { counts = Arrays.copyOf(counts, Math.max(2 * counts.length, numberOfCounts + batchCounts.length)); }
+        System.arraycopy(batchCounts, 0, counts, numberOfCounts, batchCounts.length);
+        numberOfCounts += batchCounts.length;
+    }
+    
+    /* -------------------------------------------------- Counts -------------------------------------------------- */
+    
+    /**
+     * Returns the update counts of all flushed rows in the order in which they were added.
+     */
+    @Pure
+    @Nonnull int[] getCounts() {
+        return Arrays.copyOf(counts, numberOfCounts);
+    }
+    
+}
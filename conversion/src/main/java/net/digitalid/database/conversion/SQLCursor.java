@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.storage.Table;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.SQLDecoder;
+
+/**
+ * A cursor recovers the selected entries lazily one row at a time instead of materializing the whole result.
+ * The cursor closes its decoder as soon as the last row has been read, but it has to be {@link #close() closed} explicitly if it is abandoned before.
+ * 
+ * @see SQL#selectStream(Table, Object, net.digitalid.utility.storage.interfaces.Unit, WhereCondition...)
+ */
+@Mutable
+public class SQLCursor<@Unspecifiable SELECT_TYPE, @Specifiable PROVIDED> implements AutoCloseable {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull Table<SELECT_TYPE, PROVIDED> selectTable;
+    
+    private final @Shared PROVIDED provided;
+    
+    private final @Nonnull SQLDecoder decoder;
+    
+    /**
+     * Stores whether the decoder has been moved to a row which has not yet been returned.
+     */
+    private boolean rowAvailable = false;
+    
+    /**
+     * Stores whether the decoder has been closed.
+     */
+    private boolean closed = false;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    SQLCursor(@Nonnull Table<SELECT_TYPE, PROVIDED> selectTable, @Shared PROVIDED provided, @Nonnull SQLDecoder decoder) {
+        this.selectTable = selectTable;
+        this.provided = provided;
+        this.decoder = decoder;
+    }
+    
+    /* -------------------------------------------------- Iteration -------------------------------------------------- */
+    
+    /**
+     * Returns whether there is another entry and closes this cursor if there is none.
+     */
+    @Impure
+    public boolean hasNext() throws DatabaseException {
+        if (!rowAvailable && !closed) {
+            rowAvailable = decoder.moveToNextRow();
+            if (!rowAvailable) { close(); }
+        }
+        return rowAvailable;
+    }
+    
+    /**
+     * Returns the next entry recovered from the current row.
+     * 
+     * @throws NoSuchElementException if there is no next entry.
+     */
+    @Impure
+    public SELECT_TYPE next() throws DatabaseException, RecoveryException {
+        if (!hasNext()) { throw new NoSuchElementException("The cursor has no more entries."); }
+        rowAvailable = false;
+        return selectTable.recover(decoder, provided);
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes the underlying decoder unless it has already been closed.
+     */
+    @Impure
+    @Override
+    public void close() throws DatabaseException {
+        if (!closed) {
+            closed = true;
+            rowAvailable = false;
+            decoder.close();
+        }
+    }
+    
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.Transaction;
+
+/**
+ * This class executes database operations on a fixed number of lanes, each of which is a single thread with a bounded queue.
+ * All operations on the same unit are executed on the same lane in the order of their submission.
+ * The modifications of a unit belong to an explicit {@link Transaction transaction}, which is begun by the first modification
+ * and ended by a {@link #commit(Unit) commit}, a {@link #rollback(Unit) rollback} or the failure of an operation on the unit.
+ * Queries join the transaction of their unit if there is one and are executed without keeping a transaction open otherwise.
+ * The lanes are only started when the first operation is submitted to them.
+ * <p>
+ * If the queue of a lane is full, the submission is rejected immediately so that the caller is never blocked.
+ * Callers that produce many operations should stop when a submission is rejected and resume once the future returned by {@link #whenAccepting(Unit)} is completed.
+ * 
+ * @see AsyncSQL
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class SQLExecutor implements AutoCloseable {
+    
+    /* -------------------------------------------------- Lane -------------------------------------------------- */
+    
+    /**
+     * A lane is a single-threaded executor that notifies the waiting producers whenever it takes an operation from its queue.
+     */
+    private static class Lane extends ThreadPoolExecutor {
+        
+        /**
+         * Stores the futures of the producers that wait for space in the queue.
+         */
+        private final @Nonnull Queue<@Nonnull CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+        
+        private Lane(@Nonnull String name, @Positive int queueCapacity) {
+            super(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                final @Nonnull Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        }
+        
+        /**
+         * Returns a future that is completed as soon as the queue of this lane has space for another operation.
+         */
+        @Impure
+        private @Nonnull CompletableFuture<Void> whenAccepting() {
+            final @Nonnull CompletableFuture<Void> future = new CompletableFuture<>();
+            if (isShutdown()) { future.completeExceptionally(new RejectedExecutionException("The executor is closed.")); }
+            else if (getQueue().remainingCapacity() > 0) { future.complete(null); }
+            else {
+                waiters.add(future);
+                // The queue might have been drained between the check above and the registration of the waiter.
+                if (getQueue().remainingCapacity() > 0 && waiters.remove(future)) { future.complete(null); }
+            }
+            return future;
+        }
+        
+        @Override
+        @PureWithSideEffects
+        protected void beforeExecute(@Nonnull Thread thread, @Nonnull Runnable runnable) {
+            for (@Nullable CompletableFuture<Void> waiter = waiters.poll(); waiter != null; waiter = waiters.poll()) { waiter.complete(null); }
+        }
+        
+        @Override
+        @PureWithSideEffects
+        protected void terminated() {
+            for (@Nullable CompletableFuture<Void> waiter = waiters.poll(); waiter != null; waiter = waiters.poll()) { waiter.completeExceptionally(new RejectedExecutionException("The executor is closed.")); }
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Lanes -------------------------------------------------- */
+    
+    private final @Positive int queueCapacity;
+    
+    /**
+     * Stores the lanes, which are created on demand.
+     */
+    private final @Nullable Lane[] lanes;
+    
+    /**
+     * Stores whether this executor has been closed.
+     */
+    private boolean closed = false;
+    
+    /**
+     * Stores the open transactions of the units by their name.
+     * A transaction is only used by the lane of its unit and removed as soon as it is committed or rolled back.
+     */
+    private final @Nonnull ConcurrentMap<@Nonnull String, @Nonnull Transaction> transactions = new ConcurrentHashMap<>();
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected SQLExecutor(@Positive int numberOfLanes, @Positive int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        this.lanes = new Lane[numberOfLanes];
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong submissions = new AtomicLong();
+    
+    /**
+     * Returns the number of operations that were accepted by this executor.
+     */
+    @Pure
+    public long getSubmissions() {
+        return submissions.get();
+    }
+    
+    private final @Nonnull AtomicLong rejections = new AtomicLong();
+    
+    /**
+     * Returns the number of operations that were rejected because the queue of their lane was full or the executor was closed.
+     */
+    @Pure
+    public long getRejections() {
+        return rejections.get();
+    }
+    
+    /**
+     * Returns the number of operations that are waiting in the queues of all lanes.
+     */
+    @Pure
+    public synchronized @NonNegative int getQueuedOperations() {
+        int result = 0;
+        for (@Nullable Lane lane : lanes) {
+            if (lane != null) { result += lane.getQueue().size(); }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the number of units whose modifications have neither been committed nor rolled back yet.
+     */
+    @Pure
+    public @NonNegative int getOpenTransactions() {
+        return transactions.size();
+    }
+    
+    /* -------------------------------------------------- Submission -------------------------------------------------- */
+    
+    /**
+     * Returns the lane on which the operations on the given unit are executed and starts it if necessary.
+     * 
+     * @throws RejectedExecutionException if this executor has been closed.
+     */
+    @Impure
+    private synchronized @Nonnull Lane getLane(@Nonnull Unit unit) {
+        if (closed) { throw new RejectedExecutionException("The executor is closed."); }
+        final int index = Math.floorMod(unit.getName().hashCode(), lanes.length);
+        @Nullable Lane lane = lanes[index];
+        if (lane == null) {
+            lane = new Lane("SQLExecutor-" + index, queueCapacity);
+            lanes[index] = lane;
+        }
+        return lane;
+    }
+    
+    /**
+     * Executes the given task on the lane of the given unit or completes the given future exceptionally if the task is rejected.
+     */
+    @Impure
+    private void execute(@Nonnull Unit unit, @Nonnull CompletableFuture<?> future, @Nonnull Runnable task) {
+        try {
+            getLane(unit).execute(task);
+            submissions.incrementAndGet();
+        } catch (@Nonnull RejectedExecutionException exception) {
+            rejections.incrementAndGet();
+            future.completeExceptionally(exception);
+        }
+    }
+    
+    /**
+     * Runs the given operation within the given transaction and completes the given future with its result.
+     * If the operation fails, the transaction is removed and rolled back so that the next modification on the unit begins a new one.
+     * The future is only completed after the transaction has been unbound again because dependent stages might run on the lane.
+     */
+    @Impure
+    private <@Unspecifiable RESULT> void runWithin(@Nonnull Unit unit, @Nonnull Transaction transaction, @Nonnull CompletableFuture<RESULT> future, @Nonnull Callable<RESULT> operation) {
+        final @Nonnull AtomicReference<RESULT> result = new AtomicReference<>();
+        try {
+            Database.within(transaction, boundTransaction -> result.set(operation.call()));
+        } catch (@Nonnull Exception exception) {
+            transactions.remove(unit.getName());
+            Database.rollback(transaction);
+            future.completeExceptionally(exception);
+            return;
+        }
+        future.complete(result.get());
+    }
+    
+    /**
+     * Submits the given modifying operation on the given unit and returns a future that is completed with its result.
+     * The operation belongs to the open transaction of the unit, which is begun if there is none.
+     * The future is completed exceptionally with a {@link RejectedExecutionException} if the queue of the lane is full
+     * and with the exception of the operation if it fails, in which case all uncommitted modifications on the unit are rolled back.
+     */
+    @Impure
+    @NonCommitting
+    public <@Unspecifiable RESULT> @Nonnull CompletableFuture<RESULT> submit(@Nonnull Unit unit, @Nonnull Callable<RESULT> operation) {
+        final @Nonnull CompletableFuture<RESULT> future = new CompletableFuture<>();
+        execute(unit, future, () -> runWithin(unit, transactions.computeIfAbsent(unit.getName(), name -> Database.newTransaction()), future, operation));
+        return future;
+    }
+    
+    /**
+     * Submits the given read-only operation on the given unit and returns a future that is completed with its result.
+     * The operation joins the open transaction of the unit so that it sees the uncommitted modifications on the unit.
+     * If there is no open transaction, the operation is executed on the transaction of the lane, which is ended right afterwards.
+     * The future is completed exceptionally with a {@link RejectedExecutionException} if the queue of the lane is full
+     * and with the exception of the operation if it fails, in which case an open transaction of the unit is rolled back.
+     */
+    @Impure
+    @NonCommitting
+    public <@Unspecifiable RESULT> @Nonnull CompletableFuture<RESULT> submitQuery(@Nonnull Unit unit, @Nonnull Callable<RESULT> operation) {
+        final @Nonnull CompletableFuture<RESULT> future = new CompletableFuture<>();
+        execute(unit, future, () -> {
+            final @Nullable Transaction transaction = transactions.get(unit.getName());
+            if (transaction != null) {
+                runWithin(unit, transaction, future, operation);
+            } else {
+                final RESULT result;
+                try {
+                    result = operation.call();
+                } catch (@Nonnull Exception exception) {
+                    Database.rollback();
+                    future.completeExceptionally(exception);
+                    return;
+                }
+                Database.rollback();
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * Commits the modifications on the given unit which were submitted before and ends the open transaction of the unit.
+     * The returned future is completed immediately on the lane if there is no open transaction.
+     * If the commit fails, the modifications are rolled back and the future is completed exceptionally.
+     */
+    @Impure
+    @Committing
+    public @Nonnull CompletableFuture<Void> commit(@Nonnull Unit unit) {
+        final @Nonnull CompletableFuture<Void> future = new CompletableFuture<>();
+        execute(unit, future, () -> {
+            final @Nullable Transaction transaction = transactions.remove(unit.getName());
+            if (transaction != null) {
+                try {
+                    Database.commit(transaction);
+                } catch (@Nonnull DatabaseException exception) {
+                    Database.rollback(transaction);
+                    future.completeExceptionally(exception);
+                    return;
+                }
+            }
+            future.complete(null);
+        });
+        return future;
+    }
+    
+    /**
+     * Rolls back the modifications on the given unit which were submitted before and ends the open transaction of the unit.
+     */
+    @Impure
+    @Committing
+    public @Nonnull CompletableFuture<Void> rollback(@Nonnull Unit unit) {
+        final @Nonnull CompletableFuture<Void> future = new CompletableFuture<>();
+        execute(unit, future, () -> {
+            final @Nullable Transaction transaction = transactions.remove(unit.getName());
+            if (transaction != null) { Database.rollback(transaction); }
+            future.complete(null);
+        });
+        return future;
+    }
+    
+    /* -------------------------------------------------- Backpressure -------------------------------------------------- */
+    
+    /**
+     * Returns a future that is completed as soon as the lane of the given unit accepts another operation.
+     * The future is completed immediately if the queue of the lane is not full and exceptionally if this executor is closed.
+     * Since other producers might fill the queue again in the meantime, a submission after the completion can still be rejected.
+     */
+    @Impure
+    public @Nonnull CompletableFuture<Void> whenAccepting(@Nonnull Unit unit) {
+        try {
+            return getLane(unit).whenAccepting();
+        } catch (@Nonnull RejectedExecutionException exception) {
+            final @Nonnull CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(exception);
+            return future;
+        }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Stops accepting new operations, waits for the submitted operations to finish and rolls back the changes which were not committed.
+     */
+    @Override
+    @PureWithSideEffects
+    public void close() throws InterruptedException {
+        final @Nonnull Lane[] startedLanes;
+        synchronized (this) {
+            closed = true;
+            startedLanes = lanes.clone();
+        }
+        for (@Nullable Lane lane : startedLanes) {
+            if (lane != null) { lane.shutdown(); }
+        }
+        for (@Nullable Lane lane : startedLanes) {
+            if (lane != null) { lane.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS); }
+        }
+        for (@Nonnull Transaction transaction : transactions.values()) { Database.rollback(transaction); }
+        transactions.clear();
+    }
+    
+}
@@ -392,6 +392,26 @@ public abstract class SQLUtility {
         return getColumnNames(converter, "");
     }
     
+    /**
+     * Returns the names of the columns that form the primary key of the given table in the order of their fields.
+     * If no field is annotated with {@link PrimaryKey}, all columns form the primary key as in the {@link #getTableConstraints(Table, Unit) table constraints}.
+     */
+    @Pure
+    public static @Nonnull @NonEmpty ImmutableList<@Nonnull SQLColumnName> getPrimaryKeyColumnNames(@Nonnull Table<?, ?> table) {
+        final @Nonnull FreezableArrayList<@Nonnull SQLColumnName> primaryKeyColumns = FreezableArrayList.withNoElements();
+        for (@Nonnull CustomField customField : table.getFields(Representation.INTERNAL)) {
+            if (isPrimaryKey(customField)) {
+                final @Nonnull CustomType fieldType = customField.getCustomType();
+                if (fieldType.isObjectType() && !((CustomType.CustomConverterType) fieldType).getConverter().isPrimitiveConverter()) {
+                    fillColumnNames(((CustomType.CustomConverterType) fieldType).getConverter(), primaryKeyColumns, customField.getName().toLowerCase());
+                } else {
+                    primaryKeyColumns.add(SQLColumnNameBuilder.withString(customField.getName().toLowerCase()).build());
+                }
+            }
+        }
+        return primaryKeyColumns.isEmpty() ? getColumnNames(table) : ImmutableList.withElementsOf(primaryKeyColumns);
+    }
+    
     /* -------------------------------------------------- Qualified Table Name -------------------------------------------------- */
     
     /**
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTable;
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTableConverter;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncSQLTest extends DatabaseTest {
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    @Test
+    public void shouldExecuteTheOperationsOnAUnitInOrder() throws Exception {
+        final @Nonnull SQLExecutor executor = SQLExecutorBuilder.withNumberOfLanes(2).withQueueCapacity(1_000).build();
+        try {
+            final @Nonnull List<Integer> expected = new ArrayList<>();
+            final @Nonnull List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+            for (int i = 0; i < 100; i++) {
+                final int number = i;
+                expected.add(number);
+                if (number % 2 == 0) { executor.submit(unit, () -> executed.add(number)); }
+                else { executor.submitQuery(unit, () -> executed.add(number)); }
+            }
+            executor.commit(unit).get(5, TimeUnit.SECONDS);
+            
+            assertThat(executed).containsExactlyElementsOf(expected);
+            assertThat(executor.getSubmissions()).isEqualTo(101);
+        } finally {
+            executor.close();
+        }
+    }
+    
+    @Test
+    public void shouldRejectOperationsAndSignalWhenTheQueueHasSpaceAgain() throws Exception {
+        final @Nonnull SQLExecutor executor = SQLExecutorBuilder.withNumberOfLanes(1).withQueueCapacity(1).build();
+        final @Nonnull CountDownLatch started = new CountDownLatch(1);
+        final @Nonnull CountDownLatch released = new CountDownLatch(1);
+        try {
+            executor.submitQuery(unit, () -> { started.countDown(); return released.await(5, TimeUnit.SECONDS); });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            
+            final @Nonnull CompletableFuture<Integer> queued = executor.submitQuery(unit, () -> 1);
+            final @Nonnull CompletableFuture<Integer> rejected = executor.submitQuery(unit, () -> 2);
+            try {
+                rejected.getNow(null);
+                Assert.fail("The operation should have been rejected because the queue is full.");
+            } catch (@Nonnull Exception exception) {
+                assertThat(exception.getCause()).isInstanceOf(RejectedExecutionException.class);
+            }
+            assertThat(executor.getRejections()).isEqualTo(1);
+            
+            final @Nonnull CompletableFuture<Void> accepting = executor.whenAccepting(unit);
+            assertThat(accepting.isDone()).isFalse();
+            
+            released.countDown();
+            accepting.get(5, TimeUnit.SECONDS);
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            released.countDown();
+            executor.close();
+        }
+    }
+    
+    @Test
+    public void shouldFailTheSignalOfAClosedExecutor() throws Exception {
+        final @Nonnull SQLExecutor executor = SQLExecutorBuilder.withNumberOfLanes(1).withQueueCapacity(1).build();
+        executor.close();
+        
+        assertThat(executor.whenAccepting(unit).isCompletedExceptionally()).isTrue();
+        assertThat(executor.submitQuery(unit, () -> 1).isCompletedExceptionally()).isTrue();
+    }
+    
+    @Test
+    public void shouldCommitAndEndTheTransactionOfTheUnit() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final @Nonnull CompletableFuture<Integer> inserted = AsyncSQL.insert(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit, SQLConflictClause.ABORT);
+            AsyncSQL.commit(unit).get(5, TimeUnit.SECONDS);
+            
+            assertThat(inserted.get()).isEqualTo(1);
+            assertThat(AsyncSQL.executor.get().getOpenTransactions()).isEqualTo(0);
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldRollBackTheTransactionOfAFailedOperation() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final @Nonnull CompletableFuture<Integer> first = AsyncSQL.insert(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit, SQLConflictClause.ABORT);
+            final @Nonnull CompletableFuture<Integer> second = AsyncSQL.insert(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(2), unit, SQLConflictClause.ABORT);
+            final @Nonnull CompletableFuture<Integer> third = AsyncSQL.insert(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(21), unit, SQLConflictClause.ABORT);
+            AsyncSQL.commit(unit).get(5, TimeUnit.SECONDS);
+            
+            assertThat(first.get()).isEqualTo(1);
+            assertThat(third.get()).isEqualTo(1);
+            try {
+                second.get();
+                Assert.fail("The insertion should have violated the check constraint.");
+            } catch (@Nonnull ExecutionException exception) {
+                assertThat(exception.getCause()).isInstanceOf(DatabaseException.class);
+            }
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+            assertTableContains(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), Expected.column("value").value("21"));
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldNotOpenATransactionForQueries() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final @Nonnull FreezableList<ConstraintIntegerColumnTable> entries = AsyncSQL.selectAll(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit).get(5, TimeUnit.SECONDS);
+            
+            assertThat(entries).isEmpty();
+            assertThat(AsyncSQL.executor.get().getOpenTransactions()).isEqualTo(0);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+}
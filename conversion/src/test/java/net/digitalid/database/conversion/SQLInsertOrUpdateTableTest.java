@@ -15,12 +15,15 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.Arrays;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.storage.interfaces.Unit;
 
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 import net.digitalid.database.testing.DatabaseTest;
 
 import org.junit.Test;
@@ -47,4 +50,21 @@ public class SQLInsertOrUpdateTableTest extends DatabaseTest {
         }
     }
     
+    @Test
+    public void shouldIgnoreDuplicateRows() throws Exception {
+        SQL.createTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        try {
+            assertThat(SQL.insertOrIgnore(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(true), unit)).isEqualTo(1);
+            assertThat(SQL.insertOrIgnore(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(true), unit)).isEqualTo(0);
+            
+            assertRowCount(SingleBooleanColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+            
+            SQL.insertRows(SingleBooleanColumnTableConverter.INSTANCE, Arrays.asList(SingleBooleanColumnTable.get(true), SingleBooleanColumnTable.get(false)), unit, SQLConflictClause.IGNORE);
+            
+            assertRowCount(SingleBooleanColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 2);
+        } finally {
+            SQL.dropTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTable;
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTableConverter;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.expression.SQLParameter;
+import net.digitalid.database.dialect.identifier.column.SQLColumnNameBuilder;
+import net.digitalid.database.dialect.identifier.schema.SQLSchemaNameBuilder;
+import net.digitalid.database.dialect.identifier.table.SQLExplicitlyQualifiedTableBuilder;
+import net.digitalid.database.dialect.identifier.table.SQLTableNameBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.insert.SQLExpressionsBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatementBuilder;
+import net.digitalid.database.dialect.statement.insert.SQLRowsBuilder;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.SQLTemplate;
+import net.digitalid.database.interfaces.SQLTemplateBuilder;
+import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SQLInsertReturningTest extends DatabaseTest {
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    /**
+     * Creates a table whose key is generated by the database as a multiple of seven.
+     */
+    @BeforeClass
+    public static void createTableWithGeneratedKeys() throws Exception {
+        try (@Nonnull Connection connection = DriverManager.getConnection("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1", "sa", "sa"); @Nonnull Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS \"PUBLIC\".\"generated_keys\" (\"value\" INT AUTO_INCREMENT(7, 7) PRIMARY KEY, \"name\" VARCHAR(32) NOT NULL)");
+        }
+    }
+    
+    @Test
+    public void shouldReturnTheGeneratedKeys() throws Exception {
+        final @Nonnull SQLInsertStatement insertStatement = SQLInsertStatementBuilder.withTable(SQLExplicitlyQualifiedTableBuilder.withTable(SQLTableNameBuilder.withString("generated_keys").build()).withSchema(SQLSchemaNameBuilder.withString("PUBLIC").build()).build()).withColumns(ImmutableList.withElements(SQLColumnNameBuilder.withString("name").build())).withValues(SQLRowsBuilder.withRows(ImmutableList.withElements(SQLExpressionsBuilder.withExpressions(ImmutableList.withElements(SQLParameter.INSTANCE)).build())).build()).build();
+        final @Nonnull SQLTemplate<SQLInsertStatement> template = SQLTemplateBuilder.withStatement(insertStatement).withUnit(unit).withDialect(SQLDialect.instance.get()).build();
+        
+        final @Nonnull SQLActionEncoder firstEncoder = Database.instance.get().getReturningEncoder(template, ImmutableList.withElements(SQLColumnNameBuilder.withString("value").build()));
+        firstEncoder.encodeString("first");
+        final @Nonnull FreezableList<ConstraintIntegerColumnTable> firstKeys = firstEncoder.executeReturning(ConstraintIntegerColumnTableConverter.INSTANCE, null);
+        
+        final @Nonnull SQLActionEncoder secondEncoder = Database.instance.get().getReturningEncoder(template, ImmutableList.withElements(SQLColumnNameBuilder.withString("value").build()));
+        secondEncoder.encodeString("second");
+        final @Nonnull FreezableList<ConstraintIntegerColumnTable> secondKeys = secondEncoder.executeReturning(ConstraintIntegerColumnTableConverter.INSTANCE, null);
+        
+        assertThat(firstKeys.size()).isEqualTo(1);
+        assertThat(secondKeys.size()).isEqualTo(1);
+        assertThat(firstKeys.getFirst().value % 7).isEqualTo(0);
+        assertThat(secondKeys.getFirst().value).isEqualTo(firstKeys.getFirst().value + 7);
+    }
+    
+    @Test
+    public void shouldRejectColumnsWhichAreNotGenerated() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            SQL.insertReturning(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit, SQLConflictClause.ABORT, ConstraintIntegerColumnTableConverter.INSTANCE, null);
+            Assert.fail("The inserted value cannot be returned without a RETURNING clause.");
+        } catch (@Nonnull RuntimeException exception) {
+            assertThat(exception.getMessage()).contains("RETURNING");
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+}
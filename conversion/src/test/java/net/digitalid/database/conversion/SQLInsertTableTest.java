@@ -15,10 +15,15 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.annotation.Nonnull;
 
 import net.digitalid.utility.storage.interfaces.Unit;
 
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+
 import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTable;
 import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTableConverter;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1;
@@ -33,6 +38,8 @@ import net.digitalid.database.conversion.testenvironment.simple.MultiBooleanColu
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
 import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.Transaction;
 import net.digitalid.database.testing.DatabaseTest;
 
 import org.h2.jdbc.JdbcBatchUpdateException;
@@ -123,6 +130,64 @@ public class SQLInsertTableTest extends DatabaseTest {
         }
     }
     
+    @Test
+    public void shouldReturnTheNumberOfInsertedRows() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final int count = SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit);
+            
+            assertThat(count).isEqualTo(1);
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldInsertAllIntoConstraintIntegerColumnTable() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final @Nonnull int[] counts = SQL.insertAll(ConstraintIntegerColumnTableConverter.INSTANCE, Arrays.asList(ConstraintIntegerColumnTable.get(14), ConstraintIntegerColumnTable.get(15), ConstraintIntegerColumnTable.get(16)), unit, SQLConflictClause.ABORT);
+            
+            assertThat(counts).hasSize(3);
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 3);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldInsertRowsIntoConstraintIntegerColumnTable() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            SQL.insertRows(ConstraintIntegerColumnTableConverter.INSTANCE, Arrays.asList(ConstraintIntegerColumnTable.get(14), ConstraintIntegerColumnTable.get(15), ConstraintIntegerColumnTable.get(16)), unit, SQLConflictClause.ABORT);
+            
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 3);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    @Test
+    public void shouldInsertWithinExplicitTransaction() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final @Nonnull Transaction transaction = Database.newTransaction();
+            final @Nonnull AtomicBoolean committed = new AtomicBoolean(false);
+            Database.within(transaction, boundTransaction -> {
+                SQL.insertOrAbort(ConstraintIntegerColumnTableConverter.INSTANCE, ConstraintIntegerColumnTable.get(14), unit);
+                Database.instance.get().runAfterCommit(() -> committed.set(true));
+            });
+            assertThat(committed.get()).isFalse();
+            
+            Database.commit(transaction);
+            assertThat(committed.get()).isTrue();
+            assertRowCount(ConstraintIntegerColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 1);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
     // TODO: either implement here or move to property module.
 //    @Test
 //    public void shouldInsertIntoTableWithProperty() throws Exception {
@@ -15,11 +15,18 @@
  */
 package net.digitalid.database.conversion;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.digitalid.utility.storage.interfaces.Unit;
 
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTable;
+import net.digitalid.database.conversion.testenvironment.columnconstraints.ConstraintIntegerColumnTableConverter;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1Builder;
 import net.digitalid.database.conversion.testenvironment.embedded.Convertible1Converter;
@@ -30,6 +37,8 @@ import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConver
 import net.digitalid.database.conversion.testenvironment.embedded.EmbeddedConvertiblesConverter;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
 import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 import net.digitalid.database.testing.DatabaseTest;
 
 import org.junit.Assert;
@@ -94,5 +103,100 @@ public class SQLSelectFromTableTest extends DatabaseTest {
         }
     }
     
+    /**
+     * Tests whether a cursor streams all rows and closes itself after the last row.
+     */
+    @Test
+    public void shouldStreamFromSimpleBooleanTable() throws Exception {
+        SQL.createTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        try {
+            SQL.insertOrAbort(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(true), unit);
+            SQL.insertOrAbort(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(false), unit);
+            
+            int count = 0;
+            try (@Nonnull SQLCursor<SingleBooleanColumnTable, ?> cursor = SQL.selectStream(SingleBooleanColumnTableConverter.INSTANCE, null, unit)) {
+                while (cursor.hasNext()) {
+                    Assert.assertNotNull(cursor.next());
+                    count++;
+                }
+                Assert.assertFalse(cursor.hasNext());
+            }
+            Assert.assertEquals(2, count);
+        } finally {
+            SQL.dropTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    /**
+     * Returns the objects of the constraint integer column table with the first given number of multiples of seven.
+     */
+    private static @Nonnull List<@Nonnull ConstraintIntegerColumnTable> getMultiplesOfSeven(int number) {
+        final @Nonnull List<@Nonnull ConstraintIntegerColumnTable> objects = new ArrayList<>(number);
+        for (int i = 1; i <= number; i++) { objects.add(ConstraintIntegerColumnTable.get(7 * i)); }
+        return objects;
+    }
+    
+    /**
+     * Returns the values of the given objects of the constraint integer column table.
+     */
+    private static @Nonnull List<@Nonnull Integer> getValues(@Nonnull Iterable<? extends ConstraintIntegerColumnTable> objects) {
+        final @Nonnull List<@Nonnull Integer> values = new ArrayList<>();
+        for (@Nonnull ConstraintIntegerColumnTable object : objects) { values.add(object.value); }
+        return values;
+    }
+    
+    /**
+     * Tests whether keyset pagination returns every row exactly once in the order of the given converter.
+     */
+    @Test
+    public void shouldSelectPagesAfterTheGivenObject() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final @Nonnull List<@Nonnull ConstraintIntegerColumnTable> objects = getMultiplesOfSeven(7);
+            Collections.reverse(objects);
+            SQL.insertRows(ConstraintIntegerColumnTableConverter.INSTANCE, objects, unit, SQLConflictClause.ABORT);
+            
+            final @Nonnull List<@Nonnull Integer> firstPage = getValues(SQL.selectPage(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit, ConstraintIntegerColumnTableConverter.INSTANCE, "", null, 3));
+            Assert.assertEquals(Arrays.asList(7, 14, 21), firstPage);
+            final @Nonnull List<@Nonnull Integer> secondPage = getValues(SQL.selectPage(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit, ConstraintIntegerColumnTableConverter.INSTANCE, "", ConstraintIntegerColumnTable.get(21), 3));
+            Assert.assertEquals(Arrays.asList(28, 35, 42), secondPage);
+            final @Nonnull List<@Nonnull Integer> lastPage = getValues(SQL.selectPage(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit, ConstraintIntegerColumnTableConverter.INSTANCE, "", ConstraintIntegerColumnTable.get(42), 3));
+            Assert.assertEquals(Arrays.asList(49), lastPage);
+            Assert.assertTrue(SQL.selectPage(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit, ConstraintIntegerColumnTableConverter.INSTANCE, "", ConstraintIntegerColumnTable.get(49), 3).isEmpty());
+            
+            // The object after which a page starts does not have to exist in the table.
+            final @Nonnull List<@Nonnull Integer> pageAfterAbsentObject = getValues(SQL.selectPage(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit, ConstraintIntegerColumnTableConverter.INSTANCE, "", ConstraintIntegerColumnTable.get(0), 2));
+            Assert.assertEquals(Arrays.asList(7, 14), pageAfterAbsentObject);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
+    /**
+     * Tests whether the rows matching the given objects are selected exactly once when the objects fill a chunk completely, exceed it by one or are padded.
+     */
+    @Test
+    public void shouldSelectAllInChunksAtTheChunkBoundary() throws Exception {
+        SQL.createTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        try {
+            final int chunkSize = Math.min(SQL.batchSize.get(), SQLDialect.instance.get().getMaximumNumberOfParameters());
+            final @Nonnull List<@Nonnull ConstraintIntegerColumnTable> objects = getMultiplesOfSeven(chunkSize + 2);
+            SQL.insertRows(ConstraintIntegerColumnTableConverter.INSTANCE, objects, unit, SQLConflictClause.ABORT);
+            
+            for (int number : new int[] { 1, 2, 3, chunkSize - 1, chunkSize, chunkSize + 1 }) {
+                final @Nonnull List<@Nonnull ConstraintIntegerColumnTable> requested = objects.subList(0, number);
+                final @Nonnull List<@Nonnull Integer> values = getValues(SQL.selectAllIn(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit, ConstraintIntegerColumnTableConverter.INSTANCE, "", requested));
+                Collections.sort(values);
+                Assert.assertEquals("The rows of " + number + " objects", getValues(requested), values);
+            }
+            
+            // Objects without a matching row are ignored.
+            final @Nonnull List<@Nonnull Integer> values = getValues(SQL.selectAllIn(ConstraintIntegerColumnTableConverter.INSTANCE, null, unit, ConstraintIntegerColumnTableConverter.INSTANCE, "", Arrays.asList(ConstraintIntegerColumnTable.get(7), ConstraintIntegerColumnTable.get(0))));
+            Assert.assertEquals(Arrays.asList(7), values);
+        } finally {
+            SQL.dropTable(ConstraintIntegerColumnTableConverter.INSTANCE, unit);
+        }
+    }
+    
     // TODO: add a test with a type that contains an Integer or String field and check whether the prefix is properly constructed.
 }
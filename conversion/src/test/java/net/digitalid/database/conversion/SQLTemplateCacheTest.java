@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.conversion;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTable;
+import net.digitalid.database.conversion.testenvironment.simple.SingleBooleanColumnTableConverter;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.h2.H2Dialect;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.jdbc.JDBCDatabase;
+import net.digitalid.database.jdbc.JDBCDatabaseBuilder;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.h2.Driver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests whether the templates of statements are cached until the dialect or the database is reconfigured.
+ */
+public class SQLTemplateCacheTest extends DatabaseTest {
+    
+    private static final @Nonnull Unit unit = Unit.DEFAULT;
+    
+    @Before
+    public void createTable() throws DatabaseException {
+        SQL.createTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+    }
+    
+    @After
+    public void dropTable() throws DatabaseException {
+        SQL.dropTable(SingleBooleanColumnTableConverter.INSTANCE, unit);
+    }
+    
+    @Impure
+    private static void insert() throws DatabaseException {
+        SQL.insertOrAbort(SingleBooleanColumnTableConverter.INSTANCE, SingleBooleanColumnTable.get(true), unit);
+    }
+    
+    @Test
+    public void shouldReuseTheTemplateOfTheSameStatement() throws Exception {
+        insert();
+        final long hits = SQL.getTemplateHits();
+        final long misses = SQL.getTemplateMisses();
+        insert();
+        insert();
+        assertThat(SQL.getTemplateHits()).isEqualTo(hits + 2);
+        assertThat(SQL.getTemplateMisses()).isEqualTo(misses);
+        assertRowCount(SingleBooleanColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 3);
+    }
+    
+    @Test
+    public void shouldDropTheTemplatesWhenTheDialectIsReconfigured() throws Exception {
+        insert();
+        final long misses = SQL.getTemplateMisses();
+        final @Nonnull SQLDialect dialect = SQLDialect.instance.get();
+        SQLDialect.instance.set(new H2Dialect() {});
+        try {
+            insert();
+        } finally {
+            SQLDialect.instance.set(dialect);
+        }
+        assertThat(SQL.getTemplateMisses()).isEqualTo(misses + 1);
+        insert();
+        assertThat(SQL.getTemplateMisses()).isEqualTo(misses + 2);
+    }
+    
+    @Test
+    public void shouldDropTheTemplatesWhenTheDatabaseIsReconfigured() throws Exception {
+        insert();
+        Database.commit();
+        final long misses = SQL.getTemplateMisses();
+        final @Nonnull Database database = Database.instance.get();
+        final @Nonnull JDBCDatabase otherDatabase = JDBCDatabaseBuilder.withDriver(new Driver()).withURL("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS " + unit.getName() + ";MODE=MySQL;").withUser("sa").withPassword("sa").build();
+        Database.instance.set(otherDatabase);
+        try {
+            insert();
+            Database.commit();
+        } finally {
+            Database.instance.set(database);
+            otherDatabase.close();
+        }
+        assertThat(SQL.getTemplateMisses()).isEqualTo(misses + 1);
+        insert();
+        assertThat(SQL.getTemplateMisses()).isEqualTo(misses + 2);
+        assertRowCount(SingleBooleanColumnTableConverter.INSTANCE.getTypeName(), unit.getName(), 3);
+    }
+    
+}
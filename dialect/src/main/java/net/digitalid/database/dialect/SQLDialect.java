@@ -16,19 +16,26 @@
 package net.digitalid.database.dialect;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.logging.logger.Logger;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 
 import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 
 /**
  * A dialect implements a particular version of the structured query language (SQL).
@@ -44,15 +51,57 @@ public abstract class SQLDialect {
      */
     public static final @Nonnull Configuration<SQLDialect> instance = Configuration.<SQLDialect>with(new SQLDialectSubclass()).addDependency(Logger.logger);
     
+    /* -------------------------------------------------- Renderers -------------------------------------------------- */
+    
+    /**
+     * Stores the renderers of this dialect by the type of nodes which they unparse in the order of their registration.
+     */
+    private final @Nonnull Map<@Nonnull Class<?>, @Nonnull SQLRenderer<?>> renderers = new LinkedHashMap<>();
+    
+    /**
+     * Stores whether the renderers of this dialect are final, which is the case as soon as this dialect has unparsed its first node.
+     * Afterwards, the renderers are only read, which is why a dialect remains stateless.
+     */
+    private volatile boolean sealed = false;
+    
+    /**
+     * Registers the given renderer for nodes of the given type, which includes its subtypes.
+     * If a node is of several registered types, the renderer which was registered first is used.
+     * Specific dialects register their renderers in their constructor in order to avoid the default implementation of certain nodes.
+     * 
+     * @require !sealed : "The renderers of this dialect are not yet sealed.";
+     */
+    @Impure
+    protected <@Unspecifiable NODE extends SQLNode> void register(@Nonnull Class<NODE> type, @Nonnull SQLRenderer<? super NODE> renderer) {
+        Require.that(!sealed).orThrow("The renderer for $ has to be registered before the dialect $ unparses its first node.", type.getSimpleName(), getClass().getSimpleName());
+        
+        renderers.put(type, renderer);
+    }
+    
+    /**
+     * Resolves the renderer for each class of nodes only once, which is either the first registered renderer for a supertype or the default implementation of the node.
+     */
+    private final @Nonnull ClassValue<@Nonnull SQLRenderer<SQLNode>> dispatcher = new ClassValue<SQLRenderer<SQLNode>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected @Nonnull SQLRenderer<SQLNode> computeValue(@Nonnull Class<?> type) {
+            sealed = true;
+            for (@Nonnull Map.Entry<@Nonnull Class<?>, @Nonnull SQLRenderer<?>> entry : renderers.entrySet()) {
+                if (entry.getKey().isAssignableFrom(type)) { return (SQLRenderer<SQLNode>) entry.getValue(); }
+            }
+            return (node, unit, string) -> node.unparse(SQLDialect.this, unit, string);
+        }
+    };
+    
     /* -------------------------------------------------- Unparse -------------------------------------------------- */
     
     /**
      * Appends the given node as SQL in this dialect at the given unit to the given string.
-     * Override this method in specific dialects to avoid the default implementation of certain nodes with instance checks.
+     * The node is unparsed by the {@link #register(java.lang.Class, net.digitalid.database.dialect.SQLRenderer) registered} renderer for its class if there is one.
      */
     @Pure
     public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        node.unparse(this, unit, string);
+        dispatcher.get(node.getClass()).unparse(node, unit, string);
     }
     
     /**
@@ -67,10 +116,50 @@ public abstract class SQLDialect {
         }
     }
     
+    /* -------------------------------------------------- Limits -------------------------------------------------- */
+    
+    /**
+     * Returns the maximum number of parameters that a single statement may contain in this dialect.
+     * The default value is the lowest limit of the supported databases and should be overridden by dialects which allow more parameters.
+     */
+    @Pure
+    public @Positive int getMaximumNumberOfParameters() {
+        return 999;
+    }
+    
+    /* -------------------------------------------------- Features -------------------------------------------------- */
+    
+    /**
+     * Returns whether data manipulation statements can return columns of the affected rows with a {@code RETURNING} clause in this dialect.
+     * Otherwise, only the generated keys of inserted rows can be retrieved through the database driver.
+     */
+    @Pure
+    public boolean supportsReturningClause() {
+        return false;
+    }
+    
+    /**
+     * Returns whether rows can be loaded in bulk with {@code COPY ... FROM STDIN (FORMAT binary)} in the binary format of PostgreSQL in this dialect.
+     * Otherwise, rows are loaded in bulk with statements that insert several rows at once.
+     */
+    @Pure
+    public boolean supportsBinaryCopy() {
+        return false;
+    }
+    
+    /**
+     * Returns whether an insert statement with {@link SQLConflictClause#IGNORE} skips the rows that violate a constraint in this dialect.
+     * Otherwise, such statements are rendered as plain inserts and the database has to ignore the violations one row at a time.
+     */
+    @Pure
+    public boolean supportsIgnoringConflicts() {
+        return true;
+    }
+    
     /* -------------------------------------------------- Utility -------------------------------------------------- */
     
     /**
-     * Returns the given node as SQL in this dialect at the given unit.
+     * Returns the given node as SQL in the configured dialect at the given unit.
      */
     @Pure
     public static @Nonnull @SQLFraction String unparse(@Nonnull SQLNode node, @Nonnull Unit unit) {
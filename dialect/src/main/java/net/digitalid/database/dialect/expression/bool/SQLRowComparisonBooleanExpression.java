@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.dialect.expression.bool;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.expression.SQLExpression;
+
+/**
+ * An SQL expression that compares two rows of expressions lexicographically, such as {@code (a, b) > (?, ?)}.
+ * A row of a single expression unparses to an ordinary comparison, whereas longer rows require a database that supports row values.
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+public interface SQLRowComparisonBooleanExpression extends SQLBooleanExpression {
+    
+    /* -------------------------------------------------- Operator -------------------------------------------------- */
+    
+    /**
+     * Returns the operator with which the rows are compared.
+     */
+    @Pure
+    public @Nonnull SQLComparisonOperator getOperator();
+    
+    /* -------------------------------------------------- Left Expressions -------------------------------------------------- */
+    
+    /**
+     * Returns the expressions of the left row.
+     */
+    @Pure
+    public @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLExpression> getLeftExpressions();
+    
+    /* -------------------------------------------------- Right Expressions -------------------------------------------------- */
+    
+    /**
+     * Returns the expressions of the right row, which has to be as long as the left row.
+     */
+    @Pure
+    public @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLExpression> getRightExpressions();
+    
+    /* -------------------------------------------------- Unparse -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void unparse(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("(");
+        dialect.unparse(getLeftExpressions(), unit, string);
+        string.append(") ");
+        dialect.unparse(getOperator(), unit, string);
+        string.append(" (");
+        dialect.unparse(getRightExpressions(), unit, string);
+        string.append(")");
+    }
+    
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.dialect.expression.bool;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.expression.SQLExpression;
+import net.digitalid.database.dialect.statement.insert.SQLExpressions;
+
+/**
+ * An SQL expression that checks whether a row of expressions equals one of the given rows of values.
+ * A row of a single expression unparses to {@code a IN (?, ?)}, whereas longer rows unparse to a disjunction of conjunctions such as {@code (a = ? AND b = ?) OR (a = ? AND b = ?)},
+ * which every database supports and which binds the parameters in the same order as the row value syntax {@code (a, b) IN ((?, ?), (?, ?))}.
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+public interface SQLRowInValuesBooleanExpression extends SQLBooleanExpression {
+    
+    /* -------------------------------------------------- Expressions -------------------------------------------------- */
+    
+    /**
+     * Returns the expressions of the row which has to equal one of the given rows.
+     */
+    @Pure
+    public @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLExpression> getExpressions();
+    
+    /* -------------------------------------------------- Rows -------------------------------------------------- */
+    
+    /**
+     * Returns the rows of values, each of which has to be as long as the row of expressions.
+     */
+    @Pure
+    public @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLExpressions> getRows();
+    
+    /* -------------------------------------------------- Unparse -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void unparse(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        final @Nonnull ImmutableList<? extends SQLExpression> expressions = getExpressions();
+        if (expressions.size() == 1) {
+            string.append("(");
+            dialect.unparse(expressions.get(0), unit, string);
+            string.append(") IN (");
+            boolean first = true;
+            for (@Nonnull SQLExpressions row : getRows()) {
+                if (first) { first = false; } else { string.append(", "); }
+                dialect.unparse(row.getExpressions().get(0), unit, string);
+            }
+            string.append(")");
+        } else {
+            string.append("(");
+            boolean firstRow = true;
+            for (@Nonnull SQLExpressions row : getRows()) {
+                if (firstRow) { firstRow = false; } else { string.append(" OR "); }
+                string.append("(");
+                for (int i = 0; i < expressions.size(); i++) {
+                    if (i > 0) { string.append(" AND "); }
+                    dialect.unparse(expressions.get(i), unit, string);
+                    string.append(" = ");
+                    dialect.unparse(row.getExpressions().get(i), unit, string);
+                }
+                string.append(")");
+            }
+            string.append(")");
+        }
+    }
+    
+}
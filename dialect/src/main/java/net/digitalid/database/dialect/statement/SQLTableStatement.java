@@ -23,6 +23,7 @@ import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatement;
 import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
 import net.digitalid.database.dialect.statement.table.drop.SQLDropTableStatement;
 
@@ -31,6 +32,7 @@ import net.digitalid.database.dialect.statement.table.drop.SQLDropTableStatement
  * 
  * @see SQLDeleteStatement
  * @see SQLInsertStatement
+ * @see SQLUpsertStatement
  * @see SQLCreateTableStatement
  * @see SQLDropTableStatement
  */
@@ -16,10 +16,12 @@
 package net.digitalid.database.dialect.statement.insert;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.immutable.ImmutableList;
@@ -67,6 +69,26 @@ public interface SQLInsertStatement extends SQLTableStatement {
     @Default("SQLConflictClause.ABORT")
     public @Nonnull SQLConflictClause getConflictClause();
     
+    /**
+     * Returns the columns of the primary key, which dialects without conflict clauses need in order to replace the conflicting row.
+     */
+    @Pure
+    public @Nullable @NonNullableElements @NonEmpty ImmutableList<? extends SQLColumnName> getKeyColumns();
+    
+    /* -------------------------------------------------- Conversion -------------------------------------------------- */
+    
+    /**
+     * Returns an upsert statement that updates the conflicting row, which can be used by dialects that do not support {@link SQLConflictClause#REPLACE}.
+     * 
+     * @require getKeyColumns() != null : "The key columns of this statement are known.";
+     */
+    @Pure
+    public default @Nonnull SQLUpsertStatement toUpsertStatement() {
+        final @Nullable ImmutableList<? extends SQLColumnName> keyColumns = getKeyColumns();
+        Require.that(keyColumns != null).orThrow("The key columns of the insert statement into $ have to be known in order to replace the conflicting row.", getTable());
+        return SQLUpsertStatementBuilder.withTable(getTable()).withColumns(getColumns()).withKeyColumns(keyColumns).withValues(getValues()).build();
+    }
+    
     /* -------------------------------------------------- Unparse -------------------------------------------------- */
     
     @Pure
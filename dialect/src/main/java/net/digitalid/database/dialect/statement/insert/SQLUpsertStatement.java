@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.dialect.statement.insert;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.sql.SQLFraction;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.dialect.statement.SQLTableStatement;
+
+/**
+ * An SQL upsert statement, which inserts the given values or updates the non-key columns of the row with the same key in place.
+ * In contrast to an insert statement with {@link SQLConflictClause#REPLACE}, the conflicting row is not deleted first,
+ * which avoids rewriting the indexes of the row and triggering the actions of foreign keys that reference it.
+ * 
+ * @see SQLInsertStatement
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+public interface SQLUpsertStatement extends SQLTableStatement {
+    
+    /* -------------------------------------------------- Columns -------------------------------------------------- */
+    
+    /**
+     * Returns the columns into which the given values are inserted.
+     */
+    @Pure
+    public @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLColumnName> getColumns();
+    
+    /**
+     * Returns the columns of the primary key, which determine whether a row is inserted or updated.
+     * The key columns have to be a subset of the {@link #getColumns() columns}.
+     */
+    @Pure
+    public @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLColumnName> getKeyColumns();
+    
+    /**
+     * Returns the columns which are updated if a row with the same key already exists.
+     */
+    @Pure
+    public default @Nonnull @NonNullableElements ImmutableList<? extends SQLColumnName> getUpdatedColumns() {
+        return ImmutableList.withElementsOf(getColumns().filter(column -> !getKeyColumns().map(SQLColumnName::getString).contains(column.getString())));
+    }
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    /**
+     * Returns the values which are inserted into the given columns.
+     */
+    @Pure
+    public @Nonnull SQLValues getValues();
+    
+    /* -------------------------------------------------- Conversion -------------------------------------------------- */
+    
+    /**
+     * Returns an insert statement that replaces the conflicting row, which can be used by dialects and databases that do not support upserts.
+     */
+    @Pure
+    public default @Nonnull SQLInsertStatement toInsertStatement() {
+        return SQLInsertStatementBuilder.withTable(getTable()).withColumns(getColumns()).withValues(getValues()).withConflictClause(SQLConflictClause.REPLACE).withKeyColumns(getKeyColumns()).build();
+    }
+    
+    /* -------------------------------------------------- Unparse -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public default void unparse(@Nonnull SQLDialect dialect, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("INSERT INTO ");
+        dialect.unparse(getTable(), unit, string);
+        string.append(" (");
+        dialect.unparse(getColumns(), unit, string);
+        string.append(") ");
+        dialect.unparse(getValues(), unit, string);
+        string.append(" ON CONFLICT (");
+        dialect.unparse(getKeyColumns(), unit, string);
+        string.append(") DO ");
+        final @Nonnull ImmutableList<? extends SQLColumnName> updatedColumns = getUpdatedColumns();
+        if (updatedColumns.isEmpty()) {
+            string.append("NOTHING");
+        } else {
+            string.append("UPDATE SET ");
+            for (int i = 0; i < updatedColumns.size(); i++) {
+                if (i > 0) { string.append(", "); }
+                dialect.unparse(updatedColumns.get(i), unit, string);
+                string.append(" = EXCLUDED.");
+                dialect.unparse(updatedColumns.get(i), unit, string);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.dialect.statement.insert;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.storage.interfaces.Unit;
+
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.expression.bool.SQLBooleanLiteral;
+import net.digitalid.database.dialect.expression.number.SQLLongLiteralBuilder;
+import net.digitalid.database.dialect.expression.number.SQLNumberLiteral;
+import net.digitalid.database.dialect.expression.string.SQLStringLiteral;
+import net.digitalid.database.dialect.expression.string.SQLStringLiteralBuilder;
+import net.digitalid.database.dialect.statement.SQLStatementTest;
+
+import org.junit.Test;
+
+public class SQLUpsertStatementTest extends SQLStatementTest {
+    
+    private @Nonnull SQLRows getRows() {
+        final @Nonnull SQLNumberLiteral firstExpression = SQLLongLiteralBuilder.withValue(8).build();
+        final @Nonnull SQLBooleanLiteral secondExpression = SQLBooleanLiteral.TRUE;
+        final @Nonnull SQLStringLiteral thirdExpression = SQLStringLiteralBuilder.withString("name").build();
+        final @Nonnull SQLExpressions expressions = SQLExpressionsBuilder.withExpressions(ImmutableList.withElements(firstExpression, secondExpression, thirdExpression)).build();
+        return SQLRowsBuilder.withRows(ImmutableList.withElements(expressions)).build();
+    }
+    
+    @Test
+    public void testUpsertStatement() {
+        final @Nonnull SQLUpsertStatement upsertStatement = SQLUpsertStatementBuilder.withTable(qualifiedTable).withColumns(columns).withKeyColumns(ImmutableList.withElements(firstColumn)).withValues(getRows()).build();
+        assertThat(SQLDialect.unparse(upsertStatement, Unit.DEFAULT)).isEqualTo("INSERT INTO \"default\".\"test_table\" (\"first_column\", \"second_column\", \"third_column\") VALUES (8, TRUE, \"name\") ON CONFLICT (\"first_column\") DO UPDATE SET \"second_column\" = EXCLUDED.\"second_column\", \"third_column\" = EXCLUDED.\"third_column\"");
+    }
+    
+    @Test
+    public void testUpsertStatementWithOnlyKeyColumns() {
+        final @Nonnull SQLUpsertStatement upsertStatement = SQLUpsertStatementBuilder.withTable(qualifiedTable).withColumns(columns).withKeyColumns(columns).withValues(getRows()).build();
+        assertThat(SQLDialect.unparse(upsertStatement, Unit.DEFAULT)).isEqualTo("INSERT INTO \"default\".\"test_table\" (\"first_column\", \"second_column\", \"third_column\") VALUES (8, TRUE, \"name\") ON CONFLICT (\"first_column\", \"second_column\", \"third_column\") DO NOTHING");
+    }
+    
+}
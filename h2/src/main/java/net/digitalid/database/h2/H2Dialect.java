@@ -26,13 +26,14 @@ import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.initialization.annotations.Initialize;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.identifier.SQLIdentifier;
 import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatement;
 
 /**
  * This class implements the H2 dialect.
@@ -52,6 +53,36 @@ public abstract class H2Dialect extends SQLDialect {
         SQLDialect.instance.set(new H2DialectSubclass());
     }
     
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected H2Dialect() {
+        register(SQLIdentifier.class, this::unparse);
+        register(SQLConflictClause.class, this::unparse);
+        register(SQLUpsertStatement.class, this::unparse);
+    }
+    
+    /* -------------------------------------------------- Limits -------------------------------------------------- */
+    
+    /**
+     * H2 does not limit the number of parameters, but statements with more parameters than this are rarely faster.
+     */
+    @Pure
+    @Override
+    public @Positive int getMaximumNumberOfParameters() {
+        return 65_535;
+    }
+    
+    /* -------------------------------------------------- Features -------------------------------------------------- */
+    
+    /**
+     * H2 has no syntax to ignore conflicting rows, which is why {@link SQLConflictClause#IGNORE} is rendered as a plain insert.
+     */
+    @Pure
+    @Override
+    public boolean supportsIgnoringConflicts() {
+        return false;
+    }
+    
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
@@ -66,12 +97,19 @@ public abstract class H2Dialect extends SQLDialect {
         else { string.append("INSERT"); }
     }
     
+    /**
+     * H2 updates the row with the same key in place with a {@code MERGE} statement whose key columns are given explicitly.
+     */
     @Pure
-    @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLIdentifier) { unparse((SQLIdentifier) node, unit, string); }
-        else if (node instanceof SQLConflictClause) { unparse((SQLConflictClause) node, unit, string); }
-        else { super.unparse(node, unit, string); }
+    protected void unparse(@Nonnull SQLUpsertStatement upsertStatement, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("MERGE INTO ");
+        unparse(upsertStatement.getTable(), unit, string);
+        string.append(" (");
+        unparse(upsertStatement.getColumns(), unit, string);
+        string.append(") KEY (");
+        unparse(upsertStatement.getKeyColumns(), unit, string);
+        string.append(") ");
+        unparse(upsertStatement.getValues(), unit, string);
     }
     
 }
@@ -18,21 +18,29 @@ package net.digitalid.database.interfaces;
 import java.sql.ResultSet;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
-import net.digitalid.utility.concurrency.local.ThreadLocalIterable;
-import net.digitalid.utility.concurrency.local.ThreadLocalIterableBuilder;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.functional.failable.FailableConsumer;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.annotations.sql.SQLStatement;
 import net.digitalid.database.annotations.transaction.Committing;
 import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
+import net.digitalid.database.dialect.statement.SQLTableStatement;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatement;
 import net.digitalid.database.dialect.statement.schema.SQLCreateSchemaStatement;
 import net.digitalid.database.dialect.statement.select.SQLSelectStatement;
 import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
@@ -40,6 +48,7 @@ import net.digitalid.database.dialect.statement.table.drop.SQLDropTableStatement
 import net.digitalid.database.dialect.statement.update.SQLUpdateStatement;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+import net.digitalid.database.interfaces.encoder.SQLBulkEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
 
 /**
@@ -77,12 +86,14 @@ public abstract class Database implements AutoCloseable {
     
     /**
      * Commits all changes of the current thread since the last commit or rollback.
+     * If a {@link #runAsUnitOfWork(FailableConsumer) unit of work} is in progress, the commit is deferred until the unit of work ends.
      * (On the server, this method should only be called by the worker.)
      */
     @Impure
     @Committing
     public static void commit() throws DatabaseException {
-        instance.get().commitTransaction();
+        final @Nonnull Database database = instance.get();
+        if (!database.getCurrentTransaction().isInUnitOfWork()) { database.commitTransaction(); }
     }
     
     /**
@@ -95,6 +106,131 @@ public abstract class Database implements AutoCloseable {
         instance.get().rollbackTransaction();
     }
     
+    /**
+     * Returns a new explicit transaction on the configured database, which is not yet bound to any thread.
+     * 
+     * @see #within(Transaction, FailableConsumer)
+     */
+    @Impure
+    public static @Nonnull Transaction newTransaction() {
+        return instance.get().createTransaction(true);
+    }
+    
+    /**
+     * Binds the given explicit transaction to the current thread while the given consumer is run on the configured database.
+     * All statements that are executed by the consumer, including a {@link #commit() commit} or {@link #rollback() rollback}, belong to the given transaction.
+     */
+    @Impure
+    public static <@Unspecifiable EXCEPTION extends Exception> void within(@Nonnull Transaction transaction, @Nonnull FailableConsumer<? super Transaction, ? extends EXCEPTION> consumer) throws EXCEPTION {
+        instance.get().runWithin(transaction, consumer);
+    }
+    
+    /**
+     * Commits all changes of the given explicit transaction since its last commit or rollback.
+     */
+    @Impure
+    @Committing
+    public static void commit(@Nonnull Transaction transaction) throws DatabaseException {
+        within(transaction, boundTransaction -> commit());
+    }
+    
+    /**
+     * Rolls back all changes of the given explicit transaction since its last commit or rollback.
+     */
+    @Impure
+    @Committing
+    public static void rollback(@Nonnull Transaction transaction) {
+        instance.get().runWithin(transaction, boundTransaction -> rollback());
+    }
+    
+    /* -------------------------------------------------- Unit of Work -------------------------------------------------- */
+    
+    /**
+     * Runs the given consumer as a unit of work on the current transaction and commits the transaction once at the end.
+     * Calls to {@link #commit()} within the unit of work, such as the ones of persistent properties, are deferred until the end,
+     * and the notifications passed to {@link #commitAndNotify(Runnable)} are only run after the single commit has succeeded.
+     * If the consumer throws an exception, the transaction is rolled back and the exception is rethrown.
+     * A nested unit of work becomes part of the enclosing unit of work, which is committed or rolled back as a whole.
+     */
+    @Impure
+    @Committing
+    public static <@Unspecifiable EXCEPTION extends Exception> void runAsUnitOfWork(@Nonnull FailableConsumer<? super Transaction, ? extends EXCEPTION> consumer) throws EXCEPTION, DatabaseException {
+        final @Nonnull Transaction transaction = instance.get().getCurrentTransaction();
+        transaction.beginUnitOfWork();
+        boolean completed = false;
+        try {
+            consumer.consume(transaction);
+            completed = true;
+        } finally {
+            transaction.endUnitOfWork();
+            if (!completed && !transaction.isInUnitOfWork()) { rollback(); }
+        }
+        if (!transaction.isInUnitOfWork()) { commit(); }
+    }
+    
+    /**
+     * Commits the current transaction and runs the given notification afterwards.
+     * If a unit of work is in progress, the commit is deferred and the notification is run after the commit at the end of the unit of work or discarded if it is rolled back.
+     * The deferred notifications are run in the order in which they were passed to this method.
+     */
+    @Impure
+    @Committing
+    public static void commitAndNotify(@Nonnull Runnable notification) throws DatabaseException {
+        final @Nonnull Transaction transaction = instance.get().getCurrentTransaction();
+        if (transaction.isInUnitOfWork()) {
+            transaction.runAfterCommit(notification);
+        } else {
+            commit();
+            notification.run();
+        }
+    }
+    
+    /* -------------------------------------------------- Transaction Context -------------------------------------------------- */
+    
+    /**
+     * Stores the transaction which is bound to the current thread.
+     */
+    private final @Nonnull ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+    
+    /**
+     * Creates a new transaction, which databases that keep further state per transaction can override.
+     */
+    @Pure
+    protected @Nonnull Transaction createTransaction(boolean explicit) {
+        return TransactionBuilder.withExplicit(explicit).build();
+    }
+    
+    /**
+     * Returns the transaction which is bound to the current thread.
+     * If no explicit transaction is bound, an implicit transaction is created and kept for the current thread.
+     */
+    @Impure
+    public @Nonnull Transaction getCurrentTransaction() {
+        @Nullable Transaction transaction = currentTransaction.get();
+        if (transaction == null) {
+            transaction = createTransaction(false);
+            currentTransaction.set(transaction);
+        }
+        return transaction;
+    }
+    
+    /**
+     * Binds the given explicit transaction to the current thread while the given consumer is run and restores the previous binding afterwards.
+     */
+    @Impure
+    public <@Unspecifiable EXCEPTION extends Exception> void runWithin(@Nonnull Transaction transaction, @Nonnull FailableConsumer<? super Transaction, ? extends EXCEPTION> consumer) throws EXCEPTION {
+        Require.that(transaction.isExplicit()).orThrow("Only explicit transactions can be bound to a thread.");
+        
+        final @Nullable Transaction previousTransaction = currentTransaction.get();
+        currentTransaction.set(transaction);
+        try {
+            consumer.consume(transaction);
+        } finally {
+            if (previousTransaction == null) { currentTransaction.remove(); }
+            else { currentTransaction.set(previousTransaction); }
+        }
+    }
+    
     /* -------------------------------------------------- Create Schema -------------------------------------------------- */
     
     /**
@@ -127,6 +263,17 @@ public abstract class Database implements AutoCloseable {
     @Pure
     public abstract @Nonnull SQLActionEncoder getEncoder(@Nonnull SQLInsertStatement insertStatement, @Nonnull Unit unit) throws DatabaseException;
     
+    /* -------------------------------------------------- Upsert -------------------------------------------------- */
+    
+    /**
+     * Returns an SQL action encoder for encoding the parameterized values of the given upsert statement and executing it afterwards on the given unit.
+     * Databases that cannot execute upserts inherit this implementation, which replaces the conflicting row instead.
+     */
+    @Pure
+    public @Nonnull SQLActionEncoder getEncoder(@Nonnull SQLUpsertStatement upsertStatement, @Nonnull Unit unit) throws DatabaseException {
+        return getEncoder(upsertStatement.toInsertStatement(), unit);
+    }
+    
     /* -------------------------------------------------- Update -------------------------------------------------- */
     
     /**
@@ -151,6 +298,49 @@ public abstract class Database implements AutoCloseable {
     @Pure
     public abstract @Nonnull SQLQueryEncoder getEncoder(@Nonnull SQLSelectStatement selectStatement, @Nonnull Unit unit) throws DatabaseException;
     
+    /* -------------------------------------------------- Bulk Loading -------------------------------------------------- */
+    
+    /**
+     * Returns an SQL bulk encoder for loading rows into the table and columns of the given insert statement on the given unit
+     * or null if this database does not support bulk loading, in which case the rows have to be inserted with the insert statement.
+     */
+    @Pure
+    public @Nullable SQLBulkEncoder getBulkEncoder(@Nonnull SQLInsertStatement insertStatement, @Nonnull Unit unit) throws DatabaseException {
+        return null;
+    }
+    
+    /* -------------------------------------------------- Templates -------------------------------------------------- */
+    
+    /**
+     * Returns an SQL action encoder for encoding the parameterized values of the statement of the given template and executing it afterwards on its unit.
+     * Databases that execute SQL strings should override this method in order to use the already unparsed {@link SQLTemplate#getString() string}.
+     */
+    @Pure
+    public @Nonnull SQLActionEncoder getActionEncoder(@Nonnull SQLTemplate<? extends SQLTableStatement> template) throws DatabaseException {
+        final @Nonnull SQLTableStatement statement = template.getStatement();
+        if (statement instanceof SQLInsertStatement) { return getEncoder((SQLInsertStatement) statement, template.getUnit()); }
+        else if (statement instanceof SQLUpsertStatement) { return getEncoder((SQLUpsertStatement) statement, template.getUnit()); }
+        else if (statement instanceof SQLUpdateStatement) { return getEncoder((SQLUpdateStatement) statement, template.getUnit()); }
+        else if (statement instanceof SQLDeleteStatement) { return getEncoder((SQLDeleteStatement) statement, template.getUnit()); }
+        else { throw new UnsupportedOperationException("The statement " + statement.getClass().getSimpleName() + " cannot be encoded."); }
+    }
+    
+    /**
+     * Returns an SQL action encoder for the statement of the given template whose {@link SQLActionEncoder#executeReturning(net.digitalid.utility.conversion.interfaces.Converter, java.lang.Object) execution}
+     * returns the given columns of the affected rows, which can be limited to the generated key of inserted rows if the dialect does not support a {@code RETURNING} clause.
+     */
+    @Pure
+    public abstract @Nonnull SQLActionEncoder getReturningEncoder(@Nonnull SQLTemplate<? extends SQLTableStatement> template, @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLColumnName> columns) throws DatabaseException;
+    
+    /**
+     * Returns an SQL query encoder for encoding the parameterized values of the statement of the given template and executing it afterwards on its unit.
+     * Databases that execute SQL strings should override this method in order to use the already unparsed {@link SQLTemplate#getString() string}.
+     */
+    @Pure
+    public @Nonnull SQLQueryEncoder getQueryEncoder(@Nonnull SQLTemplate<? extends SQLSelectStatement> template) throws DatabaseException {
+        return getEncoder(template.getStatement(), template.getUnit());
+    }
+    
     /* -------------------------------------------------- Testing -------------------------------------------------- */
     
     /**
@@ -161,31 +351,21 @@ public abstract class Database implements AutoCloseable {
     @PureWithSideEffects
     public abstract @Nonnull ResultSet executeQuery(@Nonnull @SQLStatement String query) throws DatabaseException;
     
-    /* -------------------------------------------------- Runnables -------------------------------------------------- */
-    
-    private final @Nonnull ThreadLocalIterable<@Nonnull Runnable> runnablesAfterCommit = ThreadLocalIterableBuilder.build();
-    
-    private final @Nonnull ThreadLocalIterable<@Nonnull Runnable> runnablesAfterRollback = ThreadLocalIterableBuilder.build();
-    
     /* -------------------------------------------------- Commit -------------------------------------------------- */
     
     /**
      * Runs the given runnable after (and only after) committing the current transaction successfully.
      * If the current transaction is rolled back, then the runnable is removed without being run.
-     * <p>
-     * <em>Important:</em> Do not rely on the order of execution of the passed runnables!
-     * (The current implementation uses a stack, i.e. last in, first out (LIFO).)
+     * The runnables are run in the order in which they were registered (first in, first out).
      */
     @Impure
     public void runAfterCommit(@Nonnull Runnable runnable) {
-        runnablesAfterCommit.add(runnable);
+        getCurrentTransaction().runAfterCommit(runnable);
     }
     
     @Impure
     protected void runRunnablesAfterCommit() {
-        for (@Nonnull Runnable runnable : runnablesAfterCommit) { runnable.run(); }
-        runnablesAfterCommit.clear();
-        runnablesAfterRollback.clear();
+        getCurrentTransaction().runRunnablesAfterCommit();
     }
     
     /* -------------------------------------------------- Rollback -------------------------------------------------- */
@@ -193,20 +373,16 @@ public abstract class Database implements AutoCloseable {
     /**
      * Runs the given runnable after (and only after) rolling back the failed current transaction.
      * If the current transaction is committed, then the runnable is removed without being run.
-     * <p>
-     * <em>Important:</em> Do not rely on the order of execution of the passed runnables!
-     * (The current implementation uses a stack, i.e. last in, first out (LIFO).)
+     * The runnables are run in the reverse order in which they were registered (last in, first out).
      */
     @Impure
     public void runAfterRollback(@Nonnull Runnable runnable) {
-        runnablesAfterRollback.add(runnable);
+        getCurrentTransaction().runAfterRollback(runnable);
     }
     
     @Impure
     protected void runRunnablesAfterRollback() {
-        for (@Nonnull Runnable runnable : runnablesAfterRollback) { runnable.run(); }
-        runnablesAfterCommit.clear();
-        runnablesAfterRollback.clear();
+        getCurrentTransaction().runRunnablesAfterRollback();
     }
     
 }
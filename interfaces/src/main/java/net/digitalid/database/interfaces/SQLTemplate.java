@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.sql.SQLStatement;
+import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.statement.SQLStatementNode;
+
+/**
+ * An SQL template stores a parameterized statement together with its SQL string, which is unparsed only once for the given dialect and unit.
+ * Templates can be cached and passed repeatedly to {@link Database#getActionEncoder(SQLTemplate)} or {@link Database#getQueryEncoder(SQLTemplate)} so that only the parameters have to be bound.
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+public class SQLTemplate<@Unspecifiable STATEMENT extends SQLStatementNode> {
+    
+    /* -------------------------------------------------- Statement -------------------------------------------------- */
+    
+    private final @Nonnull STATEMENT statement;
+    
+    /**
+     * Returns the parameterized statement of this template.
+     */
+    @Pure
+    public @Nonnull STATEMENT getStatement() {
+        return statement;
+    }
+    
+    /* -------------------------------------------------- Unit -------------------------------------------------- */
+    
+    private final @Nonnull Unit unit;
+    
+    /**
+     * Returns the unit for which the statement was unparsed.
+     */
+    @Pure
+    public @Nonnull Unit getUnit() {
+        return unit;
+    }
+    
+    /* -------------------------------------------------- Dialect -------------------------------------------------- */
+    
+    private final @Nonnull SQLDialect dialect;
+    
+    /**
+     * Returns the dialect in which the statement was unparsed.
+     */
+    @Pure
+    public @Nonnull SQLDialect getDialect() {
+        return dialect;
+    }
+    
+    /* -------------------------------------------------- String -------------------------------------------------- */
+    
+    private final @Nonnull @SQLStatement String string;
+    
+    /**
+     * Returns the statement as SQL in the {@link #getDialect() dialect} at the {@link #getUnit() unit}.
+     */
+    @Pure
+    public @Nonnull @SQLStatement String getString() {
+        return string;
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected SQLTemplate(@Nonnull STATEMENT statement, @Nonnull Unit unit, @Nonnull SQLDialect dialect) {
+        this.statement = statement;
+        this.unit = unit;
+        this.dialect = dialect;
+        
+        final @Nonnull StringBuilder string = new StringBuilder();
+        dialect.unparse(statement, unit, string);
+        this.string = string.toString();
+    }
+    
+    /* -------------------------------------------------- Validity -------------------------------------------------- */
+    
+    /**
+     * Returns whether this template was unparsed in the currently configured dialect.
+     */
+    @Pure
+    public boolean isCurrent() {
+        return dialect == SQLDialect.instance.get();
+    }
+    
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A transaction stores the state of a logical unit of work on a {@link Database database}, such as the runnables that have to be run after a commit or rollback.
+ * Databases which need to keep further state per transaction, like a connection, extend this class.
+ * <p>
+ * An implicit transaction is created for and bound to every thread that accesses the database without a transaction of its own.
+ * An explicit transaction is created with {@link Database#newTransaction()} and only bound to the current thread for the duration of {@link Database#within(Transaction, net.digitalid.utility.functional.failable.FailableConsumer)}.
+ * This allows many logical transactions to be multiplexed over a few pooled connections and to move between threads,
+ * which is needed when every request is handled on its own virtual thread.
+ * A transaction may be used by only one thread at a time.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class Transaction {
+    
+    /* -------------------------------------------------- Explicit -------------------------------------------------- */
+    
+    private final boolean explicit;
+    
+    /**
+     * Returns whether this transaction was created explicitly instead of implicitly for a thread.
+     */
+    @Pure
+    public boolean isExplicit() {
+        return explicit;
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected Transaction(boolean explicit) {
+        this.explicit = explicit;
+    }
+    
+    /* -------------------------------------------------- Unit of Work -------------------------------------------------- */
+    
+    private volatile @NonNegative int unitOfWorkDepth = 0;
+    
+    /**
+     * Returns whether a unit of work is in progress on this transaction, during which commits are deferred until the outermost unit of work ends.
+     * 
+     * @see Database#runAsUnitOfWork(net.digitalid.utility.functional.failable.FailableConsumer)
+     */
+    @Pure
+    public boolean isInUnitOfWork() {
+        return unitOfWorkDepth > 0;
+    }
+    
+    /**
+     * Begins a possibly nested unit of work on this transaction.
+     */
+    @Impure
+    void beginUnitOfWork() {
+        unitOfWorkDepth += 1;
+    }
+    
+    /**
+     * Ends the innermost unit of work on this transaction.
+     */
+    @Impure
+    void endUnitOfWork() {
+        unitOfWorkDepth -= 1;
+    }
+    
+    /* -------------------------------------------------- Runnables -------------------------------------------------- */
+    
+    private final @Nonnull Deque<@Nonnull Runnable> runnablesAfterCommit = new ArrayDeque<>();
+    
+    private final @Nonnull Deque<@Nonnull Runnable> runnablesAfterRollback = new ArrayDeque<>();
+    
+    /**
+     * Runs the given runnable after (and only after) committing this transaction successfully.
+     * The runnables are run in the order in which they were registered (first in, first out).
+     * 
+     * @see Database#runAfterCommit(java.lang.Runnable)
+     */
+    @Impure
+    public void runAfterCommit(@Nonnull Runnable runnable) {
+        runnablesAfterCommit.addLast(runnable);
+    }
+    
+    /**
+     * Runs the given runnable after (and only after) rolling back this transaction.
+     * The runnables are run in the reverse order in which they were registered (last in, first out) so that later changes are undone first.
+     * 
+     * @see Database#runAfterRollback(java.lang.Runnable)
+     */
+    @Impure
+    public void runAfterRollback(@Nonnull Runnable runnable) {
+        runnablesAfterRollback.push(runnable);
+    }
+    
+    /**
+     * Runs the runnables that were registered to be run after a commit and forgets all runnables.
+     * The runnables are forgotten before they are run because a runnable might commit this transaction again,
+     * in which case only the runnables that were registered in the meantime are run by the nested commit.
+     */
+    @Impure
+    protected void runRunnablesAfterCommit() {
+        final @Nonnull Runnable[] runnables = runnablesAfterCommit.toArray(new Runnable[runnablesAfterCommit.size()]);
+        runnablesAfterCommit.clear();
+        runnablesAfterRollback.clear();
+        for (@Nonnull Runnable runnable : runnables) { runnable.run(); }
+    }
+    
+    /**
+     * Runs the runnables that were registered to be run after a rollback and forgets all runnables.
+     * The runnables are forgotten before they are run because a runnable might roll back or commit this transaction again.
+     */
+    @Impure
+    protected void runRunnablesAfterRollback() {
+        final @Nonnull Runnable[] runnables = runnablesAfterRollback.toArray(new Runnable[runnablesAfterRollback.size()]);
+        runnablesAfterCommit.clear();
+        runnablesAfterRollback.clear();
+        for (@Nonnull Runnable runnable : runnables) { runnable.run(); }
+    }
+    
+}
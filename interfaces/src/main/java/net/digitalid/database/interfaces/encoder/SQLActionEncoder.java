@@ -15,7 +15,21 @@
  */
 package net.digitalid.database.interfaces.encoder;
 
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.exceptions.DatabaseException;
@@ -44,4 +58,51 @@ public interface SQLActionEncoder extends SQLEncoder {
     @PureWithSideEffects
     public abstract void execute() throws DatabaseException;
     
+    /**
+     * Executes the data manipulation language (DML) statement like {@link #execute()} and returns the number of affected rows.
+     * This allows callers to find out whether a row was inserted, updated or deleted without querying the database again.
+     */
+    @PureWithSideEffects
+    public abstract @NonNegative int executeWithCount() throws DatabaseException;
+    
+    /**
+     * Executes the data manipulation language (DML) statement and returns the columns of the affected rows recovered with the given converter.
+     * This is only supported by encoders that were {@link net.digitalid.database.interfaces.Database#getReturningEncoder(net.digitalid.database.interfaces.SQLTemplate, net.digitalid.utility.immutable.ImmutableList) requested}
+     * with the returned columns, which are the generated keys of inserted rows on databases without a {@code RETURNING} clause.
+     */
+    @PureWithSideEffects
+    public default @Capturable <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull @NonNullableElements @NonFrozen FreezableList<TYPE> executeReturning(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws DatabaseException, RecoveryException {
+        throw new UnsupportedOperationException("This action encoder does not return the columns of the affected rows.");
+    }
+    
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    /**
+     * Returns whether this encoder supports {@link #addBatch() adding} rows to a batch and {@link #executeBatch() executing} them together.
+     */
+    @Pure
+    public default boolean supportsBatching() {
+        return false;
+    }
+    
+    /**
+     * Adds the values encoded since the last call to this method as a row to the batch of this encoder.
+     * Afterwards, the values of the next row can be encoded starting again with the first parameter.
+     */
+    @Impure
+    public default void addBatch() throws DatabaseException {
+        throw new UnsupportedOperationException("This action encoder does not support batching.");
+    }
+    
+    /**
+     * Executes all rows that were added to the batch since its last execution and clears the batch.
+     * Unlike {@link #execute()}, this method keeps the statement open so that further rows can be added.
+     * 
+     * @return the number of affected rows for each executed row, which might be {@link java.sql.Statement#SUCCESS_NO_INFO} if the driver does not know it.
+     */
+    @PureWithSideEffects
+    public default @Nonnull int[] executeBatch() throws DatabaseException {
+        throw new UnsupportedOperationException("This action encoder does not support batching.");
+    }
+    
 }
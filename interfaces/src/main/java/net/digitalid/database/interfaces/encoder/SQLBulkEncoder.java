@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.interfaces.encoder;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+
+/**
+ * The SQL bulk encoder streams rows into a table with a native bulk loading mechanism of the database, such as COPY in PostgreSQL.
+ * The values of each row are encoded in the order of the columns of the insert statement for which the encoder was {@link net.digitalid.database.interfaces.Database#getBulkEncoder(net.digitalid.database.dialect.statement.insert.SQLInsertStatement, net.digitalid.utility.storage.interfaces.Unit) requested}.
+ * Closing the encoder before it is {@link #execute() executed} aborts the loading of all rows.
+ * 
+ * @see SQLActionEncoder
+ */
+@Mutable
+public interface SQLBulkEncoder extends SQLEncoder {
+    
+    /**
+     * Ends the row whose values were encoded since the last call to this method.
+     * Afterwards, the values of the next row can be encoded starting again with the first column.
+     */
+    @Impure
+    public void addRow() throws DatabaseException;
+    
+    /**
+     * Loads all added rows into the table.
+     * 
+     * @return the number of loaded rows.
+     */
+    @PureWithSideEffects
+    public @NonNegative long execute() throws DatabaseException;
+    
+}
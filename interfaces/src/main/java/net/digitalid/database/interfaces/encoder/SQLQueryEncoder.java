@@ -17,7 +17,9 @@ package net.digitalid.database.interfaces.encoder;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.exceptions.DatabaseException;
@@ -42,4 +44,22 @@ public interface SQLQueryEncoder extends SQLEncoder {
     @PureWithSideEffects
     public abstract @Nonnull SQLDecoder execute() throws DatabaseException;
     
+    /* -------------------------------------------------- Fetching -------------------------------------------------- */
+    
+    /**
+     * Sets the number of rows that should be fetched from the database at once when more rows are needed.
+     * Zero leaves the decision to the database, which might buffer the whole result in memory.
+     * This is only a hint, which encoders that cannot influence the fetching of rows ignore.
+     */
+    @Impure
+    public default void setFetchSize(@NonNegative int fetchSize) {}
+    
+    /**
+     * Sets whether the rows of the result should be streamed from the database in constant memory.
+     * Depending on the database, the connection cannot be used for other statements until the returned decoder is closed.
+     * This is only a hint, which encoders that cannot stream rows ignore.
+     */
+    @Impure
+    public default void setStreaming(boolean streaming) {}
+    
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class wraps a JDBC connection together with its prepared statement cache and the times of its creation and last use.
+ * A connection is only used by one thread at a time, either permanently or for the duration of a transaction when it is leased from a {@link JDBCConnectionPool pool}.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class JDBCConnection {
+    
+    /* -------------------------------------------------- Connection -------------------------------------------------- */
+    
+    private final @Nonnull Connection connection;
+    
+    /**
+     * Returns the wrapped JDBC connection.
+     */
+    @Pure
+    public @Nonnull Connection getConnection() {
+        return connection;
+    }
+    
+    /* -------------------------------------------------- Statement Cache -------------------------------------------------- */
+    
+    private final @Nullable JDBCStatementCache statementCache;
+    
+    /**
+     * Returns the prepared statement cache of this connection or null if caching is disabled.
+     */
+    @Pure
+    public @Nullable JDBCStatementCache getStatementCache() {
+        return statementCache;
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected JDBCConnection(@Nonnull Connection connection, @Nullable JDBCStatementCache statementCache) {
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.creationTime = System.currentTimeMillis();
+        this.lastUseTime = creationTime;
+    }
+    
+    /* -------------------------------------------------- Times -------------------------------------------------- */
+    
+    private final long creationTime;
+    
+    /**
+     * Returns the time in milliseconds when this connection was opened.
+     */
+    @Pure
+    public long getCreationTime() {
+        return creationTime;
+    }
+    
+    private volatile long lastUseTime;
+    
+    /**
+     * Returns the time in milliseconds when this connection was last used.
+     */
+    @Pure
+    public long getLastUseTime() {
+        return lastUseTime;
+    }
+    
+    /**
+     * Records that this connection has just been used.
+     */
+    @Impure
+    public void touch() {
+        this.lastUseTime = System.currentTimeMillis();
+    }
+    
+    /* -------------------------------------------------- Failure -------------------------------------------------- */
+    
+    private volatile boolean failed = false;
+    
+    /**
+     * Returns whether the last transaction on this connection was rolled back.
+     */
+    @Pure
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    /**
+     * Sets whether the last transaction on this connection was rolled back.
+     */
+    @Impure
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes the cached statements and the wrapped connection and logs a failure instead of propagating it.
+     */
+    @PureWithSideEffects
+    public void close() {
+        if (statementCache != null) { statementCache.clear(); }
+        try {
+            connection.close();
+        } catch (@Nonnull SQLException exception) {
+            Log.warning("Could not close a database connection.", exception);
+        }
+    }
+    
+}
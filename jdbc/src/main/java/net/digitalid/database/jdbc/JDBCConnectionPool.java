@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+
+/**
+ * This class pools the connections of a {@link JDBCDatabase} so that at most a bounded number of connections is open at any time.
+ * A connection is leased for the duration of a transaction and released to the pool when the transaction is committed or rolled back.
+ * Idle connections are reused in last-in-first-out order so that surplus connections remain idle long enough to be evicted.
+ * The eviction runs whenever a connection is leased or released and periodically on a daemon thread so that idle connections are closed even if the pool is no longer used.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class JDBCConnectionPool {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Stores the database whose connections are pooled.
+     */
+    private final @Nonnull JDBCDatabase database;
+    
+    /**
+     * Stores the maximum number of connections that can be leased at the same time.
+     */
+    private final @Positive int size;
+    
+    /**
+     * Stores the number of milliseconds after which an idle connection is closed (zero disables the eviction).
+     */
+    private final @NonNegative long idleTimeout;
+    
+    /**
+     * Stores the number of milliseconds after which a connection is closed once it is no longer leased (zero disables the limit).
+     */
+    private final @NonNegative long maxLifetime;
+    
+    /**
+     * Stores the number of milliseconds that a thread waits for a connection before the lease fails.
+     */
+    private final @NonNegative long waitTimeout;
+    
+    /**
+     * Limits the number of connections that are leased at the same time.
+     */
+    private final @Nonnull Semaphore permits;
+    
+    /**
+     * Stores the idle connections with the most recently released connection at the head.
+     */
+    private final @Nonnull LinkedBlockingDeque<@Nonnull JDBCConnection> idleConnections = new LinkedBlockingDeque<>();
+    
+    /**
+     * Stores the executor which evicts the idle connections periodically or null if neither the idle timeout nor the maximum lifetime is set.
+     */
+    private final @Nullable ScheduledThreadPoolExecutor evictor;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected JDBCConnectionPool(@Nonnull JDBCDatabase database, @Positive int size, @NonNegative long idleTimeout, @NonNegative long maxLifetime, @NonNegative long waitTimeout) {
+        this.database = database;
+        this.size = size;
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+        this.waitTimeout = waitTimeout;
+        this.permits = new Semaphore(size, true);
+        
+        final long timeout = idleTimeout > 0 && maxLifetime > 0 ? Math.min(idleTimeout, maxLifetime) : Math.max(idleTimeout, maxLifetime);
+        if (timeout > 0) {
+            this.evictor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                final @Nonnull Thread thread = new Thread(runnable, "JDBCConnectionPool");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Checking twice per timeout closes a connection at the latest one and a half timeouts after it became idle or expired.
+            final long period = Math.max(1, timeout / 2);
+            evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong leases = new AtomicLong();
+    
+    /**
+     * Returns the number of connections that were leased from this pool.
+     */
+    @Pure
+    public long getLeases() {
+        return leases.get();
+    }
+    
+    private final @Nonnull AtomicLong openedConnections = new AtomicLong();
+    
+    /**
+     * Returns the number of connections that were opened by this pool.
+     */
+    @Pure
+    public long getOpenedConnections() {
+        return openedConnections.get();
+    }
+    
+    private final @Nonnull AtomicLong closedConnections = new AtomicLong();
+    
+    /**
+     * Returns the number of connections that were closed by this pool because they were idle for too long, exceeded their lifetime or were discarded.
+     */
+    @Pure
+    public long getClosedConnections() {
+        return closedConnections.get();
+    }
+    
+    private final @Nonnull AtomicLong waits = new AtomicLong();
+    
+    /**
+     * Returns the number of leases that had to wait for another thread to release a connection.
+     */
+    @Pure
+    public long getWaits() {
+        return waits.get();
+    }
+    
+    private final @Nonnull AtomicLong timeouts = new AtomicLong();
+    
+    /**
+     * Returns the number of leases that failed because no connection was released within the wait timeout.
+     */
+    @Pure
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+    
+    private final @Nonnull AtomicLong totalWaitTime = new AtomicLong();
+    
+    /**
+     * Returns the total number of nanoseconds that threads waited for a connection.
+     */
+    @Pure
+    public long getTotalWaitTime() {
+        return totalWaitTime.get();
+    }
+    
+    private final @Nonnull AtomicLong maximumWaitTime = new AtomicLong();
+    
+    /**
+     * Returns the longest number of nanoseconds that a thread waited for a connection.
+     */
+    @Pure
+    public long getMaximumWaitTime() {
+        return maximumWaitTime.get();
+    }
+    
+    /**
+     * Returns the maximum number of connections that can be leased at the same time.
+     */
+    @Pure
+    public @Positive int getSize() {
+        return size;
+    }
+    
+    /**
+     * Returns the number of connections that are currently leased.
+     */
+    @Pure
+    public @NonNegative int getActiveConnections() {
+        return size - permits.availablePermits();
+    }
+    
+    /**
+     * Returns the number of connections that are currently idle in this pool.
+     */
+    @Pure
+    public @NonNegative int getIdleConnections() {
+        return idleConnections.size();
+    }
+    
+    /* -------------------------------------------------- Expiration -------------------------------------------------- */
+    
+    /**
+     * Returns whether the given connection has exceeded its maximum lifetime.
+     */
+    @Pure
+    private boolean isExpired(@Nonnull JDBCConnection connection, long now) {
+        return maxLifetime > 0 && now - connection.getCreationTime() >= maxLifetime;
+    }
+    
+    /**
+     * Returns whether the given connection has been idle for too long.
+     */
+    @Pure
+    private boolean isIdleTooLong(@Nonnull JDBCConnection connection, long now) {
+        return idleTimeout > 0 && now - connection.getLastUseTime() >= idleTimeout;
+    }
+    
+    /**
+     * Closes the given connection and counts it as closed.
+     */
+    @Impure
+    private void close(@Nonnull JDBCConnection connection) {
+        closedConnections.incrementAndGet();
+        connection.close();
+    }
+    
+    /**
+     * Closes the idle connections which have been idle for too long or have exceeded their lifetime.
+     * Since idle connections are reused from the head, the longest idle connections are at the tail.
+     */
+    @Impure
+    public void evictIdleConnections() {
+        final long now = System.currentTimeMillis();
+        @Nullable JDBCConnection connection;
+        while ((connection = idleConnections.pollLast()) != null) {
+            if (isIdleTooLong(connection, now) || isExpired(connection, now)) {
+                Log.debugging("Closing an idle database connection of the pool.");
+                close(connection);
+            } else {
+                if (!idleConnections.offerLast(connection)) { close(connection); }
+                break;
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Leasing -------------------------------------------------- */
+    
+    /**
+     * Leases a connection from this pool, waiting at most the wait timeout until another thread releases one.
+     * The returned connection has to be {@link #release(JDBCConnection) released} or {@link #discard(JDBCConnection) discarded} exactly once.
+     * 
+     * @throws DatabaseException if no connection became available in time or a new connection could not be opened.
+     */
+    @Impure
+    public @Nonnull JDBCConnection lease() throws DatabaseException {
+        if (!permits.tryAcquire()) {
+            waits.incrementAndGet();
+            final long start = System.nanoTime();
+            final boolean acquired;
+            try {
+                acquired = permits.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS);
+            } catch (@Nonnull InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw DatabaseExceptionBuilder.withCause(new SQLTimeoutException("The thread was interrupted while waiting for a database connection.", exception)).build();
+            }
+            final long waitTime = System.nanoTime() - start;
+            totalWaitTime.addAndGet(waitTime);
+            maximumWaitTime.accumulateAndGet(waitTime, Math::max);
+            if (!acquired) {
+                timeouts.incrementAndGet();
+                throw DatabaseExceptionBuilder.withCause(new SQLTimeoutException("No database connection became available within " + waitTimeout + " milliseconds.")).build();
+            }
+        }
+        
+        try {
+            evictIdleConnections();
+            final long now = System.currentTimeMillis();
+            @Nullable JDBCConnection connection;
+            while ((connection = idleConnections.pollFirst()) != null) {
+                if (isIdleTooLong(connection, now) || isExpired(connection, now)) { close(connection); }
+                else { break; }
+            }
+            if (connection == null) {
+                connection = database.openConnection();
+                openedConnections.incrementAndGet();
+            }
+            leases.incrementAndGet();
+            return connection;
+        } catch (@Nonnull DatabaseException | RuntimeException exception) {
+            permits.release();
+            throw exception;
+        }
+    }
+    
+    /**
+     * Returns the given connection to this pool or closes it if it has exceeded its lifetime.
+     */
+    @Impure
+    public void release(@Nonnull JDBCConnection connection) {
+        try {
+            if (isExpired(connection, System.currentTimeMillis())) {
+                close(connection);
+            } else {
+                connection.touch();
+                idleConnections.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+        evictIdleConnections();
+    }
+    
+    /**
+     * Closes the given connection instead of returning it to this pool, which opens a new connection when needed.
+     */
+    @Impure
+    public void discard(@Nonnull JDBCConnection connection) {
+        try {
+            close(connection);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Stops the periodic eviction and closes all idle connections of this pool.
+     * Connections that are currently leased are closed when they are released after their lifetime or discarded.
+     */
+    @Impure
+    public void close() {
+        if (evictor != null) { evictor.shutdownNow(); }
+        @Nullable JDBCConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) { close(connection); }
+    }
+    
+}
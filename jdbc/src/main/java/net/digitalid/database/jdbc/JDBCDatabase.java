@@ -21,6 +21,7 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -30,21 +31,31 @@ import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.collaboration.annotations.TODO;
 import net.digitalid.utility.collaboration.enumerations.Author;
+import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.conversion.enumerations.Representation;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.logging.Log;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.annotations.sql.SQLStatement;
 import net.digitalid.database.annotations.transaction.Committing;
 import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.dialect.SQLDialect;
+import net.digitalid.database.dialect.identifier.SQLIdentifier;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
 import net.digitalid.database.dialect.statement.SQLStatementNode;
 import net.digitalid.database.dialect.statement.SQLTableStatement;
 import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
 import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatement;
 import net.digitalid.database.dialect.statement.schema.SQLCreateSchemaStatement;
 import net.digitalid.database.dialect.statement.select.SQLSelectStatement;
 import net.digitalid.database.dialect.statement.table.create.SQLCreateTableStatement;
@@ -53,9 +64,13 @@ import net.digitalid.database.dialect.statement.update.SQLUpdateStatement;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.SQLTemplate;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+import net.digitalid.database.interfaces.encoder.SQLBulkEncoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
 import net.digitalid.database.jdbc.encoder.JDBCActionEncoderBuilder;
+import net.digitalid.database.jdbc.encoder.JDBCCopyEncoder;
+import net.digitalid.database.jdbc.encoder.JDBCIgnoringActionEncoderBuilder;
 import net.digitalid.database.jdbc.encoder.JDBCQueryEncoderBuilder;
 
 /**
@@ -93,56 +108,232 @@ public abstract class JDBCDatabase extends Database {
     @Pure
     protected abstract @Nullable String getPassword();
     
+    /**
+     * Returns the maximum number of idle prepared statements that are cached per connection (zero disables the cache).
+     */
+    @Pure
+    @Default("64")
+    protected abstract @NonNegative int getStatementCacheSize();
+    
+    /**
+     * Returns the number of rows that are fetched at once by queries that are not streamed (zero leaves the decision to the driver).
+     * PostgreSQL only uses cursors for a positive fetch size because the connection is not in auto-commit mode.
+     */
+    @Pure
+    @Default("0")
+    protected abstract @NonNegative int getFetchSize();
+    
+    /**
+     * Returns the fetch size which is used for streamed queries.
+     * The MySQL driver streams the rows one by one only with {@link Integer#MIN_VALUE}, while other drivers stream with any positive fetch size.
+     */
+    @Pure
+    @Default("1000")
+    protected abstract int getStreamingFetchSize();
+    
+    /**
+     * Returns the type of the result sets of queries as defined in {@link ResultSet}.
+     * Streaming requires the default {@link ResultSet#TYPE_FORWARD_ONLY}, which is also the only type supported by SQLite.
+     */
+    @Pure
+    @Default("java.sql.ResultSet.TYPE_FORWARD_ONLY")
+    protected abstract int getResultSetType();
+    
+    /**
+     * Returns the maximum number of pooled connections that can be used by transactions at the same time.
+     * Zero disables the pool, in which case every thread keeps its own connection.
+     */
+    @Pure
+    @Default("0")
+    protected abstract @NonNegative int getPoolSize();
+    
+    /**
+     * Returns the number of milliseconds after which an idle pooled connection is closed (zero disables the eviction).
+     */
+    @Pure
+    @Default("600_000")
+    protected abstract @NonNegative long getPoolIdleTimeout();
+    
+    /**
+     * Returns the number of milliseconds after which a pooled connection is closed once it is released (zero disables the limit).
+     */
+    @Pure
+    @Default("1_800_000")
+    protected abstract @NonNegative long getPoolMaxLifetime();
+    
+    /**
+     * Returns the number of milliseconds that a transaction waits for a pooled connection before it fails.
+     */
+    @Pure
+    @Default("30_000")
+    protected abstract @NonNegative long getPoolWaitTimeout();
+    
+    /**
+     * Returns the policy that determines when the connection is validated with an extra round trip before a transaction begins.
+     */
+    @Pure
+    @Default("net.digitalid.database.jdbc.JDBCValidationPolicy.AFTER_IDLE")
+    protected abstract @Nonnull JDBCValidationPolicy getValidationPolicy();
+    
+    /**
+     * Returns the number of milliseconds that a connection has to be unused before it is validated with the policy {@link JDBCValidationPolicy#AFTER_IDLE}.
+     */
+    @Pure
+    @Default("5_000")
+    protected abstract @NonNegative long getValidationIdleThreshold();
+    
+    /**
+     * Returns the number of milliseconds that the committer thread waits for several committing transactions to share a physical commit (zero disables group commit).
+     * If group commit is enabled, transactions modify the database on a dedicated writer connection one after the other, while they only read on their own or pooled connections.
+     * When a transaction modifies the database for the first time, it ends the snapshot of its reading connection, after which it also reads on the writer connection.
+     * 
+     * @see JDBCGroupCommitter
+     */
+    @Pure
+    @Default("0")
+    protected abstract @NonNegative long getGroupCommitWindow();
+    
     /* -------------------------------------------------- Connection -------------------------------------------------- */
     
+    @Pure
+    @Override
+    protected @Nonnull JDBCTransaction createTransaction(boolean explicit) {
+        return JDBCTransactionBuilder.withExplicit(explicit).build();
+    }
+    
     /**
-     * Stores the database connection of the current thread.
+     * Returns the transaction which is bound to the current thread and stores its connection.
+     * If the pool is enabled, a transaction only has a connection while it is active.
+     * Otherwise, the implicit transaction of a thread keeps its connection across commits.
      */
-    private final @Nonnull ThreadLocal<Connection> connection = new ThreadLocal<>();
+    @Impure
+    private @Nonnull JDBCTransaction getJDBCTransaction() {
+        return (JDBCTransaction) getCurrentTransaction();
+    }
     
     /**
-     * Sets a new database connection for the current thread.
+     * Opens a new database connection with its own statement cache.
      */
     @Impure
     @NonCommitting
     @TODO(task = "The isolation was Connection.TRANSACTION_READ_COMMITTED but SQLite does not support this.", date = "2017-08-28", author = Author.KASPAR_ETTER)
-    private void setConnection() throws DatabaseException {
+    protected @Nonnull JDBCConnection openConnection() throws DatabaseException {
         try {
             final @Nonnull Connection connection;
             if (getUser() == null || getPassword() == null) { connection = DriverManager.getConnection(getURL()); }
             else { connection = DriverManager.getConnection(getURL(), getUser(), getPassword()); }
             connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
             connection.setAutoCommit(false);
-            this.connection.set(connection);
+            final @Nullable JDBCStatementCache statementCache = getStatementCacheSize() > 0 ? JDBCStatementCacheBuilder.withConnection(connection).withCapacity(getStatementCacheSize()).withResultSetType(getResultSetType()).build() : null;
+            return JDBCConnectionBuilder.withConnection(connection).withStatementCache(statementCache).build();
         } catch (@Nonnull SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
     }
     
     /**
-     * Checks that the database connection of the current thread is valid.
+     * Sets a valid database connection for the current thread, which is leased from the pool if it is enabled.
+     * The connection is only validated with an extra round trip if the {@link #getValidationPolicy() validation policy} requires it.
      */
     @Impure
     @NonCommitting
     private void checkConnection() throws DatabaseException {
-        final @Nullable Connection connection = this.connection.get();
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        final @Nullable JDBCConnectionPool pool = getPool();
+        @Nullable JDBCConnection connection = transaction.getConnection();
         if (connection == null) {
-            setConnection();
-        } else {
+            connection = pool != null ? pool.lease() : openConnection();
+            transaction.setConnection(connection);
+        }
+        if (getValidationPolicy().requiresValidation(connection, getValidationIdleThreshold())) {
+            validations.incrementAndGet();
+            boolean valid;
             try {
-                if (!connection.isValid(1)) {
-                    Log.information("The database connection is no longer valid and is thus replaced.");
+                valid = connection.getConnection().isValid(1);
+            } catch (@Nonnull SQLException exception) {
+                Log.warning("Could not validate the database connection.", exception);
+                valid = false;
+            }
+            if (valid) {
+                connection.touch();
+            } else {
+                Log.information("The database connection is no longer valid and is thus replaced.");
+                replacements.incrementAndGet();
+                transaction.setConnection(null);
+                if (pool != null) {
+                    pool.discard(connection);
+                    transaction.setConnection(pool.lease());
+                } else {
                     connection.close();
-                    setConnection();
+                    transaction.setConnection(openConnection());
                 }
+            }
+        }
+    }
+    
+    /**
+     * Ends the current transaction and returns its connection to the pool if the pool is enabled.
+     * Without a pool, the connection of an explicit transaction is closed because the transaction might never be used again.
+     * 
+     * @param failed whether the transaction was rolled back, after which the connection is validated before it is used again.
+     */
+    @Impure
+    private void releaseConnection(boolean failed) {
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        transaction.setActive(false);
+        final @Nullable JDBCConnection connection = transaction.getConnection();
+        if (connection != null) {
+            connection.touch();
+            connection.setFailed(failed);
+            final @Nullable JDBCConnectionPool pool = getPool();
+            if (pool != null) {
+                transaction.setConnection(null);
+                pool.release(connection);
+            } else if (transaction.isExplicit()) {
+                transaction.setConnection(null);
+                connection.close();
+            }
+        }
+    }
+    
+    /**
+     * Returns the connection on which the transaction which is bound to the current thread executes its statements.
+     * This is the writer connection if the transaction has already modified the database with group commit enabled.
+     */
+    @Impure
+    @NonCommitting
+    private @Nonnull JDBCConnection getJDBCConnection() throws DatabaseException {
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        if (!transaction.isActive()) { begin(); }
+        final @Nullable JDBCConnection writer = transaction.getWriter();
+        return writer != null ? writer : transaction.getConnection();
+    }
+    
+    /**
+     * Returns the connection on which the transaction which is bound to the current thread executes statements that modify the database.
+     * If group commit is enabled, the transaction leases the writer connection when it first modifies the database and keeps it until it is committed or rolled back.
+     * Before the writer connection is leased, the reading connection of the transaction is committed so that it holds no locks which the physical commit of the writer connection would have to wait for.
+     * As a consequence, the reads of the transaction before its first modification do not belong to the snapshot in which it modifies the database.
+     */
+    @Impure
+    @NonCommitting
+    private @Nonnull JDBCConnection getModifyingJDBCConnection() throws DatabaseException {
+        final @Nullable JDBCGroupCommitter groupCommitter = getGroupCommitter();
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        if (groupCommitter != null && transaction.getWriter() == null) {
+            if (!transaction.isActive()) { begin(); }
+            try {
+                getConnection().commit();
             } catch (@Nonnull SQLException exception) {
                 throw DatabaseExceptionBuilder.withCause(exception).build();
             }
+            transaction.setWriter(groupCommitter.lease());
         }
+        return getJDBCConnection();
     }
     
     /**
-     * Returns the database connection of the current thread.
+     * Returns the database connection of the transaction which is bound to the current thread.
      * <p>
      * <em>Important:</em> Do not commit, roll back or close
      * the current connection as it will be reused later on!
@@ -150,18 +341,111 @@ public abstract class JDBCDatabase extends Database {
     @Impure
     @NonCommitting
     protected @Nonnull Connection getConnection() throws DatabaseException {
-        if (!transaction.get()) { begin(); }
-        return connection.get();
+        return getJDBCConnection().getConnection();
     }
     
-    /* -------------------------------------------------- Transactions -------------------------------------------------- */
+    /**
+     * Returns the database connection on which the transaction which is bound to the current thread modifies the database.
+     * <p>
+     * <em>Important:</em> Do not commit, roll back or close
+     * the current connection as it will be reused later on!
+     */
+    @Impure
+    @NonCommitting
+    protected @Nonnull Connection getModifyingConnection() throws DatabaseException {
+        return getModifyingJDBCConnection().getConnection();
+    }
+    
+    /* -------------------------------------------------- Validation -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong validations = new AtomicLong();
+    
+    /**
+     * Returns the number of times that a connection was validated with an extra round trip before a transaction.
+     */
+    @Pure
+    public long getValidations() {
+        return validations.get();
+    }
+    
+    private final @Nonnull AtomicLong replacements = new AtomicLong();
+    
+    /**
+     * Returns the number of connections that were replaced because they were no longer valid.
+     */
+    @Pure
+    public long getReplacements() {
+        return replacements.get();
+    }
+    
+    /* -------------------------------------------------- Pool -------------------------------------------------- */
+    
+    /**
+     * Stores the connection pool, which is created when it is first needed.
+     */
+    private volatile @Nullable JDBCConnectionPool pool;
     
     /**
-     * Stores whether the database connection of the current thread is in a transaction.
+     * Returns the connection pool of this database or null if the pool is disabled.
+     * The pool provides the lease, wait and eviction counters.
      */
-    private final @Nonnull ThreadLocal<Boolean> transaction = new ThreadLocal<Boolean>() {
-        @Override protected @Nonnull Boolean initialValue() { return Boolean.FALSE; }
-    };
+    @Pure
+    public @Nullable JDBCConnectionPool getPool() {
+        if (getPoolSize() == 0) { return null; }
+        @Nullable JDBCConnectionPool pool = this.pool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = this.pool;
+                if (pool == null) {
+                    pool = JDBCConnectionPoolBuilder.withDatabase(this).withSize(getPoolSize()).withIdleTimeout(getPoolIdleTimeout()).withMaxLifetime(getPoolMaxLifetime()).withWaitTimeout(getPoolWaitTimeout()).build();
+                    this.pool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+    
+    /* -------------------------------------------------- Group Commit -------------------------------------------------- */
+    
+    /**
+     * Stores the group committer, which is created when it is first needed.
+     */
+    private volatile @Nullable JDBCGroupCommitter groupCommitter;
+    
+    /**
+     * Returns the group committer of this database or null if group commit is disabled.
+     * The group committer provides the commit counters and the average group size.
+     */
+    @Pure
+    public @Nullable JDBCGroupCommitter getGroupCommitter() {
+        if (getGroupCommitWindow() == 0) { return null; }
+        @Nullable JDBCGroupCommitter groupCommitter = this.groupCommitter;
+        if (groupCommitter == null) {
+            synchronized (this) {
+                groupCommitter = this.groupCommitter;
+                if (groupCommitter == null) {
+                    groupCommitter = JDBCGroupCommitterBuilder.withDatabase(this).withWindow(getGroupCommitWindow()).withWaitTimeout(getPoolWaitTimeout()).build();
+                    this.groupCommitter = groupCommitter;
+                }
+            }
+        }
+        return groupCommitter;
+    }
+    
+    /* -------------------------------------------------- Statement Cache -------------------------------------------------- */
+    
+    /**
+     * Returns the prepared statement cache of the database connection of the current transaction or null if caching is disabled or there is no connection yet.
+     * The cache provides the hit and miss counters of the connection.
+     */
+    @Pure
+    public @Nullable JDBCStatementCache getStatementCache() {
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        final @Nullable JDBCConnection connection = transaction.getWriter() != null ? transaction.getWriter() : transaction.getConnection();
+        return connection != null ? connection.getStatementCache() : null;
+    }
+    
+    /* -------------------------------------------------- Transactions -------------------------------------------------- */
     
     /**
      * Begins a new transaction.
@@ -170,20 +454,41 @@ public abstract class JDBCDatabase extends Database {
     @NonCommitting
     protected void begin() throws DatabaseException {
         checkConnection();
-        transaction.set(Boolean.TRUE);
+        getJDBCTransaction().setActive(true);
     }
     
     @Impure
     @Override
     @Committing
     protected void commitTransaction() throws DatabaseException {
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        if (!transaction.isActive()) {
+            // A transaction that executed no statement has no connection to commit.
+            runRunnablesAfterCommit();
+            return;
+        }
+        final @Nullable JDBCGroupCommitter groupCommitter = getGroupCommitter();
+        if (groupCommitter != null && transaction.getWriter() != null) {
+            transaction.setWriter(null);
+            try {
+                groupCommitter.commit();
+            } catch (@Nonnull DatabaseException exception) {
+                rollbackTransaction();
+                throw exception;
+            }
+            // The own or pooled connection of the transaction was already committed before the writer connection was leased.
+            releaseConnection(false);
+            runRunnablesAfterCommit();
+            Log.debugging("Committed the current transaction as part of a group.");
+            return;
+        }
         try {
             getConnection().commit();
-            transaction.set(Boolean.FALSE);
+            releaseConnection(false);
             runRunnablesAfterCommit();
             Log.debugging("Committed the current transaction.");
         } catch (@Nonnull SQLException exception) {
-            runRunnablesAfterRollback();
+            rollbackTransaction();
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
     }
@@ -192,13 +497,24 @@ public abstract class JDBCDatabase extends Database {
     @Override
     @Committing
     protected void rollbackTransaction() {
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        if (!transaction.isActive()) {
+            runRunnablesAfterRollback();
+            return;
+        }
+        final @Nullable JDBCGroupCommitter groupCommitter = getGroupCommitter();
+        if (groupCommitter != null && transaction.getWriter() != null) {
+            transaction.setWriter(null);
+            groupCommitter.rollback();
+            Log.debugging("Rolled back the modifications of the current transaction on the writer connection.");
+        }
         try {
             getConnection().rollback();
-            transaction.set(Boolean.FALSE);
             Log.debugging("Rolled back the current transaction.");
         } catch (@Nonnull SQLException | DatabaseException exception) {
             Log.error("Could not roll back the transaction.", exception);
         } finally {
+            releaseConnection(true);
             runRunnablesAfterRollback();
         }
     }
@@ -206,7 +522,21 @@ public abstract class JDBCDatabase extends Database {
     @Override
     @PureWithSideEffects
     public void close() throws Exception {
-        getConnection().close();
+        final @Nonnull JDBCTransaction transaction = getJDBCTransaction();
+        final @Nullable JDBCConnection connection = transaction.getConnection();
+        final @Nullable JDBCGroupCommitter groupCommitter = this.groupCommitter;
+        if (groupCommitter != null && transaction.getWriter() != null) {
+            transaction.setWriter(null);
+            groupCommitter.rollback();
+        }
+        if (connection != null) {
+            transaction.setConnection(null);
+            transaction.setActive(false);
+            connection.close();
+        }
+        if (groupCommitter != null) { groupCommitter.close(); }
+        final @Nullable JDBCConnectionPool pool = this.pool;
+        if (pool != null) { pool.close(); }
     }
     
     /* -------------------------------------------------- Execution -------------------------------------------------- */
@@ -217,7 +547,7 @@ public abstract class JDBCDatabase extends Database {
         final @Nonnull String statementAsString = SQLDialect.unparse(statement, unit);
         Log.debugging("Executing $", statementAsString);
         try {
-            getConnection().createStatement().execute(statementAsString);
+            getModifyingJDBCConnection().getConnection().createStatement().execute(statementAsString);
         } catch (@Nonnull SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
@@ -244,24 +574,59 @@ public abstract class JDBCDatabase extends Database {
     /* -------------------------------------------------- Encoder -------------------------------------------------- */
     
     /**
-     * Prepares the given statement at the given site.
+     * Prepares the given statement on the given connection.
+     * If the statement cache is enabled, the statement is leased from the cache of the connection.
      */
     @Pure
     @TODO(task = "Removed the parameters ResultSet.TYPE_SCROLL_INSENSITIVE and ResultSet.CONCUR_READ_ONLY from the prepare statement methods because SQLite only supports TYPE_FORWARD_ONLY cursors.", date = "2017-08-28", author = Author.KASPAR_ETTER)
-    protected @Nonnull PreparedStatement prepare(@Nonnull String statement) throws DatabaseException {
+    private @Nonnull PreparedStatement prepare(@Nonnull JDBCConnection connection, @Nonnull String statement) throws DatabaseException {
+        final @Nullable JDBCStatementCache statementCache = connection.getStatementCache();
+        if (statementCache != null) { return statementCache.prepare(statement); }
         try {
-            return getConnection().prepareStatement(statement);
+            return JDBCStatementCache.prepare(connection.getConnection(), statement, getResultSetType());
         } catch (@Nonnull SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
     }
     
+    /**
+     * Prepares the given statement at the given site.
+     * If the statement cache is enabled, the statement is leased from the cache of the current connection.
+     */
+    @Pure
+    protected @Nonnull PreparedStatement prepare(@Nonnull String statement) throws DatabaseException {
+        return prepare(getJDBCConnection(), statement);
+    }
+    
+    /**
+     * Returns whether the conflicts of the given statement have to be ignored by the encoder because the dialect renders it as a plain insert.
+     */
+    @Pure
+    private static boolean isIgnoringConflicts(@Nonnull SQLTableStatement tableStatement) {
+        return tableStatement instanceof SQLInsertStatement && ((SQLInsertStatement) tableStatement).getConflictClause() == SQLConflictClause.IGNORE && !SQLDialect.instance.get().supportsIgnoringConflicts();
+    }
+    
+    /**
+     * Returns an action encoder for the given prepared statement, which ignores the violated constraints itself if the given flag is set.
+     */
+    @Pure
+    private static @Nonnull SQLActionEncoder getActionEncoder(@Nonnull PreparedStatement preparedStatement, @Nullable JDBCStatementCache statementCache, boolean ignoringConflicts) {
+        // FIXME: The converter generator does not recognize that the sql encoder implementation already implements the methods getRepresentation(), isHashing(), isCompressing() and isEncryption().
+        if (ignoringConflicts) { return JDBCIgnoringActionEncoderBuilder.withPreparedStatement(preparedStatement).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).withStatementCache(statementCache).build(); }
+        else { return JDBCActionEncoderBuilder.withPreparedStatement(preparedStatement).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).withStatementCache(statementCache).build(); }
+    }
+    
     @PureWithSideEffects
-    private @Nonnull SQLActionEncoder getEncoderForStatement(@Nonnull SQLTableStatement tableStatement, @Nonnull Unit unit) throws DatabaseException {
-        final @Nonnull String statementAsString = SQLDialect.unparse(tableStatement, unit);
+    private @Nonnull SQLActionEncoder getActionEncoder(@Nonnull @SQLStatement String statementAsString, boolean ignoringConflicts) throws DatabaseException {
         Log.debugging("Executing $", statementAsString);
-        // FIXME: The converter generator does not recognize that the sql encoder implementation already implements the methods getRepresentation(), isHashing(), isCompressing() and isEncryption().
-        return JDBCActionEncoderBuilder.withPreparedStatement(prepare(statementAsString)).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).build();
+        final @Nonnull JDBCConnection connection = getModifyingJDBCConnection();
+        final @Nonnull PreparedStatement preparedStatement = prepare(connection, statementAsString);
+        return getActionEncoder(preparedStatement, connection.getStatementCache(), ignoringConflicts);
+    }
+    
+    @PureWithSideEffects
+    private @Nonnull SQLActionEncoder getEncoderForStatement(@Nonnull SQLTableStatement tableStatement, @Nonnull Unit unit) throws DatabaseException {
+        return getActionEncoder(SQLDialect.unparse(tableStatement, unit), isIgnoringConflicts(tableStatement));
     }
     
     @Override
@@ -270,6 +635,12 @@ public abstract class JDBCDatabase extends Database {
         return getEncoderForStatement(insertStatement, unit);
     }
     
+    @Override
+    @PureWithSideEffects
+    public @Nonnull SQLActionEncoder getEncoder(@Nonnull SQLUpsertStatement upsertStatement, @Nonnull Unit unit) throws DatabaseException {
+        return getEncoderForStatement(upsertStatement, unit);
+    }
+    
     @Override
     @PureWithSideEffects
     public @Nonnull SQLActionEncoder getEncoder(@Nonnull SQLUpdateStatement updateStatement, @Nonnull Unit unit) throws DatabaseException {
@@ -282,14 +653,86 @@ public abstract class JDBCDatabase extends Database {
         return getEncoderForStatement(deleteStatement, unit);
     }
     
+    @PureWithSideEffects
+    private @Nonnull SQLQueryEncoder getQueryEncoder(@Nonnull @SQLStatement String statementAsString) throws DatabaseException {
+        Log.debugging("Executing $", statementAsString);
+        final @Nonnull JDBCConnection connection = getJDBCConnection();
+        // FIXME: The converter generator does not recognize that the sql encoder implementation already implements the methods getRepresentation(), isHashing(), isCompressing() and isEncryption().
+        final @Nonnull PreparedStatement preparedStatement = prepare(connection, statementAsString);
+        return JDBCQueryEncoderBuilder.withPreparedStatement(preparedStatement).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).withStatementCache(connection.getStatementCache()).withFetchSize(getFetchSize()).withStreamingFetchSize(getStreamingFetchSize()).build();
+    }
+    
     @Override
     @PureWithSideEffects
     public @Nonnull SQLQueryEncoder getEncoder(@Nonnull SQLSelectStatement selectStatement, @Nonnull Unit unit) throws DatabaseException {
-        final @Nonnull StringBuilder sqlStringBuilder = new StringBuilder();
-        selectStatement.unparse(SQLDialect.instance.get(), unit, sqlStringBuilder);
-        Log.debugging("Executing $", sqlStringBuilder.toString());
-        // FIXME: The converter generator does not recognize that the sql encoder implementation already implements the methods getRepresentation(), isHashing(), isCompressing() and isEncryption().
-        return JDBCQueryEncoderBuilder.withPreparedStatement(prepare(sqlStringBuilder.toString())).withRepresentation(Representation.INTERNAL).withHashing(false).withCompressing(false).withEncrypting(false).build();
+        return getQueryEncoder(SQLDialect.unparse(selectStatement, unit));
+    }
+    
+    /* -------------------------------------------------- Bulk Loading -------------------------------------------------- */
+    
+    /**
+     * Returns an SQL bulk encoder which loads the rows with the binary COPY command if the configured dialect {@link SQLDialect#supportsBinaryCopy() supports} it and null otherwise.
+     */
+    @Override
+    @NonCommitting
+    @PureWithSideEffects
+    public @Nullable SQLBulkEncoder getBulkEncoder(@Nonnull SQLInsertStatement insertStatement, @Nonnull Unit unit) throws DatabaseException {
+        final @Nonnull SQLDialect dialect = SQLDialect.instance.get();
+        if (!dialect.supportsBinaryCopy()) { return null; }
+        
+        final @Nonnull StringBuilder string = new StringBuilder("COPY ");
+        dialect.unparse(insertStatement.getTable(), unit, string);
+        string.append(" (");
+        dialect.unparse(insertStatement.getColumns(), unit, string);
+        string.append(") FROM STDIN (FORMAT binary)");
+        Log.debugging("Executing $", string);
+        return JDBCCopyEncoder.open(getModifyingJDBCConnection().getConnection(), string.toString());
+    }
+    
+    /* -------------------------------------------------- Templates -------------------------------------------------- */
+    
+    @Override
+    @PureWithSideEffects
+    public @Nonnull SQLActionEncoder getActionEncoder(@Nonnull SQLTemplate<? extends SQLTableStatement> template) throws DatabaseException {
+        if (template.isCurrent()) { return getActionEncoder(template.getString(), isIgnoringConflicts(template.getStatement())); }
+        else { return getActionEncoder(SQLDialect.unparse(template.getStatement(), template.getUnit()), isIgnoringConflicts(template.getStatement())); }
+    }
+    
+    /**
+     * Appends a {@code RETURNING} clause to the statement if the dialect supports it and requests the generated keys from the driver otherwise.
+     * The latter statements are prepared without the statement cache because the driver has to know the returned columns when preparing them.
+     * Since drivers return only the key that the database generated for an inserted row (which is the row ID on SQLite) regardless of the requested columns,
+     * a single column that the insert statement does not set itself can be returned in that case.
+     * 
+     * @require SQLDialect.instance.get().supportsReturningClause() || columns.size() == 1 : "Without a returning clause, only the generated key of an inserted row can be returned.";
+     */
+    @Override
+    @PureWithSideEffects
+    public @Nonnull SQLActionEncoder getReturningEncoder(@Nonnull SQLTemplate<? extends SQLTableStatement> template, @Nonnull @NonNullableElements @NonEmpty ImmutableList<? extends SQLColumnName> columns) throws DatabaseException {
+        final @Nonnull SQLDialect dialect = SQLDialect.instance.get();
+        final @Nonnull SQLTableStatement tableStatement = template.getStatement();
+        Require.that(dialect.supportsReturningClause() || tableStatement instanceof SQLInsertStatement && columns.size() == 1 && !((SQLInsertStatement) tableStatement).getColumns().map(SQLIdentifier::getString).contains(columns.getFirst().getString())).orThrow("Without a RETURNING clause, only the generated key of an inserted row can be returned but $ was requested for $.", columns.map(SQLIdentifier::getString).join(), template.getString());
+        final @Nonnull @SQLStatement String statement = template.isCurrent() ? template.getString() : SQLDialect.unparse(tableStatement, template.getUnit());
+        if (dialect.supportsReturningClause()) {
+            final @Nonnull StringBuilder string = new StringBuilder(statement).append(" RETURNING ");
+            dialect.unparse(columns, template.getUnit(), string);
+            return getActionEncoder(string.toString(), isIgnoringConflicts(template.getStatement()));
+        } else {
+            Log.debugging("Executing $ returning the generated keys", statement);
+            try {
+                final @Nonnull PreparedStatement preparedStatement = getModifyingJDBCConnection().getConnection().prepareStatement(statement, columns.map(SQLIdentifier::getString).toArray(new String[0]));
+                return getActionEncoder(preparedStatement, null, isIgnoringConflicts(template.getStatement()));
+            } catch (@Nonnull SQLException exception) {
+                throw DatabaseExceptionBuilder.withCause(exception).build();
+            }
+        }
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public @Nonnull SQLQueryEncoder getQueryEncoder(@Nonnull SQLTemplate<? extends SQLSelectStatement> template) throws DatabaseException {
+        if (template.isCurrent()) { return getQueryEncoder(template.getString()); }
+        else { return getQueryEncoder(SQLDialect.unparse(template.getStatement(), template.getUnit())); }
     }
     
     /* -------------------------------------------------- Testing -------------------------------------------------- */
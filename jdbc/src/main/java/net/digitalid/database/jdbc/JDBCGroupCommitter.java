@@ -0,0 +1,494 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+
+/**
+ * This class lets the transactions of a {@link JDBCDatabase} that commit within a short window share a single physical commit on a dedicated writer connection.
+ * A transaction leases the writer connection only when it modifies the database for the first time, which is why transactions that only read are never serialized.
+ * Each transaction starts at a savepoint on the writer connection so that it can be rolled back without affecting the others.
+ * When a transaction commits, it joins the current group and releases the writer connection to the next transaction.
+ * A dedicated committer thread waits for the window to elapse and then commits the writer connection on behalf of all transactions in the group.
+ * <p>
+ * Every wait is bounded by the wait timeout: If a committing transaction is not committed in time, for example because the transaction which holds
+ * the writer connection waits for a lock of the committing transaction, the committing transaction gives up and its changes are rolled back.
+ * Since the changes of the transactions in a group are stacked on the writer connection, the transactions that joined the group later are rolled back as well.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class JDBCGroupCommitter {
+    
+    /* -------------------------------------------------- Member -------------------------------------------------- */
+    
+    /**
+     * A member is a transaction that has joined a group.
+     */
+    private static class Member {
+        
+        /**
+         * Stores the savepoint at which the changes of this member begin on the writer connection.
+         */
+        private final @Nonnull Savepoint savepoint;
+        
+        /**
+         * Stores whether this member stopped waiting for the physical commit, which is why its changes have to be rolled back.
+         * This field is guarded by the group committer.
+         */
+        private boolean abandoned = false;
+        
+        /**
+         * Stores the exception because of which the changes of this member were rolled back or null if they were committed.
+         */
+        private volatile @Nullable SQLException failure;
+        
+        private Member(@Nonnull Savepoint savepoint) {
+            this.savepoint = savepoint;
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Group -------------------------------------------------- */
+    
+    /**
+     * A group consists of the transactions that share the same physical commit.
+     */
+    private static class Group {
+        
+        /**
+         * Stores the members of this group in the order in which their changes were made on the writer connection.
+         * This field is guarded by the group committer.
+         */
+        private final @Nonnull List<@Nonnull Member> members = new ArrayList<>();
+        
+        /**
+         * Stores whether the committer thread has taken this group, after which its members can no longer be abandoned.
+         * This field is guarded by the group committer.
+         */
+        private boolean taken = false;
+        
+        /**
+         * Stores the exception because of which the writer connection was rolled back entirely while this group was formed or null otherwise.
+         * This field is guarded by the group committer.
+         */
+        private @Nullable SQLException failure;
+        
+        /**
+         * Counts down once the members of this group have been committed or rolled back.
+         */
+        private final @Nonnull CountDownLatch completion = new CountDownLatch(1);
+        
+        /**
+         * Waits at most the given number of milliseconds until this group has been completed without reacting to interrupts.
+         * 
+         * @return whether this group has been completed.
+         */
+        @Impure
+        private boolean await(@NonNegative long timeout) {
+            final long deadline = System.currentTimeMillis() + timeout;
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return completion.await(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    } catch (@Nonnull InterruptedException exception) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) { Thread.currentThread().interrupt(); }
+            }
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Stores the database whose transactions are committed in groups.
+     */
+    private final @Nonnull JDBCDatabase database;
+    
+    /**
+     * Stores the number of milliseconds that the committer thread waits for further transactions before it commits a group.
+     */
+    private final @Positive long window;
+    
+    /**
+     * Stores the number of milliseconds that a transaction waits for the writer connection or the physical commit before it fails.
+     */
+    private final @NonNegative long waitTimeout;
+    
+    /**
+     * Ensures that the writer connection is used by only one transaction or the committer thread at a time.
+     * A semaphore is used instead of a lock because an explicit transaction can be committed on another thread than the one on which it leased the writer connection.
+     */
+    private final @Nonnull Semaphore permit = new Semaphore(1, true);
+    
+    /**
+     * Stores the writer connection, which is opened when it is first needed.
+     * This field is only accessed by the holder of the permit.
+     */
+    private @Nullable JDBCConnection writer;
+    
+    /**
+     * Stores the savepoint at which the transaction that holds the permit began.
+     * This field is only accessed by the holder of the permit.
+     */
+    private @Nullable Savepoint savepoint;
+    
+    /**
+     * Stores the group which the next committing transaction joins or null if a new group has to be started.
+     * This field is guarded by this group committer.
+     */
+    private @Nullable Group currentGroup;
+    
+    /**
+     * Stores the thread which performs the physical commits or null if it has not yet been started.
+     * This field is guarded by this group committer.
+     */
+    private @Nullable Thread committer;
+    
+    /**
+     * Stores whether this group committer has been closed.
+     * This field is guarded by this group committer.
+     */
+    private boolean closed = false;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected JDBCGroupCommitter(@Nonnull JDBCDatabase database, @Positive long window, @NonNegative long waitTimeout) {
+        this.database = database;
+        this.window = window;
+        this.waitTimeout = waitTimeout;
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong commits = new AtomicLong();
+    
+    /**
+     * Returns the number of transactions that were committed successfully.
+     */
+    @Pure
+    public long getCommits() {
+        return commits.get();
+    }
+    
+    private final @Nonnull AtomicLong physicalCommits = new AtomicLong();
+    
+    /**
+     * Returns the number of physical commits of the writer connection, each of which committed one or more transactions.
+     */
+    @Pure
+    public long getPhysicalCommits() {
+        return physicalCommits.get();
+    }
+    
+    private final @Nonnull AtomicLong failures = new AtomicLong();
+    
+    /**
+     * Returns the number of committing transactions that failed because their changes could not be committed in time or the physical commit of their group failed.
+     */
+    @Pure
+    public long getFailures() {
+        return failures.get();
+    }
+    
+    /**
+     * Returns the average number of transactions that shared a physical commit.
+     */
+    @Pure
+    public double getAverageGroupSize() {
+        final long physicalCommits = this.physicalCommits.get();
+        return physicalCommits == 0 ? 0 : (double) commits.get() / physicalCommits;
+    }
+    
+    /* -------------------------------------------------- Leasing -------------------------------------------------- */
+    
+    /**
+     * Acquires the permit to use the writer connection, waiting at most the wait timeout until it is released.
+     * 
+     * @return whether the permit has been acquired.
+     */
+    @Impure
+    private boolean tryAcquire() {
+        try {
+            return permit.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * Leases the writer connection to a transaction that modifies the database for the first time.
+     * The transaction has to be {@link #commit() committed} or {@link #rollback() rolled back} exactly once afterwards.
+     * The writer connection is replaced if the last physical commit on it failed, it is no longer valid and no changes of a group are pending on it.
+     * 
+     * @throws DatabaseException if the writer connection did not become available in time or could not be opened.
+     */
+    @Impure
+    public @Nonnull JDBCConnection lease() throws DatabaseException {
+        if (!tryAcquire()) { throw DatabaseExceptionBuilder.withCause(new SQLTimeoutException("The writer connection did not become available within " + waitTimeout + " milliseconds.")).build(); }
+        try {
+            @Nullable JDBCConnection writer = this.writer;
+            final boolean pending;
+            synchronized (this) { pending = currentGroup != null; }
+            if (writer != null && writer.isFailed() && !pending && !writer.getConnection().isValid(1)) {
+                Log.information("The writer connection is no longer valid and is thus replaced.");
+                writer.close();
+                writer = null;
+            }
+            if (writer == null) {
+                writer = database.openConnection();
+                this.writer = writer;
+            }
+            savepoint = writer.getConnection().setSavepoint();
+            return writer;
+        } catch (@Nonnull SQLException exception) {
+            permit.release();
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        } catch (@Nonnull DatabaseException | RuntimeException exception) {
+            permit.release();
+            throw exception;
+        }
+    }
+    
+    /* -------------------------------------------------- Rollback -------------------------------------------------- */
+    
+    /**
+     * Rolls back the changes of the transaction that holds the writer connection and releases the writer connection.
+     * If the changes cannot be rolled back to the savepoint, the writer connection and thus the current group are rolled back entirely.
+     */
+    @Impure
+    public void rollback() {
+        final @Nonnull JDBCConnection writer = this.writer;
+        try {
+            writer.getConnection().rollback(savepoint);
+        } catch (@Nonnull SQLException exception) {
+            Log.error("Could not roll back to the savepoint of the transaction, which is why its group is rolled back as well.", exception);
+            synchronized (this) {
+                if (currentGroup != null) { currentGroup.failure = exception; }
+            }
+            try {
+                writer.getConnection().rollback();
+            } catch (@Nonnull SQLException rollbackException) {
+                Log.error("Could not roll back the writer connection.", rollbackException);
+                writer.setFailed(true);
+            }
+        } finally {
+            savepoint = null;
+            permit.release();
+        }
+    }
+    
+    /* -------------------------------------------------- Commit -------------------------------------------------- */
+    
+    /**
+     * Commits the changes of the transaction that holds the writer connection together with the changes of the other transactions in its group.
+     * This method releases the writer connection immediately and returns after the physical commit of the group or after the wait timeout.
+     * 
+     * @throws DatabaseException if the changes of the transaction were rolled back because the physical commit of its group failed or did not happen in time.
+     */
+    @Impure
+    public void commit() throws DatabaseException {
+        final @Nonnull Member member = new Member(savepoint);
+        final @Nonnull Group group;
+        synchronized (this) {
+            if (currentGroup == null) { currentGroup = new Group(); }
+            group = currentGroup;
+            group.members.add(member);
+            if (committer == null) {
+                committer = new Thread(this::run, "JDBCGroupCommitter");
+                committer.setDaemon(true);
+                committer.start();
+            }
+            notifyAll();
+        }
+        savepoint = null;
+        permit.release();
+        
+        if (!group.await(window + waitTimeout)) {
+            final boolean abandoned;
+            synchronized (this) {
+                abandoned = !group.taken;
+                member.abandoned = abandoned;
+            }
+            // Once the committer thread has taken the group, only its physical commit remains to be awaited.
+            if (abandoned) {
+                failures.incrementAndGet();
+                throw DatabaseExceptionBuilder.withCause(new SQLTimeoutException("The changes of the transaction are rolled back because they were not committed within " + (window + waitTimeout) + " milliseconds.")).build();
+            } else if (!group.await(waitTimeout)) {
+                failures.incrementAndGet();
+                throw DatabaseExceptionBuilder.withCause(new SQLTimeoutException("The physical commit of the group did not finish within " + waitTimeout + " milliseconds, which is why the outcome of the transaction is unknown.")).build();
+            }
+        }
+        
+        final @Nullable SQLException failure = member.failure;
+        if (failure != null) {
+            failures.incrementAndGet();
+            throw DatabaseExceptionBuilder.withCause(failure).build();
+        }
+        commits.incrementAndGet();
+    }
+    
+    /* -------------------------------------------------- Committer -------------------------------------------------- */
+    
+    /**
+     * Commits the groups one after the other until this group committer is closed.
+     * A group is committed once the window has elapsed and the writer connection is no longer used by a transaction.
+     */
+    @Impure
+    private void run() {
+        while (true) {
+            synchronized (this) {
+                while (currentGroup == null && !closed) {
+                    try {
+                        wait(waitTimeout);
+                    } catch (@Nonnull InterruptedException exception) {
+                        Log.warning("The committer thread was interrupted while waiting for a group.", exception);
+                    }
+                }
+                if (currentGroup == null) { return; }
+            }
+            try {
+                Thread.sleep(window);
+            } catch (@Nonnull InterruptedException exception) {
+                Log.warning("The committer thread was interrupted while waiting for the window to elapse.", exception);
+            }
+            if (!tryAcquire()) {
+                Log.warning("The writer connection was not released within " + waitTimeout + " milliseconds, which is why the current group is committed later.");
+                continue;
+            }
+            try {
+                complete();
+            } finally {
+                permit.release();
+            }
+        }
+    }
+    
+    /**
+     * Commits the current group up to its first abandoned member and rolls back the changes of the remaining members.
+     * This method may only be called by the committer thread while it holds the permit.
+     */
+    @Impure
+    private void complete() {
+        final @Nonnull Group group;
+        final @Nonnull List<@Nonnull Member> members;
+        int committed;
+        synchronized (this) {
+            group = currentGroup;
+            currentGroup = null;
+            group.taken = true;
+            members = group.members;
+            committed = 0;
+            while (committed < members.size() && !members.get(committed).abandoned) { committed += 1; }
+        }
+        final @Nonnull JDBCConnection writer = this.writer;
+        @Nullable SQLException failure = group.failure;
+        if (failure == null && committed < members.size()) {
+            try {
+                writer.getConnection().rollback(members.get(committed).savepoint);
+            } catch (@Nonnull SQLException exception) {
+                failure = exception;
+            }
+        }
+        if (failure == null) {
+            try {
+                writer.getConnection().commit();
+                physicalCommits.incrementAndGet();
+                writer.setFailed(false);
+                Log.debugging("Committed a group of " + committed + " transactions.");
+            } catch (@Nonnull SQLException exception) {
+                failure = exception;
+            }
+        }
+        if (failure != null) {
+            writer.setFailed(true);
+            try {
+                writer.getConnection().rollback();
+            } catch (@Nonnull SQLException exception) {
+                Log.error("Could not roll back the writer connection.", exception);
+            }
+        }
+        writer.touch();
+        final @Nonnull SQLException abandonment = failure != null ? failure : new SQLException("The transaction was rolled back because a transaction that joined its group earlier stopped waiting for the physical commit.");
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).failure = i < committed ? failure : abandonment;
+        }
+        group.completion.countDown();
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Commits the pending group, stops the committer thread and closes the writer connection once no transaction uses it or the wait timeout elapsed.
+     */
+    @Impure
+    public void close() {
+        final @Nullable Thread committer;
+        synchronized (this) {
+            closed = true;
+            committer = this.committer;
+            notifyAll();
+        }
+        if (committer != null) {
+            try {
+                committer.join(window + 2 * waitTimeout);
+            } catch (@Nonnull InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        final boolean acquired = tryAcquire();
+        if (!acquired) { Log.warning("The writer connection is closed while it is still used by a transaction."); }
+        try {
+            final @Nullable JDBCConnection writer = this.writer;
+            if (writer != null) {
+                this.writer = null;
+                writer.close();
+            }
+        } finally {
+            if (acquired) { permit.release(); }
+        }
+    }
+    
+}
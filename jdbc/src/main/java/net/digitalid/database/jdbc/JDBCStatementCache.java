@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.sql.SQLStatement;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+
+/**
+ * This class caches the prepared statements of a single connection in least recently used (LRU) order.
+ * A statement is leased to at most one encoder at a time and only returns to the cache when it is {@link #release(PreparedStatement) released}.
+ * Since a connection is only used by one thread at a time, this class does not need to be thread-safe.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class JDBCStatementCache {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Stores the connection on which the statements are prepared.
+     */
+    private final @Nonnull Connection connection;
+    
+    /**
+     * Stores the maximum number of idle statements that are kept open.
+     */
+    private final @NonNegative int capacity;
+    
+    /**
+     * Stores the type of the result sets of the prepared statements.
+     */
+    private final int resultSetType;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected JDBCStatementCache(@Nonnull Connection connection, @NonNegative int capacity, int resultSetType) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.resultSetType = resultSetType;
+    }
+    
+    /* -------------------------------------------------- Statements -------------------------------------------------- */
+    
+    /**
+     * Stores the idle statements with their unparsed SQL string as the key in access order.
+     */
+    private final @Nonnull LinkedHashMap<@Nonnull String, @Nonnull PreparedStatement> idleStatements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                close(eldest.getValue());
+                return true;
+            } else {
+                return false;
+            }
+        }
+    };
+    
+    /**
+     * Stores the unparsed SQL strings of the statements that are currently leased.
+     */
+    private final @Nonnull IdentityHashMap<@Nonnull PreparedStatement, @Nonnull String> leasedStatements = new IdentityHashMap<>();
+    
+    /* -------------------------------------------------- Counters -------------------------------------------------- */
+    
+    private long hits = 0;
+    
+    /**
+     * Returns the number of statements that were reused from this cache.
+     */
+    @Pure
+    public long getHits() {
+        return hits;
+    }
+    
+    private long misses = 0;
+    
+    /**
+     * Returns the number of statements that had to be prepared because they were not in this cache.
+     */
+    @Pure
+    public long getMisses() {
+        return misses;
+    }
+    
+    private long evictions = 0;
+    
+    /**
+     * Returns the number of statements that were closed because the capacity of this cache was exceeded.
+     */
+    @Pure
+    public long getEvictions() {
+        return evictions;
+    }
+    
+    /* -------------------------------------------------- Leasing -------------------------------------------------- */
+    
+    /**
+     * Returns a prepared statement for the given SQL string, which is either reused from this cache with cleared parameters and batch or prepared anew.
+     * The returned statement is leased to the caller until it is {@link #release(PreparedStatement) released} again.
+     */
+    @Impure
+    public @Nonnull PreparedStatement prepare(@Nonnull @SQLStatement String statement) throws DatabaseException {
+        try {
+            @Nullable PreparedStatement preparedStatement = idleStatements.remove(statement);
+            if (preparedStatement != null && !preparedStatement.isClosed()) {
+                preparedStatement.clearParameters();
+                preparedStatement.clearBatch();
+                hits++;
+            } else {
+                preparedStatement = prepare(connection, statement, resultSetType);
+                misses++;
+            }
+            leasedStatements.put(preparedStatement, statement);
+            return preparedStatement;
+        } catch (@Nonnull SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Returns the given statement to this cache so that it can be reused by later calls to {@link #prepare(java.lang.String)}.
+     * Statements that were not leased from this cache are ignored, and a statement is closed if an equivalent statement is already idle.
+     */
+    @Impure
+    public void release(@Nonnull PreparedStatement preparedStatement) {
+        final @Nullable String statement = leasedStatements.remove(preparedStatement);
+        if (statement != null) {
+            if (capacity == 0 || idleStatements.containsKey(statement)) { close(preparedStatement); }
+            else { idleStatements.put(statement, preparedStatement); }
+        }
+    }
+    
+    /**
+     * Prepares the given statement on the given connection with read-only result sets of the given type.
+     * Forward-only statements are prepared without specifying the type because some drivers like the one of SQLite do not support the other method.
+     */
+    @Pure
+    public static @Nonnull PreparedStatement prepare(@Nonnull Connection connection, @Nonnull @SQLStatement String statement, int resultSetType) throws SQLException {
+        if (resultSetType == ResultSet.TYPE_FORWARD_ONLY) { return connection.prepareStatement(statement); }
+        else { return connection.prepareStatement(statement, resultSetType, ResultSet.CONCUR_READ_ONLY); }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Closes the given statement and logs a failure instead of propagating it.
+     */
+    @PureWithSideEffects
+    private static void close(@Nonnull PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.close();
+        } catch (@Nonnull SQLException exception) {
+            Log.warning("Could not close a cached prepared statement.", exception);
+        }
+    }
+    
+    /**
+     * Closes all idle statements and forgets the leased ones.
+     * This method has to be called before the underlying connection is closed or replaced.
+     */
+    @Impure
+    public void clear() {
+        final @Nonnull Iterator<PreparedStatement> iterator = idleStatements.values().iterator();
+        while (iterator.hasNext()) {
+            close(iterator.next());
+            iterator.remove();
+        }
+        leasedStatements.clear();
+    }
+    
+}
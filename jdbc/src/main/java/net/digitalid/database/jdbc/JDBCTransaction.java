@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.interfaces.Transaction;
+
+/**
+ * This class stores the connection of a transaction on a {@link JDBCDatabase} and whether the transaction has begun.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class JDBCTransaction extends Transaction {
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected JDBCTransaction(boolean explicit) {
+        super(explicit);
+    }
+    
+    /* -------------------------------------------------- Connection -------------------------------------------------- */
+    
+    private volatile @Nullable JDBCConnection connection;
+    
+    /**
+     * Returns the connection of this transaction or null if it has none.
+     * If the pool is enabled, a transaction only has a connection while it is active.
+     */
+    @Pure
+    public @Nullable JDBCConnection getConnection() {
+        return connection;
+    }
+    
+    /**
+     * Sets the connection of this transaction.
+     */
+    @Impure
+    void setConnection(@Nullable JDBCConnection connection) {
+        this.connection = connection;
+    }
+    
+    /* -------------------------------------------------- Writer -------------------------------------------------- */
+    
+    private volatile @Nullable JDBCConnection writer;
+    
+    /**
+     * Returns the writer connection which this transaction leased from the {@link JDBCGroupCommitter group committer} when it first modified the database or null if it has not modified the database yet.
+     * Once a transaction has a writer connection, all its statements are executed on the writer connection so that it reads its own changes.
+     */
+    @Pure
+    public @Nullable JDBCConnection getWriter() {
+        return writer;
+    }
+    
+    /**
+     * Sets the writer connection of this transaction.
+     */
+    @Impure
+    void setWriter(@Nullable JDBCConnection writer) {
+        this.writer = writer;
+    }
+    
+    /* -------------------------------------------------- Active -------------------------------------------------- */
+    
+    private volatile boolean active = false;
+    
+    /**
+     * Returns whether this transaction has begun and has not yet been committed or rolled back.
+     */
+    @Pure
+    public boolean isActive() {
+        return active;
+    }
+    
+    /**
+     * Sets whether this transaction has begun and has not yet been committed or rolled back.
+     */
+    @Impure
+    void setActive(boolean active) {
+        this.active = active;
+    }
+    
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Stateless;
+
+/**
+ * The validation policy determines when a {@link JDBCDatabase} checks with an extra round trip whether its connection is still valid before a transaction begins.
+ * An invalid connection is closed and replaced by a new one.
+ */
+@Stateless
+public enum JDBCValidationPolicy {
+    
+    /**
+     * The connection is validated at the beginning of every transaction.
+     */
+    ALWAYS {
+        
+        @Pure
+        @Override
+        public boolean requiresValidation(@Nonnull JDBCConnection connection, @NonNegative long idleThreshold) {
+            return true;
+        }
+        
+    },
+    
+    /**
+     * The connection is only validated if it has not been used for longer than the idle threshold or if its last transaction was rolled back.
+     */
+    AFTER_IDLE {
+        
+        @Pure
+        @Override
+        public boolean requiresValidation(@Nonnull JDBCConnection connection, @NonNegative long idleThreshold) {
+            return connection.isFailed() || System.currentTimeMillis() - connection.getLastUseTime() >= idleThreshold;
+        }
+        
+    },
+    
+    /**
+     * The connection is only validated if its last transaction was rolled back.
+     */
+    AFTER_FAILURE {
+        
+        @Pure
+        @Override
+        public boolean requiresValidation(@Nonnull JDBCConnection connection, @NonNegative long idleThreshold) {
+            return connection.isFailed();
+        }
+        
+    };
+    
+    /**
+     * Returns whether the given connection has to be validated according to this policy with the given idle threshold in milliseconds.
+     */
+    @Pure
+    public abstract boolean requiresValidation(@Nonnull JDBCConnection connection, @NonNegative long idleThreshold);
+    
+}
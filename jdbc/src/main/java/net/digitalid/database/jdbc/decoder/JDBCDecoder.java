@@ -17,10 +17,13 @@ package net.digitalid.database.jdbc.decoder;
 
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.contracts.Ensure;
@@ -32,6 +35,7 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.SQLDecoder;
+import net.digitalid.database.jdbc.JDBCStatementCache;
 import net.digitalid.database.jdbc.encoder.JDBCEncoder;
 
 /**
@@ -51,6 +55,11 @@ public abstract class JDBCDecoder extends SQLDecoder {
      */
     private final @Nonnull ResultSet resultSet;
     
+    /**
+     * The statement cache to which the statement of the result set is released when this decoder is closed or null if the statement is not cached.
+     */
+    private final @Nullable JDBCStatementCache statementCache;
+    
     /* -------------------------------------------------- Column Index -------------------------------------------------- */
     
     /**
@@ -63,8 +72,9 @@ public abstract class JDBCDecoder extends SQLDecoder {
     /**
      * Constructs a new JDBC decoder
      */
-    protected JDBCDecoder(@Nonnull ResultSet resultSet) {
+    protected JDBCDecoder(@Nonnull ResultSet resultSet, @Nullable JDBCStatementCache statementCache) {
         this.resultSet = resultSet;
+        this.statementCache = statementCache;
         this.columnIndex = 1;
     }
     
@@ -98,7 +108,9 @@ public abstract class JDBCDecoder extends SQLDecoder {
     @Override
     public void close() throws DatabaseException {
         try {
+            final @Nullable Statement statement = resultSet.getStatement();
             resultSet.close();
+            if (statementCache != null && statement instanceof PreparedStatement) { statementCache.release((PreparedStatement) statement); }
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
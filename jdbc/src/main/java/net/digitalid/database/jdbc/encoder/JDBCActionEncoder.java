@@ -16,17 +16,35 @@
 package net.digitalid.database.jdbc.encoder;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.interfaces.SQLDecoder;
 import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
+import net.digitalid.database.jdbc.JDBCStatementCache;
+import net.digitalid.database.jdbc.decoder.JDBCDecoderBuilder;
 
 /**
  * The JDBC action encoder collects values for the prepared statement and executes it.
@@ -35,12 +53,12 @@ import net.digitalid.database.interfaces.encoder.SQLActionEncoder;
 @GenerateSubclass
 public class JDBCActionEncoder extends JDBCEncoderSubclass implements SQLActionEncoder {
     
-    protected JDBCActionEncoder(@Nonnull PreparedStatement preparedStatement) {
-        super(preparedStatement);
+    protected JDBCActionEncoder(@Nonnull PreparedStatement preparedStatement, @Nullable JDBCStatementCache statementCache) {
+        super(preparedStatement, statementCache);
     }
     
     /* -------------------------------------------------- Execution -------------------------------------------------- */
-       
+    
     @Override
     @PureWithSideEffects
     public void execute() throws DatabaseException {
@@ -48,6 +66,82 @@ public class JDBCActionEncoder extends JDBCEncoderSubclass implements SQLActionE
             preparedStatement.execute();
         } catch (SQLException exception) {
             throw DatabaseExceptionBuilder.withCause(exception).build();
+        } finally {
+            release();
+        }
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public @NonNegative int executeWithCount() throws DatabaseException {
+        try {
+            return preparedStatement.executeUpdate();
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        } finally {
+            release();
+        }
+    }
+    
+    /**
+     * The returned columns are read from the result set of the statement if it has a {@code RETURNING} clause and from its generated keys otherwise.
+     * Since statements which return generated keys are not cached, the prepared statement is closed afterwards.
+     */
+    @Override
+    @PureWithSideEffects
+    public @Capturable <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull @NonNullableElements @NonFrozen FreezableList<TYPE> executeReturning(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws DatabaseException, RecoveryException {
+        try {
+            final @Nonnull ResultSet resultSet = preparedStatement.execute() ? preparedStatement.getResultSet() : preparedStatement.getGeneratedKeys();
+            final @Nonnull SQLDecoder decoder = JDBCDecoderBuilder.withResultSet(resultSet).withStatementCache(null).build();
+            try {
+                final @Nonnull FreezableArrayList<TYPE> results = FreezableArrayList.withNoElements();
+                while (decoder.moveToNextRow()) { results.add(decoder.decodeObject(converter, provided)); }
+                return results;
+            } finally {
+                decoder.close();
+            }
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        } finally {
+            close();
+        }
+    }
+    
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    /**
+     * Stores the number of rows that were added to the batch but not yet executed.
+     */
+    private @NonNegative int pendingRows = 0;
+    
+    @Pure
+    @Override
+    public boolean supportsBatching() {
+        return true;
+    }
+    
+    @Impure
+    @Override
+    public void addBatch() throws DatabaseException {
+        try {
+            preparedStatement.addBatch();
+            resetParameterIndex();
+            pendingRows++;
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public @Nonnull int[] executeBatch() throws DatabaseException {
+        if (pendingRows == 0) { return new int[0]; }
+        try {
+            return preparedStatement.executeBatch();
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        } finally {
+            pendingRows = 0;
         }
     }
     
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc.encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.size.MaxSize;
+import net.digitalid.utility.validation.annotations.size.Size;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.sql.SQLStatement;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.interfaces.encoder.SQLBulkEncoder;
+import net.digitalid.database.interfaces.encoder.SQLEncoderImplementation;
+
+/**
+ * The JDBC copy encoder encodes rows in the binary format of the PostgreSQL COPY command and streams them to the server.
+ * The rows are buffered and written to the server in chunks of at least {@link #CHUNK_SIZE} bytes.
+ * The values are written in the binary representation of the column types of the PostgreSQL dialect.
+ * Only the {@link #open(Connection, String) opening} of an encoder requires the PostgreSQL driver.
+ */
+@Mutable
+public class JDBCCopyEncoder extends SQLEncoderImplementation implements SQLBulkEncoder {
+    
+    /* -------------------------------------------------- Sink -------------------------------------------------- */
+    
+    /**
+     * A sink receives the encoded rows of a COPY command, which it forwards to the server.
+     */
+    @Mutable
+    interface Sink {
+        
+        /**
+         * Writes the given number of bytes from the start of the given array.
+         */
+        @Impure
+        public void write(@Nonnull byte[] bytes, @NonNegative int length) throws SQLException;
+        
+        /**
+         * Ends the COPY command and returns the number of loaded rows.
+         */
+        @Impure
+        public @NonNegative long end() throws SQLException;
+        
+        /**
+         * Returns whether the COPY command has neither been ended nor cancelled.
+         */
+        @Pure
+        public boolean isActive();
+        
+        /**
+         * Cancels the COPY command so that none of the rows are loaded.
+         */
+        @Impure
+        public void cancel() throws SQLException;
+        
+    }
+    
+    /* -------------------------------------------------- Constants -------------------------------------------------- */
+    
+    /**
+     * Stores the signature with which the binary format of the COPY command starts.
+     */
+    private static final @Nonnull byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+    
+    /**
+     * Stores the number of bytes after which the buffered rows are written to the server.
+     */
+    static final int CHUNK_SIZE = 65_536;
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull Sink sink;
+    
+    /**
+     * Stores the rows which have not yet been written to the server.
+     */
+    private final @Nonnull ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_SIZE);
+    
+    /**
+     * Stores the fields of the current row, which are preceded by their number once the row is complete.
+     */
+    private final @Nonnull ByteArrayOutputStream row = new ByteArrayOutputStream();
+    
+    private int numberOfFields = 0;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    JDBCCopyEncoder(@Nonnull Sink sink) {
+        this.sink = sink;
+        buffer.write(SIGNATURE, 0, SIGNATURE.length);
+        writeInt(buffer, 0); // Flags
+        writeInt(buffer, 0); // Length of the header extension
+    }
+    
+    /**
+     * Starts the given COPY statement on the given connection of the PostgreSQL driver and returns an encoder for the rows to be loaded.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Nonnull JDBCCopyEncoder open(@Nonnull Connection connection, @Nonnull @SQLStatement String statement) throws DatabaseException {
+        try {
+            return new JDBCCopyEncoder(JDBCCopyInSink.open(connection, statement));
+        } catch (@Nonnull SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Writing -------------------------------------------------- */
+    
+    @Impure
+    private static void writeShort(@Nonnull ByteArrayOutputStream stream, int value) {
+        stream.write(value >>> 8);
+        stream.write(value);
+    }
+    
+    @Impure
+    private static void writeInt(@Nonnull ByteArrayOutputStream stream, int value) {
+        writeShort(stream, value >>> 16);
+        writeShort(stream, value);
+    }
+    
+    @Impure
+    private static void writeLong(@Nonnull ByteArrayOutputStream stream, long value) {
+        writeInt(stream, (int) (value >>> 32));
+        writeInt(stream, (int) value);
+    }
+    
+    /**
+     * Starts a new field of the given length in the current row.
+     */
+    @Impure
+    private void startField(int length) {
+        writeInt(row, length);
+        numberOfFields++;
+    }
+    
+    /**
+     * Writes the given bytes as a field of the current row.
+     */
+    @Impure
+    private void writeField(@Nonnull byte[] bytes) {
+        startField(bytes.length);
+        row.write(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Writes the buffered rows to the server.
+     */
+    @Impure
+    private void flush() throws DatabaseException {
+        try {
+            sink.write(buffer.toByteArray(), buffer.size());
+            buffer.reset();
+        } catch (@Nonnull SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Null -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeNull(int typeCode) throws DatabaseException {
+        startField(-1);
+    }
+    
+    /* -------------------------------------------------- Values -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void encodeBoolean(boolean value) throws DatabaseException {
+        startField(1);
+        row.write(value ? 1 : 0);
+    }
+    
+    /**
+     * Encodes the given value as a SMALLINT because PostgreSQL has no single-byte integer type.
+     */
+    @Impure
+    @Override
+    public void encodeInteger08(byte value) throws DatabaseException {
+        encodeInteger16(value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger16(short value) throws DatabaseException {
+        startField(2);
+        writeShort(row, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger32(int value) throws DatabaseException {
+        startField(4);
+        writeInt(row, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger64(long value) throws DatabaseException {
+        startField(8);
+        writeLong(row, value);
+    }
+    
+    @Impure
+    @Override
+    public void encodeInteger(@Nonnull BigInteger value) throws DatabaseException {
+        writeField(value.toByteArray());
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal32(float value) throws DatabaseException {
+        startField(4);
+        writeInt(row, Float.floatToIntBits(value));
+    }
+    
+    @Impure
+    @Override
+    public void encodeDecimal64(double value) throws DatabaseException {
+        startField(8);
+        writeLong(row, Double.doubleToLongBits(value));
+    }
+    
+    @Impure
+    @Override
+    public void encodeString01(char value) throws DatabaseException {
+        writeField(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Impure
+    @Override
+    public void encodeString64(@Nonnull @MaxSize(64) String value) throws DatabaseException {
+        writeField(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Impure
+    @Override
+    public void encodeString(@Nonnull String value) throws DatabaseException {
+        writeField(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary128(@Nonnull @Size(16) byte[] bytes) throws DatabaseException {
+        writeField(bytes);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary256(@Nonnull @Size(32) byte[] bytes) throws DatabaseException {
+        writeField(bytes);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinary(@Nonnull byte[] bytes) throws DatabaseException {
+        writeField(bytes);
+    }
+    
+    @Impure
+    @Override
+    public void encodeBinaryStream(@Nonnull InputStream stream, int length) throws DatabaseException {
+        startField(length);
+        final @Nonnull byte[] chunk = new byte[Math.min(length, 8_192)];
+        int remaining = length;
+        while (remaining > 0) {
+            final int read;
+            try {
+                read = stream.read(chunk, 0, Math.min(remaining, chunk.length));
+            } catch (@Nonnull IOException exception) {
+                throw DatabaseExceptionBuilder.withCause(new SQLException("Could not read the binary stream.", exception)).build();
+            }
+            if (read < 0) { throw DatabaseExceptionBuilder.withCause(new SQLException("The binary stream ended " + remaining + " bytes before the given length.")).build(); }
+            row.write(chunk, 0, read);
+            remaining -= read;
+        }
+    }
+    
+    /* -------------------------------------------------- Rows -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void addRow() throws DatabaseException {
+        writeShort(buffer, numberOfFields);
+        row.writeTo(buffer);
+        row.reset();
+        numberOfFields = 0;
+        if (buffer.size() >= CHUNK_SIZE) { flush(); }
+    }
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    @Override
+    @PureWithSideEffects
+    public @NonNegative long execute() throws DatabaseException {
+        writeShort(buffer, -1); // Trailer
+        flush();
+        try {
+            return sink.end();
+        } catch (@Nonnull SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Aborts the loading of the rows if the encoder has not been executed successfully.
+     */
+    @Impure
+    @Override
+    public void close() throws DatabaseException {
+        try {
+            if (sink.isActive()) { sink.cancel(); }
+        } catch (@Nonnull SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+}
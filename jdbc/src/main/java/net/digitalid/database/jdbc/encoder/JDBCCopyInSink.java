@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc.encoder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.sql.SQLStatement;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * This class forwards the rows of a {@link JDBCCopyEncoder} to the copy API of the PostgreSQL driver.
+ * It is kept separate from the encoder so that the driver is only loaded when rows are actually copied.
+ */
+@Mutable
+class JDBCCopyInSink implements JDBCCopyEncoder.Sink {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull CopyIn copyIn;
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    private JDBCCopyInSink(@Nonnull CopyIn copyIn) {
+        this.copyIn = copyIn;
+    }
+    
+    /**
+     * Starts the given COPY statement on the given connection, which has to wrap a connection of the PostgreSQL driver.
+     */
+    @Impure
+    @NonCommitting
+    static @Nonnull JDBCCopyInSink open(@Nonnull Connection connection, @Nonnull @SQLStatement String statement) throws SQLException {
+        return new JDBCCopyInSink(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(statement));
+    }
+    
+    /* -------------------------------------------------- Sink -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public void write(@Nonnull byte[] bytes, @NonNegative int length) throws SQLException {
+        copyIn.writeToCopy(bytes, 0, length);
+    }
+    
+    @Impure
+    @Override
+    public @NonNegative long end() throws SQLException {
+        return copyIn.endCopy();
+    }
+    
+    @Pure
+    @Override
+    public boolean isActive() {
+        return copyIn.isActive();
+    }
+    
+    @Impure
+    @Override
+    public void cancel() throws SQLException {
+        copyIn.cancelCopy();
+    }
+    
+}
@@ -21,6 +21,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
@@ -32,6 +33,7 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.encoder.SQLEncoderImplementation;
+import net.digitalid.database.jdbc.JDBCStatementCache;
 
 /**
  * This classes uses the JDBC prepared statement to collect the values.
@@ -46,6 +48,11 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
      */
     protected final @Nonnull PreparedStatement preparedStatement;
     
+    /**
+     * The statement cache from which the prepared statement was leased or null if the statement is not cached.
+     */
+    protected final @Nullable JDBCStatementCache statementCache;
+    
     /**
      * The parameter index tracks at which position we are inserting the parameter. It is 1-indexed.
      */
@@ -54,10 +61,29 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     /* -------------------------------------------------- Constructor -------------------------------------------------- */
     
     /**
-     * Builds a new JDBC encoder based on a prepared statement object.
+     * Builds a new JDBC encoder based on a prepared statement object, which is released to the given statement cache instead of being closed.
      */
-    protected JDBCEncoder(@Nonnull PreparedStatement preparedStatement) {
+    protected JDBCEncoder(@Nonnull PreparedStatement preparedStatement, @Nullable JDBCStatementCache statementCache) {
         this.preparedStatement = preparedStatement;
+        this.statementCache = statementCache;
+    }
+    
+    /* -------------------------------------------------- Release -------------------------------------------------- */
+    
+    /**
+     * Returns the prepared statement to the statement cache so that it can be reused by subsequent executions.
+     */
+    @Impure
+    protected void release() {
+        if (statementCache != null) { statementCache.release(preparedStatement); }
+    }
+    
+    /**
+     * Resets the parameter index so that the parameters of the next row can be encoded.
+     */
+    @Impure
+    protected void resetParameterIndex() {
+        this.parameterIndex = 1;
     }
     
     /* -------------------------------------------------- SQL Encoder -------------------------------------------------- */
@@ -75,6 +101,10 @@ public abstract class JDBCEncoder extends SQLEncoderImplementation {
     @Impure
     @Override
     public void close() throws DatabaseException {
+        if (statementCache != null) {
+            release();
+            return;
+        }
         try {
             preparedStatement.close();
         } catch (SQLException exception) {
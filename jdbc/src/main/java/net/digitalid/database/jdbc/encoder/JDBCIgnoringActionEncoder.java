@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc.encoder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.freezable.annotations.NonFrozen;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.jdbc.JDBCStatementCache;
+
+/**
+ * The JDBC ignoring action encoder executes an insert statement whose conflicts the dialect cannot ignore and ignores them itself.
+ * The statement is executed within a savepoint, to which the connection is rolled back if the statement violates an integrity constraint.
+ * Such encoders insert a single row per statement, which is why they do not support batching.
+ */
+@GenerateBuilder
+@GenerateSubclass
+public class JDBCIgnoringActionEncoder extends JDBCActionEncoder {
+    
+    protected JDBCIgnoringActionEncoder(@Nonnull PreparedStatement preparedStatement, @Nullable JDBCStatementCache statementCache) {
+        super(preparedStatement, statementCache);
+    }
+    
+    /* -------------------------------------------------- Savepoints -------------------------------------------------- */
+    
+    /**
+     * Sets a savepoint on the connection of the prepared statement before it is executed.
+     */
+    @PureWithSideEffects
+    private @Nonnull Savepoint setSavepoint() throws DatabaseException {
+        try {
+            return preparedStatement.getConnection().setSavepoint();
+        } catch (SQLException exception) {
+            close();
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Releases the given savepoint after the statement was executed successfully.
+     */
+    @PureWithSideEffects
+    private void releaseSavepoint(@Nonnull Savepoint savepoint) throws DatabaseException {
+        try {
+            preparedStatement.getConnection().releaseSavepoint(savepoint);
+        } catch (SQLException exception) {
+            throw DatabaseExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Rolls the connection back to the given savepoint if the given exception was caused by the violation of an integrity constraint and rethrows the exception otherwise.
+     */
+    @PureWithSideEffects
+    private void ignoreViolation(@Nonnull Savepoint savepoint, @Nonnull DatabaseException exception) throws DatabaseException {
+        final @Nullable Throwable cause = exception.getCause();
+        if (!(cause instanceof SQLException) || !isIntegrityConstraintViolation((SQLException) cause)) { throw exception; }
+        try {
+            final @Nonnull Connection connection = preparedStatement.getConnection();
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException rollbackException) {
+            throw DatabaseExceptionBuilder.withCause(rollbackException).build();
+        }
+    }
+    
+    /**
+     * Returns whether the given exception was caused by the violation of an integrity constraint, whose SQL state belongs to class 23 in the SQL standard.
+     */
+    @Pure
+    private static boolean isIntegrityConstraintViolation(@Nonnull SQLException exception) {
+        final @Nullable String state = exception.getSQLState();
+        return state != null && state.startsWith("23");
+    }
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    @Override
+    @PureWithSideEffects
+    public void execute() throws DatabaseException {
+        executeWithCount();
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public @NonNegative int executeWithCount() throws DatabaseException {
+        final @Nonnull Savepoint savepoint = setSavepoint();
+        final int count;
+        try {
+            count = super.executeWithCount();
+        } catch (@Nonnull DatabaseException exception) {
+            ignoreViolation(savepoint, exception);
+            return 0;
+        }
+        releaseSavepoint(savepoint);
+        return count;
+    }
+    
+    @Override
+    @PureWithSideEffects
+    public @Capturable <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull @NonNullableElements @NonFrozen FreezableList<TYPE> executeReturning(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws DatabaseException, RecoveryException {
+        final @Nonnull Savepoint savepoint = setSavepoint();
+        final @Nonnull FreezableList<TYPE> results;
+        try {
+            results = super.executeReturning(converter, provided);
+        } catch (@Nonnull DatabaseException exception) {
+            ignoreViolation(savepoint, exception);
+            return FreezableArrayList.withNoElements();
+        }
+        releaseSavepoint(savepoint);
+        return results;
+    }
+    
+    /* -------------------------------------------------- Batching -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean supportsBatching() {
+        return false;
+    }
+    
+}
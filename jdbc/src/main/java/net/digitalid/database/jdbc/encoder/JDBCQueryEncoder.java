@@ -20,38 +20,79 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
 
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
 import net.digitalid.database.interfaces.SQLDecoder;
 import net.digitalid.database.interfaces.encoder.SQLQueryEncoder;
+import net.digitalid.database.jdbc.JDBCStatementCache;
 import net.digitalid.database.jdbc.decoder.JDBCDecoderBuilder;
 
 /**
  * The JDBC query encoder collects values for the prepared statement and executes it. Upon successful execution 
- * it returns an SQL decoder, which can be used to recover the data.
+ * it returns an SQL decoder, which can be used to recover the data. A cached prepared statement is only released
+ * when the returned decoder is closed because executing the statement again would close its result set.
  */
 @GenerateBuilder
 @GenerateSubclass
 public class JDBCQueryEncoder extends JDBCEncoderSubclass implements SQLQueryEncoder {
     
-    protected JDBCQueryEncoder(@Nonnull PreparedStatement preparedStatement) {
-        super(preparedStatement);
+    protected JDBCQueryEncoder(@Nonnull PreparedStatement preparedStatement, @Nullable JDBCStatementCache statementCache, @NonNegative int fetchSize, int streamingFetchSize) {
+        super(preparedStatement, statementCache);
+        
+        this.fetchSize = fetchSize;
+        this.streamingFetchSize = streamingFetchSize;
+    }
+    
+    /* -------------------------------------------------- Fetching -------------------------------------------------- */
+    
+    /**
+     * Stores the fetch size with which the statement is executed unless the rows are streamed.
+     */
+    private @NonNegative int fetchSize;
+    
+    /**
+     * Stores the fetch size with which the statement is executed if the rows are streamed.
+     * For example, the MySQL driver streams the rows only with {@link Integer#MIN_VALUE}.
+     */
+    private final int streamingFetchSize;
+    
+    /**
+     * Stores whether the rows are streamed.
+     */
+    private boolean streaming = false;
+    
+    @Impure
+    @Override
+    public void setFetchSize(@NonNegative int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+    
+    @Impure
+    @Override
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
     }
     
     /* -------------------------------------------------- Execution -------------------------------------------------- */
-       
+    
     @Override
     @PureWithSideEffects
     public @Nonnull SQLDecoder execute() throws DatabaseException {
         try {
+            // The fetch size is always set because the prepared statement might be reused from the statement cache.
+            preparedStatement.setFetchSize(streaming ? streamingFetchSize : fetchSize);
             final @Nonnull ResultSet resultSet = preparedStatement.executeQuery();
-            return JDBCDecoderBuilder.withResultSet(resultSet).build();
+            return JDBCDecoderBuilder.withResultSet(resultSet).withStatementCache(statementCache).build();
         } catch (SQLException exception) {
+            release();
             throw DatabaseExceptionBuilder.withCause(exception).build();
         }
     }
@@ -24,19 +24,22 @@ import net.digitalid.utility.annotations.parameter.Modified;
 import net.digitalid.utility.collaboration.annotations.TODO;
 import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.conversion.model.CustomType;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.initialization.annotations.Initialize;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.expression.number.SQLCurrentTime;
 import net.digitalid.database.dialect.identifier.SQLIdentifier;
+import net.digitalid.database.dialect.identifier.column.SQLColumnName;
 import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatement;
 import net.digitalid.database.dialect.statement.table.create.SQLType;
 
 /**
@@ -57,6 +60,27 @@ public abstract class MySQLDialect extends SQLDialect {
         SQLDialect.instance.set(new MySQLDialectSubclass());
     }
     
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected MySQLDialect() {
+        register(SQLType.class, this::unparse);
+        register(SQLIdentifier.class, this::unparse);
+        register(SQLConflictClause.class, this::unparse);
+        register(SQLUpsertStatement.class, this::unparse);
+        register(SQLCurrentTime.class, (currentTime, unit, string) -> string.append("UNIX_TIMESTAMP(SYSDATE()) * 1000 + MICROSECOND(SYSDATE(3)) DIV 1000")); // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
+    }
+    
+    /* -------------------------------------------------- Limits -------------------------------------------------- */
+    
+    /**
+     * The protocol of MySQL encodes the number of parameters of a prepared statement in two bytes.
+     */
+    @Pure
+    @Override
+    public @Positive int getMaximumNumberOfParameters() {
+        return 65_535;
+    }
+    
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
@@ -81,14 +105,27 @@ public abstract class MySQLDialect extends SQLDialect {
         else { string.append("INSERT"); }
     }
     
+    /**
+     * MySQL updates the row with the same primary key in place with {@code ON DUPLICATE KEY UPDATE}.
+     * If all columns belong to the key, the first key column is assigned to itself so that the conflict is ignored without suppressing other errors.
+     */
     @Pure
-    @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLType) { unparse((SQLType) node, unit, string); }
-        else if (node instanceof SQLIdentifier) { unparse((SQLIdentifier) node, unit, string); }
-        else if (node instanceof SQLConflictClause) { unparse((SQLConflictClause) node, unit, string); }
-        else if (node instanceof SQLCurrentTime) { string.append("UNIX_TIMESTAMP(SYSDATE()) * 1000 + MICROSECOND(SYSDATE(3)) DIV 1000"); } // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
-        else { super.unparse(node, unit, string); }
+    protected void unparse(@Nonnull SQLUpsertStatement upsertStatement, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        string.append("INSERT INTO ");
+        unparse(upsertStatement.getTable(), unit, string);
+        string.append(" (");
+        unparse(upsertStatement.getColumns(), unit, string);
+        string.append(") ");
+        unparse(upsertStatement.getValues(), unit, string);
+        string.append(" ON DUPLICATE KEY UPDATE ");
+        final @Nonnull ImmutableList<? extends SQLColumnName> updatedColumns = upsertStatement.getUpdatedColumns().isEmpty() ? ImmutableList.withElements(upsertStatement.getKeyColumns().getFirst()) : upsertStatement.getUpdatedColumns();
+        for (int i = 0; i < updatedColumns.size(); i++) {
+            if (i > 0) { string.append(", "); }
+            unparse(updatedColumns.get(i), unit, string);
+            string.append(" = VALUES(");
+            unparse(updatedColumns.get(i), unit, string);
+            string.append(")");
+        }
     }
     
     /* -------------------------------------------------- TODO -------------------------------------------------- */
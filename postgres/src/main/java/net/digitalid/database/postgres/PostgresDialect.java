@@ -39,12 +39,14 @@ import net.digitalid.utility.validation.annotations.type.Stateless;
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.expression.number.SQLCurrentTime;
+import net.digitalid.database.dialect.statement.insert.SQLConflictClause;
+import net.digitalid.database.dialect.statement.insert.SQLInsertStatement;
 import net.digitalid.database.dialect.statement.table.create.SQLType;
 
 /**
  * This class implements the PostgreSQL dialect.
+ * Rows can be loaded in bulk with the COPY command in its binary format.
  */
 @Stateless
 @GenerateSubclass
@@ -61,6 +63,39 @@ public abstract class PostgresDialect extends SQLDialect {
         SQLDialect.instance.set(new PostgresDialectSubclass());
     }
     
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected PostgresDialect() {
+        register(SQLType.class, this::unparse);
+        register(SQLInsertStatement.class, this::unparse);
+        register(SQLCurrentTime.class, (currentTime, unit, string) -> string.append("ROUND(EXTRACT(EPOCH FROM CLOCK_TIMESTAMP()) * 1000)")); // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
+    }
+    
+    /* -------------------------------------------------- Limits -------------------------------------------------- */
+    
+    /**
+     * The protocol of PostgreSQL encodes the number of parameters of a statement in two bytes.
+     */
+    @Pure
+    @Override
+    public @Positive int getMaximumNumberOfParameters() {
+        return 65_535;
+    }
+    
+    /* -------------------------------------------------- Features -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public boolean supportsReturningClause() {
+        return true;
+    }
+    
+    @Pure
+    @Override
+    public boolean supportsBinaryCopy() {
+        return true;
+    }
+    
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
@@ -81,15 +116,26 @@ public abstract class PostgresDialect extends SQLDialect {
                 string.append(" COLLATE \"en_US.UTF-8\"");
             }
         }
-        
     }
     
+    /**
+     * PostgreSQL does not support conflict clauses after the insert keyword but ignores conflicting rows with {@code ON CONFLICT DO NOTHING}
+     * and replaces them by updating the row with the same primary key in place with {@link SQLInsertStatement#toUpsertStatement() an upsert}.
+     * All other conflict clauses abort the statement, which is the only behavior of a plain insert statement.
+     */
     @Pure
-    @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLType) { unparse((SQLType) node, unit, string); }
-        else if (node instanceof SQLCurrentTime) { string.append("ROUND(EXTRACT(EPOCH FROM CLOCK_TIMESTAMP()) * 1000)"); } // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
-        else { super.unparse(node, unit, string); }
+    protected void unparse(@Nonnull SQLInsertStatement insertStatement, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
+        if (insertStatement.getConflictClause() == SQLConflictClause.REPLACE) {
+            unparse(insertStatement.toUpsertStatement(), unit, string);
+            return;
+        }
+        string.append("INSERT INTO ");
+        unparse(insertStatement.getTable(), unit, string);
+        string.append(" (");
+        unparse(insertStatement.getColumns(), unit, string);
+        string.append(") ");
+        unparse(insertStatement.getValues(), unit, string);
+        if (insertStatement.getConflictClause() == SQLConflictClause.IGNORE) { string.append(" ON CONFLICT DO NOTHING"); }
     }
     
     /* -------------------------------------------------- TODO -------------------------------------------------- */
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import net.digitalid.utility.validation.annotations.type.Stateless;
+
+/**
+ * The observer dispatch determines how the observers of a {@link PersistentProperty persistent property} are notified about its changes.
+ * 
+ * @see PersistentObserverDispatcher
+ */
+@Stateless
+public enum PersistentObserverDispatch {
+    
+    /**
+     * The observers are notified on the thread that changed the property while the lock of the property is still held.
+     */
+    SYNCHRONOUS,
+    
+    /**
+     * The observers are notified on a thread of the dispatcher in the order of the changes of the property.
+     */
+    ASYNCHRONOUS,
+    
+    /**
+     * The observers of value properties are notified like with {@link #ASYNCHRONOUS} but only about the latest change that was not yet dispatched.
+     * Observers of value properties thus skip intermediate values, and the old value they receive is the one before the latest change.
+     * The notifications and deltas of set and map properties are never coalesced and thus dispatched like with {@link #ASYNCHRONOUS}
+     * because an addition followed by a removal of the same element cannot be replaced by the removal alone.
+     */
+    COALESCED;
+    
+}
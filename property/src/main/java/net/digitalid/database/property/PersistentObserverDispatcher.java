@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * This class dispatches the notifications of the observers of persistent properties according to the {@link PersistentObserverDispatch dispatch} of their table.
+ * Asynchronous notifications are executed on a fixed number of lanes, each of which is a single thread with its own queue.
+ * All notifications of the same property are executed on the same lane in the order of their dispatch.
+ * Notifications are dispatched without waiting because the properties dispatch them while holding their lock.
+ * If more notifications than the queue capacity are pending on a lane, the properties {@link #awaitCapacity(java.lang.Object) wait} after releasing their lock so that no notification is lost.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public class PersistentObserverDispatcher implements AutoCloseable {
+    
+    /* -------------------------------------------------- Instance -------------------------------------------------- */
+    
+    /**
+     * Stores the dispatcher which is used by all persistent properties.
+     */
+    public static final @Nonnull Configuration<PersistentObserverDispatcher> instance = Configuration.with(PersistentObserverDispatcherBuilder.withNumberOfLanes(4).withQueueCapacity(10_000).build());
+    
+    /* -------------------------------------------------- Lanes -------------------------------------------------- */
+    
+    /**
+     * A lane executes the notifications of the properties that are assigned to it on a single thread.
+     */
+    @Mutable
+    private static class Lane {
+        
+        private final @Nonnull ThreadPoolExecutor executor;
+        
+        /**
+         * Stores the number of notifications that were dispatched to this lane but not yet executed.
+         */
+        private final @Nonnull AtomicInteger pendingNotifications = new AtomicInteger();
+        
+        private Lane(@Nonnull String name) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                final @Nonnull Thread thread = new Thread(() -> {
+                    onLane.set(true);
+                    runnable.run();
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            }, (runnable, executor) -> {
+                throw new RejectedExecutionException("The dispatcher has been closed.");
+            });
+        }
+        
+    }
+    
+    /**
+     * Stores whether the current thread is the thread of a lane of any dispatcher.
+     */
+    private static final @Nonnull ThreadLocal<@Nonnull Boolean> onLane = ThreadLocal.withInitial(() -> false);
+    
+    /**
+     * Stores the lanes of this dispatcher.
+     */
+    private final @Nonnull Lane[] lanes;
+    
+    /**
+     * Stores the number of pending notifications per lane above which the dispatching threads wait.
+     */
+    private final @Positive int queueCapacity;
+    
+    /**
+     * Returns the lane on which the notifications of the given property are executed.
+     */
+    @Pure
+    private @Nonnull Lane getLane(@Nonnull Object property) {
+        return lanes[Math.floorMod(System.identityHashCode(property), lanes.length)];
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected PersistentObserverDispatcher(@Positive int numberOfLanes, @Positive int queueCapacity) {
+        this.lanes = new Lane[numberOfLanes];
+        for (int i = 0; i < numberOfLanes; i++) {
+            lanes[i] = new Lane("PersistentObserverDispatcher-" + i);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong dispatches = new AtomicLong();
+    
+    /**
+     * Returns the number of notifications that were dispatched, including the ones that were coalesced.
+     */
+    @Pure
+    public long getDispatches() {
+        return dispatches.get();
+    }
+    
+    private final @Nonnull AtomicLong coalescedDispatches = new AtomicLong();
+    
+    /**
+     * Returns the number of notifications that replaced a pending notification of the same property.
+     */
+    @Pure
+    public long getCoalescedDispatches() {
+        return coalescedDispatches.get();
+    }
+    
+    private final @Nonnull AtomicLong blockedDispatches = new AtomicLong();
+    
+    /**
+     * Returns the number of times that a thread had to wait after a dispatch because the queue of the lane was full.
+     */
+    @Pure
+    public long getBlockedDispatches() {
+        return blockedDispatches.get();
+    }
+    
+    private final @Nonnull AtomicLong asynchronousNotifications = new AtomicLong();
+    
+    /**
+     * Returns the number of notifications that were executed on the threads of this dispatcher.
+     */
+    @Pure
+    public long getAsynchronousNotifications() {
+        return asynchronousNotifications.get();
+    }
+    
+    private final @Nonnull AtomicLong totalLatency = new AtomicLong();
+    
+    /**
+     * Returns the total number of nanoseconds between the dispatch and the execution of the asynchronous notifications.
+     */
+    @Pure
+    public long getTotalLatency() {
+        return totalLatency.get();
+    }
+    
+    private final @Nonnull AtomicLong maximumLatency = new AtomicLong();
+    
+    /**
+     * Returns the longest number of nanoseconds between the dispatch and the execution of an asynchronous notification.
+     */
+    @Pure
+    public long getMaximumLatency() {
+        return maximumLatency.get();
+    }
+    
+    /**
+     * Returns the average number of nanoseconds between the dispatch and the execution of the asynchronous notifications or zero if there were none yet.
+     */
+    @Pure
+    public double getAverageLatency() {
+        final long notifications = asynchronousNotifications.get();
+        return notifications == 0 ? 0 : (double) totalLatency.get() / notifications;
+    }
+    
+    /**
+     * Returns the number of notifications that are waiting in the queues of all lanes.
+     */
+    @Pure
+    public @NonNegative int getQueueDepth() {
+        int result = 0;
+        for (@Nonnull Lane lane : lanes) { result += lane.executor.getQueue().size(); }
+        return result;
+    }
+    
+    /* -------------------------------------------------- Coalescing -------------------------------------------------- */
+    
+    /**
+     * A key identifies the pending notifications that can be coalesced, namely the ones of the same property.
+     * Properties are compared by identity as their equality might depend on their mutable state.
+     */
+    @Immutable
+    private static class Key {
+        
+        private final @Nonnull Object property;
+        
+        private Key(@Nonnull Object property) {
+            this.property = property;
+        }
+        
+        @Pure
+        @Override
+        public boolean equals(@Nullable Object object) {
+            return object instanceof Key && property == ((Key) object).property;
+        }
+        
+        @Pure
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(property);
+        }
+        
+    }
+    
+    /**
+     * A slot stores the latest notification with a given key which has not yet been executed.
+     */
+    @Mutable
+    private static class Slot {
+        
+        private volatile @Nonnull Runnable notification;
+        
+        private final long dispatchTime;
+        
+        private Slot(@Nonnull Runnable notification, long dispatchTime) {
+            this.notification = notification;
+            this.dispatchTime = dispatchTime;
+        }
+        
+    }
+    
+    /**
+     * Stores the slots of the pending coalesced notifications.
+     */
+    private final @Nonnull ConcurrentMap<@Nonnull Key, @Nonnull Slot> slots = new ConcurrentHashMap<>();
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    /**
+     * Executes the given notification and records the time since its dispatch.
+     * A failing observer is logged so that the notifications after it are still executed.
+     */
+    @Impure
+    private void execute(@Nonnull Runnable notification, long dispatchTime) {
+        final long latency = System.nanoTime() - dispatchTime;
+        asynchronousNotifications.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        maximumLatency.accumulateAndGet(latency, Math::max);
+        try {
+            notification.run();
+        } catch (@Nonnull RuntimeException exception) {
+            Log.error("An observer of a persistent property failed.", exception);
+        }
+    }
+    
+    /**
+     * Enqueues the given task on the given lane without waiting and wakes up the waiting threads once the lane has space again after its execution.
+     */
+    @Impure
+    private void enqueue(@Nonnull Lane lane, @Nonnull Runnable task) {
+        lane.pendingNotifications.incrementAndGet();
+        lane.executor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                if (lane.pendingNotifications.decrementAndGet() == queueCapacity) {
+                    synchronized (lane) { lane.notifyAll(); }
+                }
+            }
+        });
+    }
+    
+    /* -------------------------------------------------- Dispatch -------------------------------------------------- */
+    
+    /**
+     * Dispatches the given notification of the given property with the given dispatch without waiting for the lane of the property.
+     * Coalesced notifications replace the pending notification of the same property, which is why only value properties should coalesce their notifications.
+     */
+    @Impure
+    public void dispatch(@Nonnull PersistentObserverDispatch dispatch, @Nonnull Object property, @Nonnull Runnable notification) {
+        dispatches.incrementAndGet();
+        final long dispatchTime = System.nanoTime();
+        switch (dispatch) {
+            case SYNCHRONOUS:
+                notification.run();
+                break;
+            case ASYNCHRONOUS:
+                enqueue(getLane(property), () -> execute(notification, dispatchTime));
+                break;
+            case COALESCED:
+                final @Nonnull Key slotKey = new Key(property);
+                final @Nonnull Slot newSlot = new Slot(notification, dispatchTime);
+                final @Nonnull Slot slot = slots.merge(slotKey, newSlot, (pendingSlot, unusedSlot) -> {
+                    pendingSlot.notification = notification;
+                    return pendingSlot;
+                });
+                if (slot == newSlot) {
+                    enqueue(getLane(property), () -> {
+                        // Notifications that are dispatched after the removal of the slot are executed with a new slot afterwards.
+                        slots.remove(slotKey, slot);
+                        execute(slot.notification, slot.dispatchTime);
+                    });
+                } else {
+                    coalescedDispatches.incrementAndGet();
+                }
+                break;
+        }
+    }
+    
+    /**
+     * Waits until the number of pending notifications on the lane of the given property no longer exceeds the queue capacity.
+     * Properties call this method after releasing their lock so that no lock is held while waiting for slow observers.
+     * On the thread of any lane, this method returns immediately as the lane would otherwise wait for itself or for another lane that might wait for it.
+     * If the current thread is interrupted, this method returns early with the interrupt flag set, but the dispatched notifications are still executed.
+     */
+    @Impure
+    public void awaitCapacity(@Nonnull Object property) {
+        final @Nonnull Lane lane = getLane(property);
+        if (lane.pendingNotifications.get() <= queueCapacity || onLane.get()) { return; }
+        blockedDispatches.incrementAndGet();
+        synchronized (lane) {
+            try {
+                while (lane.pendingNotifications.get() > queueCapacity && !lane.executor.isShutdown()) { lane.wait(); }
+            } catch (@Nonnull InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Closing -------------------------------------------------- */
+    
+    /**
+     * Stops accepting new asynchronous notifications and waits for the dispatched notifications to be executed.
+     */
+    @Override
+    @PureWithSideEffects
+    public void close() throws InterruptedException {
+        for (@Nonnull Lane lane : lanes) {
+            lane.executor.shutdown();
+            synchronized (lane) { lane.notifyAll(); }
+        }
+        for (@Nonnull Lane lane : lanes) { lane.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS); }
+    }
+    
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This class limits the number of entries and the estimated number of bytes that all loaded {@link PersistentProperty persistent properties} keep in memory together.
+ * A property registers itself after loading its values from the database and is marked as referenced whenever its loaded values are accessed.
+ * When the budget is exceeded, the properties are evicted with the CLOCK algorithm, which approximates least-recently-used eviction without locking on every access:
+ * The registrations are kept in a ring through which a hand moves, unloading the first property that has not been referenced since the hand last passed it.
+ * An evicted property discards its values without notifying its observers and simply reloads them from the database when they are accessed the next time.
+ */
+@Utility
+@ThreadSafe
+public abstract class PersistentPropertyCache {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the maximum number of entries that the loaded properties may keep in memory together.
+     */
+    public static final @Nonnull Configuration<Long> maximumEntries = Configuration.with(1_000_000L);
+    
+    /**
+     * Stores the estimated maximum number of bytes that the loaded properties may keep in memory together.
+     */
+    public static final @Nonnull Configuration<Long> maximumBytes = Configuration.with(256L * 1024 * 1024);
+    
+    /**
+     * Stores the number of bytes that is estimated for an object whose size cannot be derived from its type.
+     */
+    public static final @Nonnull Configuration<Long> defaultObjectSize = Configuration.with(64L);
+    
+    /* -------------------------------------------------- Estimation -------------------------------------------------- */
+    
+    /**
+     * Stores the number of bytes that a collection needs in addition to its elements for each entry.
+     */
+    private static final long ENTRY_OVERHEAD = 48;
+    
+    /**
+     * Returns the estimated number of bytes that the given object occupies in memory.
+     */
+    @Pure
+    public static @NonNegative long estimateSize(@Nullable Object object) {
+        if (object == null) { return 0; }
+        else if (object instanceof String) { return 40 + 2L * ((String) object).length(); }
+        else if (object instanceof byte[]) { return 16 + ((byte[]) object).length; }
+        else if (object instanceof Number || object instanceof Boolean || object instanceof Character) { return 16; }
+        else { return defaultObjectSize.get(); }
+    }
+    
+    /**
+     * Returns the estimated number of bytes that an entry with the given key and value occupies in a collection.
+     */
+    @Pure
+    public static @NonNegative long estimateEntrySize(@Nullable Object key, @Nullable Object value) {
+        return ENTRY_OVERHEAD + estimateSize(key) + estimateSize(value);
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private static final @Nonnull AtomicLong entries = new AtomicLong();
+    
+    /**
+     * Returns the number of entries that the registered properties currently keep in memory.
+     */
+    @Pure
+    public static long getEntries() {
+        return entries.get();
+    }
+    
+    private static final @Nonnull AtomicLong bytes = new AtomicLong();
+    
+    /**
+     * Returns the estimated number of bytes that the registered properties currently keep in memory.
+     */
+    @Pure
+    public static long getBytes() {
+        return bytes.get();
+    }
+    
+    private static final @Nonnull AtomicLong hits = new AtomicLong();
+    
+    /**
+     * Returns the number of accesses to properties whose values were already loaded.
+     */
+    @Pure
+    public static long getHits() {
+        return hits.get();
+    }
+    
+    private static final @Nonnull AtomicLong misses = new AtomicLong();
+    
+    /**
+     * Returns the number of times that the values of a property had to be loaded from the database.
+     */
+    @Pure
+    public static long getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * Returns the fraction of accesses to properties whose values were already loaded or zero if there were no accesses yet.
+     */
+    @Pure
+    public static double getHitRate() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    private static final @Nonnull AtomicLong evictions = new AtomicLong();
+    
+    /**
+     * Returns the number of properties that were unloaded because the budget was exceeded.
+     */
+    @Pure
+    public static long getEvictions() {
+        return evictions.get();
+    }
+    
+    /* -------------------------------------------------- Evictable -------------------------------------------------- */
+    
+    /**
+     * A property whose loaded values can be discarded by this cache implements this interface.
+     */
+    @Mutable
+    @ThreadSafe
+    public static interface Evictable {
+        
+        /**
+         * Discards the loaded values of this property without notifying its observers so that they are reloaded from the database on the next retrieval.
+         * This method should only be called by the cache and does nothing if the property is currently in use.
+         * 
+         * @return whether the values have been discarded.
+         */
+        @Impure
+        public boolean unload();
+        
+    }
+    
+    /* -------------------------------------------------- Registration -------------------------------------------------- */
+    
+    /**
+     * A registration keeps track of the entries and estimated bytes of a loaded property and whether it was referenced recently.
+     * The property is only referenced weakly so that a registration does not prevent the garbage collection of its subject.
+     */
+    @Mutable
+    @ThreadSafe
+    public static final class Registration {
+        
+        private final @Nonnull WeakReference<Evictable> property;
+        
+        private volatile boolean referenced = true;
+        
+        private volatile boolean registered = true;
+        
+        private long entries = 0;
+        
+        private long bytes = 0;
+        
+        private Registration(@Nonnull Evictable property) {
+            this.property = new WeakReference<>(property);
+        }
+        
+        /**
+         * Returns the number of entries of the registered property.
+         */
+        @Pure
+        public synchronized long getEntries() {
+            return entries;
+        }
+        
+        /**
+         * Returns the estimated number of bytes of the registered property.
+         */
+        @Pure
+        public synchronized long getBytes() {
+            return bytes;
+        }
+        
+        /**
+         * Sets the number of entries and the estimated number of bytes of the registered property after it has been changed and evicts other properties if the budget is exceeded.
+         */
+        @Impure
+        public void resize(@NonNegative long entries, @NonNegative long bytes) {
+            synchronized (this) {
+                if (!registered) { return; }
+                this.referenced = true;
+                PersistentPropertyCache.entries.addAndGet(entries - this.entries);
+                PersistentPropertyCache.bytes.addAndGet(bytes - this.bytes);
+                this.entries = entries;
+                this.bytes = bytes;
+            }
+            evictIfNecessary();
+        }
+        
+        /**
+         * Removes this registration from the cache after the property discarded its values.
+         */
+        @Impure
+        public void unregister() {
+            synchronized (this) {
+                if (!registered) { return; }
+                this.registered = false;
+                PersistentPropertyCache.entries.addAndGet(-entries);
+                PersistentPropertyCache.bytes.addAndGet(-bytes);
+                this.entries = 0;
+                this.bytes = 0;
+            }
+            registrations.decrementAndGet();
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Clock -------------------------------------------------- */
+    
+    /**
+     * Stores the registrations in the order in which the hand of the clock passes them.
+     * Unregistered registrations are only removed when the hand reaches them.
+     */
+    private static final @Nonnull Queue<@Nonnull Registration> clock = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Stores the number of registrations that are still registered.
+     */
+    private static final @Nonnull AtomicLong registrations = new AtomicLong();
+    
+    /**
+     * Registers the given property, which has just loaded the given number of entries with the given estimated number of bytes from the database.
+     * 
+     * @return the registration with which the property reports its accesses and changes of size.
+     */
+    @Impure
+    public static @Nonnull Registration register(@Nonnull Evictable property, @NonNegative long entries, @NonNegative long bytes) {
+        misses.incrementAndGet();
+        final @Nonnull Registration registration = new Registration(property);
+        registrations.incrementAndGet();
+        clock.offer(registration);
+        registration.resize(entries, bytes);
+        return registration;
+    }
+    
+    /**
+     * Records an access to the loaded values of the property with the given registration.
+     */
+    @Impure
+    public static void access(@Nullable Registration registration) {
+        hits.incrementAndGet();
+        if (registration != null) { registration.referenced = true; }
+    }
+    
+    /**
+     * Returns whether the entries or the estimated bytes of the registered properties exceed the budget.
+     */
+    @Pure
+    private static boolean isExceeded() {
+        return entries.get() > maximumEntries.get() || bytes.get() > maximumBytes.get();
+    }
+    
+    /**
+     * Moves the hand of the clock and unloads the properties which were not referenced recently until the budget is no longer exceeded.
+     * Since every registration is passed at most twice, properties that are currently in use cannot make this method loop forever.
+     */
+    @Impure
+    public static void evictIfNecessary() {
+        long remainingSteps = 2 * registrations.get() + 1;
+        while (isExceeded() && remainingSteps-- > 0) {
+            final @Nullable Registration registration = clock.poll();
+            if (registration == null) { break; }
+            if (!registration.registered) { continue; }
+            final @Nullable Evictable property = registration.property.get();
+            if (property == null) {
+                registration.unregister();
+            } else if (registration.referenced) {
+                registration.referenced = false;
+                clock.offer(registration);
+            } else if (property.unload()) {
+                registration.unregister();
+                evictions.incrementAndGet();
+            } else {
+                clock.offer(registration);
+            }
+        }
+    }
+    
+}
@@ -15,16 +15,32 @@
  */
 package net.digitalid.database.property;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.storage.Table;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.size.MaxSize;
 import net.digitalid.utility.validation.annotations.string.CodeIdentifier;
 import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.type.Mutable;
 
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.property.map.PersistentMapPropertyTable;
 import net.digitalid.database.property.set.PersistentSetPropertyTable;
 import net.digitalid.database.property.subject.Subject;
@@ -53,4 +69,53 @@ public interface PersistentPropertyTable<@Unspecifiable UNIT extends Unit, @Unsp
     @Override
     public @Nonnull SubjectModule<UNIT, SUBJECT> getParentModule();
     
+    /* -------------------------------------------------- Prefetching -------------------------------------------------- */
+    
+    /**
+     * A property whose values can be populated with entries that were loaded together with the entries of other subjects implements this interface.
+     */
+    @Mutable
+    @ThreadSafe
+    public static interface Prefetchable<@Unspecifiable ENTRY> {
+        
+        /**
+         * Populates the values of this property with the given entries unless they are already loaded or the property is currently in use.
+         * This method should only be called by {@link PersistentPropertyTable#prefetch(Iterable)}.
+         */
+        @Impure
+        public void prefetch(@Nonnull @NonNullableElements List<ENTRY> entries);
+        
+    }
+    
+    /**
+     * Loads the entries of the properties of the given subjects with one query per chunk of subjects instead of one query per subject,
+     * which avoids the N+1 query pattern when the same property of many subjects is accessed, for example, to render a list of entities.
+     * The entries are assigned to the subjects according to their equality and properties which are already loaded are not changed.
+     * Set and map properties whose values are loaded partially are not prefetched.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    @SuppressWarnings("unchecked")
+    public default void prefetch(@Nonnull @NonNullableElements Iterable<? extends SUBJECT> subjects) throws DatabaseException, RecoveryException {
+        final @Nonnull Map<@Nonnull UNIT, @Nonnull List<@Nonnull SUBJECT>> subjectsByUnit = new LinkedHashMap<>();
+        for (@Nonnull SUBJECT subject : subjects) {
+            if (subject.hasProperty(this)) { subjectsByUnit.computeIfAbsent(subject.getUnit(), unit -> new ArrayList<>()).add(subject); }
+        }
+        
+        final @Nonnull String prefix = getParentModule().getSubjectTable().getTypeName().toLowerCase();
+        for (Map.@Nonnull Entry<@Nonnull UNIT, @Nonnull List<@Nonnull SUBJECT>> unitAndSubjects : subjectsByUnit.entrySet()) {
+            final @Nonnull UNIT unit = unitAndSubjects.getKey();
+            final @Nonnull Map<@Nonnull SUBJECT, @Nonnull List<ENTRY>> entriesBySubject = new HashMap<>();
+            for (@Nonnull SUBJECT subject : unitAndSubjects.getValue()) { entriesBySubject.put(subject, new ArrayList<>()); }
+            for (@Nonnull ENTRY entry : SQL.selectAllIn(this, unit, unit, getParentModule().getSubjectTable(), prefix, unitAndSubjects.getValue())) {
+                final @Nullable List<ENTRY> entries = entriesBySubject.get(entry.getSubject());
+                if (entries != null) { entries.add(entry); }
+            }
+            for (@Nonnull SUBJECT subject : unitAndSubjects.getValue()) {
+                final @Nonnull PersistentProperty<?, ?> property = subject.getProperty(this);
+                if (property instanceof Prefetchable) { ((Prefetchable<ENTRY>) property).prefetch(entriesBySubject.get(subject)); }
+            }
+        }
+    }
+    
 }
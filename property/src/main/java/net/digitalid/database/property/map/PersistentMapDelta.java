@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property.map;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.property.subject.Subject;
+
+/**
+ * This class models the net changes of a {@link ReadOnlyPersistentMapProperty persistent map property} by a reset or by the mutations of a transaction.
+ * 
+ * @see PersistentMapDeltaObserver
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+public abstract class PersistentMapDelta<@Unspecifiable SUBJECT extends Subject<?>, @Unspecifiable KEY, @Unspecifiable VALUE> {
+    
+    /* -------------------------------------------------- Added Entries -------------------------------------------------- */
+    
+    /**
+     * Returns the entries whose key was added to the property.
+     */
+    @Pure
+    public abstract @Nonnull @NonNullableElements ImmutableList<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> getAddedEntries();
+    
+    /* -------------------------------------------------- Removed Entries -------------------------------------------------- */
+    
+    /**
+     * Returns the entries whose key was removed from the property with the value that was removed.
+     */
+    @Pure
+    public abstract @Nonnull @NonNullableElements ImmutableList<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> getRemovedEntries();
+    
+    /* -------------------------------------------------- Changed Entries -------------------------------------------------- */
+    
+    /**
+     * Returns the entries whose key remained in the property but is now mapped to a different value, which the entries contain.
+     */
+    @Pure
+    public abstract @Nonnull @NonNullableElements ImmutableList<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> getChangedEntries();
+    
+    /* -------------------------------------------------- Empty -------------------------------------------------- */
+    
+    /**
+     * Returns whether this delta contains no changes.
+     */
+    @Pure
+    public boolean isEmpty() {
+        return getAddedEntries().isEmpty() && getRemovedEntries().isEmpty() && getChangedEntries().isEmpty();
+    }
+    
+}
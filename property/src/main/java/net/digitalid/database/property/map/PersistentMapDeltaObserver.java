@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property.map;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.collections.map.ReadOnlyMap;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+import net.digitalid.utility.validation.annotations.value.Valid;
+
+import net.digitalid.database.property.subject.Subject;
+
+/**
+ * Objects that implement this interface can be {@link ReadOnlyPersistentMapProperty#registerDeltaObserver(PersistentMapDeltaObserver) registered} to be notified once per change of a {@link ReadOnlyPersistentMapProperty persistent map property} with all its added, removed and changed entries.
+ * In contrast to a {@link PersistentMapObserver}, which is notified once per entry, a delta observer is notified once per reset and once per committed transaction.
+ */
+@Mutable
+@Functional
+public interface PersistentMapDeltaObserver<@Unspecifiable SUBJECT extends Subject<?>, @Unspecifiable KEY, @Unspecifiable VALUE, @Unspecifiable READONLY_MAP extends ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>> {
+    
+    /**
+     * This method is called after the given property changed by the given delta, which is never empty.
+     */
+    @Impure
+    public void notify(@Nonnull ReadOnlyPersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP> property, @Nonnull PersistentMapDelta<SUBJECT, KEY, VALUE> delta);
+    
+}
@@ -20,6 +20,7 @@ import javax.annotation.Nonnull;
 import net.digitalid.utility.annotations.generics.Specifiable;
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Modified;
@@ -41,7 +42,9 @@ import net.digitalid.utility.generator.annotations.interceptors.Cached;
 import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.storage.TableImplementation;
 import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.generation.Default;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.size.MaxSize;
 import net.digitalid.utility.validation.annotations.string.CodeIdentifier;
 import net.digitalid.utility.validation.annotations.string.DomainName;
@@ -49,6 +52,9 @@ import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
 import net.digitalid.database.annotations.constraints.PrimaryKey;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.property.PersistentObserverDispatch;
 import net.digitalid.database.property.PersistentPropertyTable;
 import net.digitalid.database.property.subject.Subject;
 
@@ -76,6 +82,56 @@ public abstract class PersistentMapPropertyTable<@Unspecifiable UNIT extends Uni
     @Default("(subject, key) -> null")
     public abstract @Nonnull BinaryFunction<@Nonnull SUBJECT, @Nonnull KEY, PROVIDED_FOR_VALUE> getProvidedObjectForValueExtractor();
     
+    /* -------------------------------------------------- Write Through -------------------------------------------------- */
+    
+    /**
+     * Returns whether the entries of the property are added and removed directly in the database without loading all of them first.
+     * The result of such an operation is then derived from the number of affected rows, which avoids keeping large collections in memory.
+     */
+    @Pure
+    @Default("false")
+    public abstract boolean isWriteThrough();
+    
+    /* -------------------------------------------------- Partial Loading -------------------------------------------------- */
+    
+    /**
+     * Returns whether the entries of the property are loaded only on demand instead of all at once.
+     * Lookups by {@link ReadOnlyPersistentMapProperty#get(Object) key} then query the database directly and cache their result,
+     * iteration pages through the entries with {@link ReadOnlyPersistentMapProperty#getPage(Object)} and only {@link ReadOnlyPersistentMapProperty#get()} materializes the whole map.
+     * The entries are then also added and removed {@link #isWriteThrough() directly} in the database.
+     */
+    @Pure
+    @Default("false")
+    public abstract boolean isLoadedPartially();
+    
+    /**
+     * Returns the maximum number of entries that are loaded at once when paging through the property.
+     */
+    @Pure
+    @Default("1_000")
+    public abstract @Positive int getPageSize();
+    
+    /* -------------------------------------------------- Prefetching -------------------------------------------------- */
+    
+    /**
+     * Prefetches nothing if the entries of the property are {@link #isLoadedPartially() loaded partially}, as this would load all entries of the given subjects at once.
+     */
+    @Override
+    @NonCommitting
+    @PureWithSideEffects
+    public void prefetch(@Nonnull @NonNullableElements Iterable<? extends SUBJECT> subjects) throws DatabaseException, RecoveryException {
+        if (!isLoadedPartially()) { PersistentPropertyTable.super.prefetch(subjects); }
+    }
+    
+    /* -------------------------------------------------- Observer Dispatch -------------------------------------------------- */
+    
+    /**
+     * Returns how the observers of the property are notified about changes of its entries.
+     */
+    @Pure
+    @Default("net.digitalid.database.property.PersistentObserverDispatch.SYNCHRONOUS")
+    public abstract @Nonnull PersistentObserverDispatch getObserverDispatch();
+    
     /* -------------------------------------------------- Converters -------------------------------------------------- */
     
     /**
@@ -19,15 +19,19 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Captured;
 import net.digitalid.utility.annotations.ownership.NonCapturable;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.list.FreezableList;
 import net.digitalid.utility.collections.map.ReadOnlyMap;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.freezable.annotations.NonFrozen;
 import net.digitalid.utility.property.map.ReadOnlyMapProperty;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.type.ReadOnly;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
@@ -58,4 +62,29 @@ public interface ReadOnlyPersistentMapProperty<@Unspecifiable SUBJECT extends Su
     @NonCommitting
     public @NonCapturable @Nullable @Valid VALUE get(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) throws DatabaseException, RecoveryException;
     
+    /* -------------------------------------------------- Paging -------------------------------------------------- */
+    
+    /**
+     * Returns the next page of entries whose keys follow the given key in the order of their columns or the first page if the given key is null.
+     * The key of the last entry of a page can be passed to retrieve the next page until an empty page is returned.
+     * In contrast to {@link #get()}, this method does not load the whole map into memory.
+     */
+    @Pure
+    @NonCommitting
+    public @Nonnull @NonNullableElements @NonFrozen FreezableList<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> getPage(@NonCaptured @Unmodified @Nullable @Valid("key") KEY after) throws DatabaseException, RecoveryException;
+    
+    /* -------------------------------------------------- Delta Observers -------------------------------------------------- */
+    
+    /**
+     * Registers the given delta observer, which is notified once per reset and once per committed transaction with all entries that changed.
+     */
+    @Impure
+    public void registerDeltaObserver(@Captured @Nonnull PersistentMapDeltaObserver<SUBJECT, KEY, VALUE, READONLY_MAP> observer);
+    
+    /**
+     * Deregisters the given delta observer so that it is no longer notified.
+     */
+    @Impure
+    public void deregisterDeltaObserver(@NonCaptured @Unmodified @Nonnull PersistentMapDeltaObserver<SUBJECT, KEY, VALUE, READONLY_MAP> observer);
+    
 }
@@ -15,7 +15,14 @@
  */
 package net.digitalid.database.property.map;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -40,10 +47,12 @@ import net.digitalid.utility.freezable.annotations.NonFrozen;
 import net.digitalid.utility.functional.interfaces.Predicate;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.property.map.WritableMapPropertyImplementation;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
+import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
 import net.digitalid.database.annotations.transaction.Committing;
@@ -53,6 +62,11 @@ import net.digitalid.database.conversion.WhereCondition;
 import net.digitalid.database.conversion.WhereConditionBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.Transaction;
+import net.digitalid.database.property.PersistentObserverDispatch;
+import net.digitalid.database.property.PersistentObserverDispatcher;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.PersistentPropertyTable;
 import net.digitalid.database.property.subject.Subject;
 import net.digitalid.database.property.subject.SubjectUtility;
 
@@ -62,7 +76,7 @@ import net.digitalid.database.property.subject.SubjectUtility;
 @ThreadSafe
 @GenerateBuilder
 @GenerateSubclass
-public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable KEY, @Unspecifiable VALUE, @Unspecifiable READONLY_MAP extends ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_MAP extends FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>> extends WritableMapPropertyImplementation<KEY, VALUE, READONLY_MAP, DatabaseException, RecoveryException, PersistentMapObserver<SUBJECT, KEY, VALUE, READONLY_MAP>, ReadOnlyPersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP>> implements WritablePersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP, FREEZABLE_MAP> {
+public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable KEY, @Unspecifiable VALUE, @Unspecifiable READONLY_MAP extends ReadOnlyMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_MAP extends FreezableMap<@Nonnull @Valid("key") KEY, @Nonnull @Valid VALUE>> extends WritableMapPropertyImplementation<KEY, VALUE, READONLY_MAP, DatabaseException, RecoveryException, PersistentMapObserver<SUBJECT, KEY, VALUE, READONLY_MAP>, ReadOnlyPersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP>> implements WritablePersistentMapProperty<SUBJECT, KEY, VALUE, READONLY_MAP, FREEZABLE_MAP>, PersistentPropertyCache.Evictable, PersistentPropertyTable.Prefetchable<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> {
     
     /* -------------------------------------------------- Validators -------------------------------------------------- */
     
@@ -80,6 +94,10 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     
     /* -------------------------------------------------- Map -------------------------------------------------- */
     
+    /**
+     * Returns an empty map of the type in which the entries of this property are loaded.
+     * Each load populates a {@link FreezableMap#clone() clone} of this map so that discarding the loaded entries never modifies a map that was handed out.
+     */
     @Pure
     protected abstract @Nonnull @NonFrozen FREEZABLE_MAP getMap();
     
@@ -91,31 +109,238 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     
     /* -------------------------------------------------- Loading -------------------------------------------------- */
     
-    protected boolean loaded = false;
+    /**
+     * Stores the loaded key-value pairs of this property or null if they are not loaded.
+     * The map is only replaced while the lock is held but is read without the lock.
+     */
+    private volatile @Nullable FREEZABLE_MAP loadedMap;
+    
+    /**
+     * Returns whether the key-value pairs of this property are loaded.
+     */
+    @Pure
+    protected boolean isLoaded() {
+        return loadedMap != null;
+    }
     
     /**
      * Loads the key-value pairs of this property from the database.
      * 
      * @param locking whether this method acquires the non-reentrant lock.
+     * 
+     * @return the map with the loaded key-value pairs.
      */
     @Pure
     @NonCommitting
-    protected void load(final boolean locking) throws DatabaseException, RecoveryException {
+    protected @Nonnull @NonFrozen FREEZABLE_MAP load(final boolean locking) throws DatabaseException, RecoveryException {
         if (locking) { lock.lock(); }
         try {
-            getMap().clear();
-            final @Nonnull String prefix = getTable().getParentModule().getSubjectTable().getTypeName().toLowerCase();
-            final @Nonnull @NonNullableElements WhereCondition<SUBJECT> whereCondition = WhereConditionBuilder.withConverter(getTable().getParentModule().getSubjectTable()).withObject(getSubject()).withPrefix(prefix).build();
-            final @Nonnull @NonNullableElements FreezableList<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> entries = SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition);
-            for (@Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry : entries) {
-                getMap().put(entry.getKey(), entry.getValue());
-            }
-            this.loaded = true;
+            return populate(SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), getSubjectWhereCondition()));
+        } finally {
+            if (locking) { lock.unlock(); }
+        }
+    }
+    
+    /**
+     * Returns the loaded key-value pairs of this property and loads them first if necessary.
+     * 
+     * @param locking whether this method acquires the non-reentrant lock if the key-value pairs have to be loaded.
+     */
+    @Pure
+    @NonCommitting
+    private @Nonnull @NonFrozen FREEZABLE_MAP getLoadedMap(final boolean locking) throws DatabaseException, RecoveryException {
+        final @Nullable FREEZABLE_MAP map = loadedMap;
+        if (map == null) { return load(locking); } // This should never trigger a reentrance exception as add(key, value), remove(key, value) and reset() that call external code ensure that the map is loaded.
+        PersistentPropertyCache.access(registration);
+        return map;
+    }
+    
+    /**
+     * Populates a new map with the given entries and publishes it as the loaded key-value pairs of this property.
+     */
+    @Impure
+    @SuppressWarnings("unchecked")
+    private @Nonnull @NonFrozen FREEZABLE_MAP populate(@Nonnull @NonNullableElements Iterable<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> entries) {
+        final @Nonnull FREEZABLE_MAP map = (FREEZABLE_MAP) getMap().clone();
+        map.clear();
+        for (@Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry : entries) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        this.loadedMap = map;
+        discardCachedValues();
+        cache(map);
+        return map;
+    }
+    
+    @Impure
+    @Override
+    public void prefetch(@Nonnull @NonNullableElements List<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> entries) {
+        if (lock.isHeldByCurrentThread() || !lock.tryLock()) { return; }
+        try {
+            if (loadedMap == null) { populate(entries); }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the where condition that matches the entries of the subject of this property.
+     */
+    @Pure
+    private @Nonnull WhereCondition<SUBJECT> getSubjectWhereCondition() {
+        final @Nonnull String prefix = getTable().getParentModule().getSubjectTable().getTypeName().toLowerCase();
+        return WhereConditionBuilder.withConverter(getTable().getParentModule().getSubjectTable()).withObject(getSubject()).withPrefix(prefix).build();
+    }
+    
+    /**
+     * Returns the where conditions that match the entry with the given key of the subject of this property.
+     */
+    @Pure
+    private @Nonnull @NonNullableElements WhereCondition<?>[] getWhereConditions(@Nonnull KEY key) {
+        return new WhereCondition<?>[] {
+                getSubjectWhereCondition(),
+                WhereConditionBuilder.withConverter(getTable().getKeyConverter()).withObject(key).withPrefix("key").build()
+        };
+    }
+    
+    /* -------------------------------------------------- Caching -------------------------------------------------- */
+    
+    /**
+     * Stores the registration of this property in the cache while the key-value pairs are loaded.
+     */
+    private volatile @Nullable PersistentPropertyCache.Registration registration;
+    
+    /**
+     * Registers the loaded key-value pairs of this property in the cache, which replace the {@link #cachedValues cached values} in the registration.
+     */
+    @Impure
+    private void cache(@Nonnull FREEZABLE_MAP map) {
+        long bytes = 0;
+        for (Map.@Nonnull Entry<KEY, VALUE> entry : map.entrySet()) { bytes += PersistentPropertyCache.estimateEntrySize(entry.getKey(), entry.getValue()); }
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration == null) { this.registration = PersistentPropertyCache.register(this, map.size(), bytes); }
+        else { registration.resize(map.size(), bytes); }
+    }
+    
+    /**
+     * Updates the size of this property in the cache after an entry with the given estimated number of bytes has been added or removed.
+     */
+    @Impure
+    private void recache(@Nonnull FREEZABLE_MAP map, boolean added, long bytes) {
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration != null) { registration.resize(map.size(), Math.max(0, registration.getBytes() + (added ? bytes : -bytes))); }
+    }
+    
+    /**
+     * Removes this property from the cache after the key-value pairs have been discarded.
+     */
+    @Impure
+    private void uncache() {
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration != null) {
+            registration.unregister();
+            this.registration = null;
+        }
+    }
+    
+    /**
+     * Discards the loaded entries of this property so that they are loaded again when they are accessed next.
+     * The discarded map is left untouched because other threads might still be reading it without the lock.
+     */
+    @Impure
+    private void discard() {
+        this.loadedMap = null;
+        discardCachedValues();
+        uncache();
+    }
+    
+    @Impure
+    @Override
+    public boolean unload() {
+        if (lock.isHeldByCurrentThread() || !lock.tryLock()) { return false; }
+        try {
+            discard();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Discards the entries of this property after a rollback because they might no longer match the database.
+     */
+    @Impure
+    private void discardAfterRollback() {
+        final boolean locking = !lock.isHeldByCurrentThread();
+        if (locking) { lock.lock(); }
+        try {
+            discard();
         } finally {
             if (locking) { lock.unlock(); }
         }
     }
     
+    /* -------------------------------------------------- Partial Loading -------------------------------------------------- */
+    
+    /**
+     * Caches the values of the keys that were looked up individually while the map is {@link PersistentMapPropertyTable#isLoadedPartially() loaded partially}.
+     * A key that is mapped to null is known not to be in the map.
+     * The map is only modified while the lock is held and only as long as the map is not loaded, in which case the registration in the {@link PersistentPropertyCache cache} accounts for its entries.
+     */
+    private final @Nonnull Map<@Nonnull KEY, @Nullable VALUE> cachedValues = Collections.synchronizedMap(new HashMap<>());
+    
+    /**
+     * Stores the estimated number of bytes of the cached values.
+     */
+    private long cachedBytes = 0;
+    
+    /**
+     * Caches the given value of the given key and accounts for it in the cache unless the whole map is loaded.
+     * This method has to be called while the lock is held.
+     */
+    @Impure
+    private void cacheValue(@Nonnull @Valid("key") KEY key, @Nullable @Valid VALUE value) {
+        if (loadedMap != null) { return; }
+        final boolean replaced = cachedValues.containsKey(key);
+        final @Nullable VALUE previousValue = cachedValues.put(key, value);
+        cachedBytes += PersistentPropertyCache.estimateEntrySize(key, value) - (replaced ? PersistentPropertyCache.estimateEntrySize(key, previousValue) : 0);
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration == null) { this.registration = PersistentPropertyCache.register(this, cachedValues.size(), cachedBytes); }
+        else { registration.resize(cachedValues.size(), cachedBytes); }
+    }
+    
+    /**
+     * Discards the cached values without updating the registration, which is either removed or replaced by the caller.
+     */
+    @Impure
+    private void discardCachedValues() {
+        cachedValues.clear();
+        cachedBytes = 0;
+    }
+    
+    /**
+     * Looks up the value of the given key in the database and caches the result.
+     * This method has to be called while the lock is held.
+     */
+    @Pure
+    @NonCommitting
+    private @Nullable VALUE lookUp(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) throws DatabaseException, RecoveryException {
+        // A concurrent add(key, value) or remove(key) might have cached the value while this thread was waiting for the lock.
+        if (cachedValues.containsKey(key)) { return cachedValues.get(key); }
+        final @Nullable PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry = SQL.selectFirst(getTable(), getSubject().getUnit(), getSubject().getUnit(), getWhereConditions(key));
+        final @Nullable VALUE value = entry != null ? entry.getValue() : null;
+        cacheValue(key, value);
+        return value;
+    }
+    
+    /**
+     * Returns whether the entries of this property are added and removed directly in the database.
+     */
+    @Pure
+    private boolean isWriteThrough() {
+        return getTable().isWriteThrough() || getTable().isLoadedPartially();
+    }
+    
     /* -------------------------------------------------- Getters -------------------------------------------------- */
     
     @Pure
@@ -123,16 +348,140 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     @NonCommitting
     @SuppressWarnings("unchecked")
     public @Nonnull @NonFrozen READONLY_MAP get() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as add(key, value), remove(key, value) and reset() that call external code ensure that the map is loaded.
-        return (READONLY_MAP) getMap();
+        return (READONLY_MAP) getLoadedMap(true);
     }
     
     @Pure
     @Override
     @NonCommitting
     public @NonCapturable @Nullable @Valid VALUE get(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as add(key, value), remove(key, value) and reset() that call external code ensure that the map is loaded.
-        return getMap().get(key);
+        if (loadedMap == null && getTable().isLoadedPartially()) {
+            synchronized (cachedValues) {
+                if (cachedValues.containsKey(key)) {
+                    PersistentPropertyCache.access(registration);
+                    return cachedValues.get(key);
+                }
+            }
+            final boolean locking = !lock.isHeldByCurrentThread();
+            if (locking) { lock.lock(); }
+            try {
+                if (loadedMap == null) { return lookUp(key); }
+            } finally {
+                if (locking) { lock.unlock(); }
+            }
+        }
+        return getLoadedMap(true).get(key);
+    }
+    
+    @Pure
+    @Override
+    @NonCommitting
+    public @Nonnull @NonNullableElements @NonFrozen FreezableList<PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> getPage(@NonCaptured @Unmodified @Nullable @Valid("key") KEY after) throws DatabaseException, RecoveryException {
+        return SQL.selectPage(getTable(), getSubject().getUnit(), getSubject().getUnit(), getTable().getKeyConverter(), "key", after, getTable().getPageSize(), getSubjectWhereCondition());
+    }
+    
+    /* -------------------------------------------------- Notification -------------------------------------------------- */
+    
+    /**
+     * Returns the {@link PersistentMapPropertyTable#getObserverDispatch() observer dispatch} of the table, where coalesced notifications are dispatched asynchronously instead
+     * because the notifications of a map property are about different entries and an addition followed by a removal cannot be coalesced.
+     */
+    @Pure
+    private @Nonnull PersistentObserverDispatch getObserverDispatch() {
+        return getTable().getObserverDispatch() == PersistentObserverDispatch.COALESCED ? PersistentObserverDispatch.ASYNCHRONOUS : getTable().getObserverDispatch();
+    }
+    
+    /**
+     * Notifies the observers about the addition or removal of the given entry with the {@link #getObserverDispatch() observer dispatch} of this property.
+     */
+    @Impure
+    private void dispatchNotification(@Nonnull @Valid("key") KEY key, @Nonnull @Valid VALUE value, boolean added) {
+        PersistentObserverDispatcher.instance.get().dispatch(getObserverDispatch(), this, () -> notifyObservers(key, value, added));
+    }
+    
+    /* -------------------------------------------------- Delta Observers -------------------------------------------------- */
+    
+    private final @Nonnull List<@Nonnull PersistentMapDeltaObserver<SUBJECT, KEY, VALUE, READONLY_MAP>> deltaObservers = new CopyOnWriteArrayList<>();
+    
+    @Impure
+    @Override
+    public void registerDeltaObserver(@Captured @Nonnull PersistentMapDeltaObserver<SUBJECT, KEY, VALUE, READONLY_MAP> observer) {
+        deltaObservers.add(observer);
+    }
+    
+    @Impure
+    @Override
+    public void deregisterDeltaObserver(@NonCaptured @Unmodified @Nonnull PersistentMapDeltaObserver<SUBJECT, KEY, VALUE, READONLY_MAP> observer) {
+        deltaObservers.remove(observer);
+    }
+    
+    /**
+     * A change stores the value of a key before and after the changes, where null means that the key was not in the map.
+     */
+    @Mutable
+    private static class Change<@Unspecifiable VALUE> {
+        
+        private final @Nullable VALUE oldValue;
+        
+        private @Nullable VALUE newValue;
+        
+        private Change(@Nullable VALUE oldValue, @Nullable VALUE newValue) {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+        
+    }
+    
+    /**
+     * Stores the net changes of this property by the transactions that have not yet been committed.
+     */
+    private final @Nonnull Map<@Nonnull Transaction, @Nonnull Map<@Nonnull KEY, @Nonnull Change<VALUE>>> pendingChanges = new ConcurrentHashMap<>();
+    
+    /**
+     * Records the addition or removal of the given entry by the current transaction so that the delta observers are notified once after its commit.
+     * All changes within a {@link Database#runAsUnitOfWork(net.digitalid.utility.functional.failable.FailableConsumer) unit of work} are thus combined into a single delta.
+     */
+    @Impure
+    private void recordChange(@Nonnull @Valid("key") KEY key, @Nonnull @Valid VALUE value, boolean added) {
+        if (deltaObservers.isEmpty()) { return; }
+        final @Nonnull Transaction transaction = Database.instance.get().getCurrentTransaction();
+        @Nullable Map<@Nonnull KEY, @Nonnull Change<VALUE>> changes = pendingChanges.get(transaction);
+        if (changes == null) {
+            changes = new LinkedHashMap<>();
+            pendingChanges.put(transaction, changes);
+            transaction.runAfterCommit(() -> {
+                final @Nullable Map<@Nonnull KEY, @Nonnull Change<VALUE>> committedChanges = pendingChanges.remove(transaction);
+                if (committedChanges != null) { dispatchDelta(committedChanges); }
+            });
+            transaction.runAfterRollback(() -> pendingChanges.remove(transaction));
+        }
+        final @Nullable Change<VALUE> change = changes.get(key);
+        if (change != null) { change.newValue = added ? value : null; }
+        else { changes.put(key, new Change<>(added ? null : value, added ? value : null)); }
+    }
+    
+    /**
+     * Notifies the delta observers about the given changes, which are classified into added, removed and changed entries.
+     * Deltas are never coalesced, which is why they are dispatched with the {@link #getObserverDispatch() observer dispatch} of this property.
+     */
+    @Impure
+    private void dispatchDelta(@Nonnull Map<@Nonnull KEY, @Nonnull Change<VALUE>> changes) {
+        if (changes.isEmpty() || deltaObservers.isEmpty()) { return; }
+        final @Nonnull List<@Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> addedEntries = new ArrayList<>();
+        final @Nonnull List<@Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> removedEntries = new ArrayList<>();
+        final @Nonnull List<@Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE>> changedEntries = new ArrayList<>();
+        for (Map.@Nonnull Entry<@Nonnull KEY, @Nonnull Change<VALUE>> entry : changes.entrySet()) {
+            final @Nullable VALUE oldValue = entry.getValue().oldValue;
+            final @Nullable VALUE newValue = entry.getValue().newValue;
+            if (oldValue == null && newValue != null) { addedEntries.add(new PersistentMapPropertyEntrySubclass<>(getSubject(), entry.getKey(), newValue)); }
+            else if (oldValue != null && newValue == null) { removedEntries.add(new PersistentMapPropertyEntrySubclass<>(getSubject(), entry.getKey(), oldValue)); }
+            else if (oldValue != null && !oldValue.equals(newValue)) { changedEntries.add(new PersistentMapPropertyEntrySubclass<>(getSubject(), entry.getKey(), newValue)); }
+        }
+        final @Nonnull PersistentMapDelta<SUBJECT, KEY, VALUE> delta = PersistentMapDeltaBuilder.withAddedEntries(ImmutableList.withElementsOf(addedEntries)).withRemovedEntries(ImmutableList.withElementsOf(removedEntries)).withChangedEntries(ImmutableList.withElementsOf(changedEntries)).build();
+        if (delta.isEmpty()) { return; }
+        PersistentObserverDispatcher.instance.get().dispatch(getObserverDispatch(), this, () -> {
+            for (@Nonnull PersistentMapDeltaObserver<SUBJECT, KEY, VALUE, READONLY_MAP> observer : deltaObservers) { observer.notify(this, delta); }
+        });
     }
     
     /* -------------------------------------------------- Operations -------------------------------------------------- */
@@ -144,20 +493,34 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     public boolean add(@Captured @Nonnull @Valid("key") KEY key, @Captured @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
-            if (getMap().containsKey(key)) {
+            if (isWriteThrough()) {
+                final @Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry = new PersistentMapPropertyEntrySubclass<>(getSubject(), key, value);
+                final boolean added = SQL.insertOrIgnore(getTable(), entry, getSubject().getUnit()) > 0;
+                final @Nullable FREEZABLE_MAP map = loadedMap;
+                if (added && map != null) { map.put(key, value); recache(map, true, PersistentPropertyCache.estimateEntrySize(key, value)); }
+                if (added && getTable().isLoadedPartially()) { cacheValue(key, value); }
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                if (added) { recordChange(key, value, true); Database.commitAndNotify(() -> dispatchNotification(key, value, true)); }
+                else { Database.commit(); }
+                return added;
+            }
+            final @Nonnull FREEZABLE_MAP map = getLoadedMap(false);
+            if (map.containsKey(key)) {
                 Database.commit();
                 return false;
             } else {
                 final @Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry = new PersistentMapPropertyEntrySubclass<>(getSubject(), key, value);
                 SQL.insertOrAbort(getTable(), entry, getSubject().getUnit());
-                getMap().put(key, value);
-                Database.commit();
-                notifyObservers(key, value, true);
+                map.put(key, value);
+                recache(map, true, PersistentPropertyCache.estimateEntrySize(key, value));
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                recordChange(key, value, true);
+                Database.commitAndNotify(() -> dispatchNotification(key, value, true));
                 return true;
             }
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -168,14 +531,37 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     public @Capturable @Nullable @Valid VALUE remove(@NonCaptured @Unmodified @Nonnull @Valid("key") KEY key) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
-            final @Nullable VALUE value = getMap().get(key);
+            if (isWriteThrough()) {
+                final @Nonnull @NonNullableElements WhereCondition<?>[] whereConditions = getWhereConditions(key);
+                final @Nullable FREEZABLE_MAP map = loadedMap;
+                final @Nullable VALUE value;
+                if (map != null) {
+                    value = map.get(key);
+                } else if (cachedValues.containsKey(key)) {
+                    value = cachedValues.get(key);
+                } else {
+                    // Only the removed entry is selected because the value has to be returned.
+                    final @Nullable PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry = SQL.selectFirst(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereConditions);
+                    value = entry != null ? entry.getValue() : null;
+                }
+                final boolean removed = value != null && SQL.delete(getTable(), getSubject().getUnit(), whereConditions) > 0;
+                if (removed && map != null) { map.remove(key); recache(map, false, PersistentPropertyCache.estimateEntrySize(key, value)); }
+                if (getTable().isLoadedPartially()) { cacheValue(key, null); }
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                if (removed) { recordChange(key, value, false); Database.commitAndNotify(() -> dispatchNotification(key, value, false)); }
+                else { Database.commit(); }
+                return removed ? value : null;
+            }
+            final @Nonnull FREEZABLE_MAP map = getLoadedMap(false);
+            final @Nullable VALUE value = map.get(key);
             if (value != null) {
                 final @Nonnull PersistentMapPropertyEntry<SUBJECT, KEY, VALUE> entry = new PersistentMapPropertyEntrySubclass<>(getSubject(), key, value); // TODO: The value should actually not be necessary.
                 SQL.delete(getTable(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build());
-                getMap().remove(key);
-                Database.commit();
-                notifyObservers(key, value, false);
+                map.remove(key);
+                recache(map, false, PersistentPropertyCache.estimateEntrySize(key, value));
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                recordChange(key, value, false);
+                Database.commitAndNotify(() -> dispatchNotification(key, value, false));
                 return value;
             } else {
                 Database.commit();
@@ -183,6 +569,7 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
             }
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -195,23 +582,25 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     public void reset() throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (loaded) {
-                if (observers.isEmpty()) {
-                    this.loaded = false;
-                } else {
-                    final @Nonnull FreezableMap<KEY, VALUE> oldMap = getMap().clone();
-                    load(false);
-                    final @Nonnull FreezableMap<KEY, VALUE> newMap = getMap();
-                    for (Map.@Nonnull Entry<KEY, VALUE> entry : newMap.entrySet().exclude(oldMap.entrySet())) {
-                        notifyObservers(entry.getKey(), entry.getValue(), true);
-                    }
-                    for (Map.@Nonnull Entry<KEY, VALUE> entry : oldMap.entrySet().exclude(newMap.entrySet())) {
-                        notifyObservers(entry.getKey(), entry.getValue(), false);
-                    }
+            final @Nullable FREEZABLE_MAP oldMap = loadedMap;
+            if (oldMap == null || observers.isEmpty() && deltaObservers.isEmpty()) {
+                discard();
+            } else {
+                final @Nonnull FREEZABLE_MAP newMap = load(false);
+                final @Nonnull Map<@Nonnull KEY, @Nonnull Change<VALUE>> changes = new LinkedHashMap<>();
+                for (Map.@Nonnull Entry<KEY, VALUE> entry : newMap.entrySet().exclude(oldMap.entrySet())) {
+                    dispatchNotification(entry.getKey(), entry.getValue(), true);
+                    changes.put(entry.getKey(), new Change<>(oldMap.get(entry.getKey()), entry.getValue()));
                 }
+                for (Map.@Nonnull Entry<KEY, VALUE> entry : oldMap.entrySet().exclude(newMap.entrySet())) {
+                    dispatchNotification(entry.getKey(), entry.getValue(), false);
+                    if (!changes.containsKey(entry.getKey())) { changes.put(entry.getKey(), new Change<>(entry.getValue(), null)); }
+                }
+                dispatchDelta(changes);
             }
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -223,10 +612,13 @@ public abstract class WritablePersistentMapPropertyImplementation<@Unspecifiable
     public void validate() {
         super.validate();
         
-        Validate.that(!getMap().keySet().containsNull()).orThrow("None of the keys may be null.");
-        Validate.that(!getMap().values().containsNull()).orThrow("None of the values may be null.");
-        Validate.that(getMap().keySet().matchAll(getKeyValidator())).orThrow("Each key has to be valid.");
-        Validate.that(getMap().values().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+        final @Nullable FREEZABLE_MAP map = loadedMap;
+        if (map != null) {
+            Validate.that(!map.keySet().containsNull()).orThrow("None of the keys may be null.");
+            Validate.that(!map.values().containsNull()).orThrow("None of the values may be null.");
+            Validate.that(map.keySet().matchAll(getKeyValidator())).orThrow("Each key has to be valid.");
+            Validate.that(map.values().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+        }
     }
     
     /* -------------------------------------------------- Initialization -------------------------------------------------- */
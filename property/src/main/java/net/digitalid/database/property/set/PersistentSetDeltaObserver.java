@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property.set;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.collections.set.ReadOnlySet;
+import net.digitalid.utility.validation.annotations.type.Functional;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+import net.digitalid.utility.validation.annotations.value.Valid;
+
+import net.digitalid.database.property.subject.Subject;
+
+/**
+ * Objects that implement this interface can be {@link ReadOnlyPersistentSetProperty#registerDeltaObserver(PersistentSetDeltaObserver) registered} to be notified once per change of a {@link ReadOnlyPersistentSetProperty persistent set property} with all its added and removed values.
+ * In contrast to a {@link PersistentSetObserver}, which is notified once per value, a delta observer is notified once per reset and once per committed transaction.
+ */
+@Mutable
+@Functional
+public interface PersistentSetDeltaObserver<@Unspecifiable SUBJECT extends Subject<?>, @Unspecifiable VALUE, @Unspecifiable READONLY_SET extends ReadOnlySet<@Nonnull @Valid VALUE>> {
+    
+    /**
+     * This method is called after the given property changed by the given delta, which is never empty.
+     */
+    @Impure
+    public void notify(@Nonnull ReadOnlyPersistentSetProperty<SUBJECT, VALUE, READONLY_SET> property, @Nonnull PersistentSetDelta<VALUE> delta);
+    
+}
@@ -16,10 +16,16 @@
 package net.digitalid.database.property.set;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Captured;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.list.FreezableList;
 import net.digitalid.utility.collections.set.ReadOnlySet;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.freezable.annotations.NonFrozen;
@@ -50,4 +56,37 @@ public interface ReadOnlyPersistentSetProperty<@Unspecifiable SUBJECT extends Su
     @NonCommitting
     public @Nonnull @NonFrozen @NonNullableElements READONLY_SET get() throws DatabaseException, RecoveryException;
     
+    /**
+     * Returns whether this property contains the given value.
+     * In contrast to {@link #get()}, this method does not load the whole set into memory if the values are {@link PersistentSetPropertyTable#isLoadedPartially() loaded partially}.
+     */
+    @Pure
+    @NonCommitting
+    public boolean contains(@NonCaptured @Unmodified @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException;
+    
+    /* -------------------------------------------------- Paging -------------------------------------------------- */
+    
+    /**
+     * Returns the next page of values which follow the given value in the order of their columns or the first page if the given value is null.
+     * The last value of a page can be passed to retrieve the next page until an empty page is returned.
+     * In contrast to {@link #get()}, this method does not load the whole set into memory.
+     */
+    @Pure
+    @NonCommitting
+    public @Nonnull @NonNullableElements @NonFrozen FreezableList<VALUE> getPage(@NonCaptured @Unmodified @Nullable @Valid VALUE after) throws DatabaseException, RecoveryException;
+    
+    /* -------------------------------------------------- Delta Observers -------------------------------------------------- */
+    
+    /**
+     * Registers the given delta observer, which is notified once per reset and once per committed transaction with all values that changed.
+     */
+    @Impure
+    public void registerDeltaObserver(@Captured @Nonnull PersistentSetDeltaObserver<SUBJECT, VALUE, READONLY_SET> observer);
+    
+    /**
+     * Deregisters the given delta observer so that it is no longer notified.
+     */
+    @Impure
+    public void deregisterDeltaObserver(@NonCaptured @Unmodified @Nonnull PersistentSetDeltaObserver<SUBJECT, VALUE, READONLY_SET> observer);
+    
 }
@@ -15,7 +15,17 @@
  */
 package net.digitalid.database.property.set;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.CallSuper;
@@ -26,6 +36,7 @@ import net.digitalid.utility.annotations.ownership.Captured;
 import net.digitalid.utility.annotations.ownership.NonCaptured;
 import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.annotations.type.ThreadSafe;
+import net.digitalid.utility.collections.list.FreezableArrayList;
 import net.digitalid.utility.collections.list.FreezableList;
 import net.digitalid.utility.collections.set.FreezableSet;
 import net.digitalid.utility.collections.set.ReadOnlySet;
@@ -35,6 +46,7 @@ import net.digitalid.utility.freezable.annotations.NonFrozen;
 import net.digitalid.utility.functional.interfaces.Predicate;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.property.set.WritableSetPropertyImplementation;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
@@ -48,6 +60,11 @@ import net.digitalid.database.conversion.WhereCondition;
 import net.digitalid.database.conversion.WhereConditionBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.Transaction;
+import net.digitalid.database.property.PersistentObserverDispatch;
+import net.digitalid.database.property.PersistentObserverDispatcher;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.PersistentPropertyTable;
 import net.digitalid.database.property.subject.Subject;
 import net.digitalid.database.property.subject.SubjectUtility;
 
@@ -59,7 +76,7 @@ import net.digitalid.database.property.subject.SubjectUtility;
 @ThreadSafe
 @GenerateBuilder
 @GenerateSubclass
-public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable VALUE, @Unspecifiable READONLY_SET extends ReadOnlySet<@Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_SET extends FreezableSet<@Nonnull @Valid VALUE>> extends WritableSetPropertyImplementation<VALUE, READONLY_SET, DatabaseException, RecoveryException, PersistentSetObserver<SUBJECT, VALUE, READONLY_SET>, ReadOnlyPersistentSetProperty<SUBJECT, VALUE, READONLY_SET>> implements WritablePersistentSetProperty<SUBJECT, VALUE, READONLY_SET, FREEZABLE_SET> {
+public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Unspecifiable VALUE, @Unspecifiable READONLY_SET extends ReadOnlySet<@Nonnull @Valid VALUE>, @Unspecifiable FREEZABLE_SET extends FreezableSet<@Nonnull @Valid VALUE>> extends WritableSetPropertyImplementation<VALUE, READONLY_SET, DatabaseException, RecoveryException, PersistentSetObserver<SUBJECT, VALUE, READONLY_SET>, ReadOnlyPersistentSetProperty<SUBJECT, VALUE, READONLY_SET>> implements WritablePersistentSetProperty<SUBJECT, VALUE, READONLY_SET, FREEZABLE_SET>, PersistentPropertyCache.Evictable, PersistentPropertyTable.Prefetchable<PersistentSetPropertyEntry<SUBJECT, VALUE>> {
     
     /* -------------------------------------------------- Validator -------------------------------------------------- */
     
@@ -71,6 +88,10 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     
     /* -------------------------------------------------- Set -------------------------------------------------- */
     
+    /**
+     * Returns an empty set of the type in which the values of this property are loaded.
+     * Each load populates a {@link FreezableSet#clone() clone} of this set so that discarding the loaded values never modifies a set that was handed out.
+     */
     @Pure
     protected abstract @Nonnull @NonFrozen @NonNullableElements FREEZABLE_SET getSet();
     
@@ -82,40 +103,347 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     
     /* -------------------------------------------------- Loading -------------------------------------------------- */
     
-    protected boolean loaded = false;
+    /**
+     * Stores the loaded values of this property or null if they are not loaded.
+     * The set is only replaced while the lock is held but is read without the lock.
+     */
+    private volatile @Nullable FREEZABLE_SET loadedSet;
+    
+    /**
+     * Returns whether the values of this property are loaded.
+     */
+    @Pure
+    protected boolean isLoaded() {
+        return loadedSet != null;
+    }
     
     /**
      * Loads the values of this property from the database.
      * 
      * @param locking whether this method acquires the non-reentrant lock.
+     * 
+     * @return the set with the loaded values.
      */
     @Pure
     @NonCommitting
-    protected void load(final boolean locking) throws DatabaseException, RecoveryException {
+    protected @Nonnull @NonFrozen FREEZABLE_SET load(final boolean locking) throws DatabaseException, RecoveryException {
         if (locking) { lock.lock(); }
         try {
-            getSet().clear();
-            final @Nonnull String prefix = getTable().getParentModule().getSubjectTable().getTypeName().toLowerCase();
-            final @Nonnull WhereCondition<SUBJECT> whereCondition = WhereConditionBuilder.withConverter(getTable().getParentModule().getSubjectTable()).withObject(getSubject()).withPrefix(prefix).build();
-            final @Nonnull @NonNullableElements FreezableList<PersistentSetPropertyEntry<SUBJECT, VALUE>> entries = SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition);
-            for (@Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry : entries) {
-                getSet().add(entry.getValue());
-            }
-            this.loaded = true;
+            return populate(SQL.selectAll(getTable(), getSubject().getUnit(), getSubject().getUnit(), getSubjectWhereCondition()));
         } finally {
             if (locking) { lock.unlock(); }
         }
     }
     
-    /* -------------------------------------------------- Getter -------------------------------------------------- */
+    /**
+     * Returns the loaded values of this property and loads them first if necessary.
+     * 
+     * @param locking whether this method acquires the non-reentrant lock if the values have to be loaded.
+     */
+    @Pure
+    @NonCommitting
+    private @Nonnull @NonFrozen FREEZABLE_SET getLoadedSet(final boolean locking) throws DatabaseException, RecoveryException {
+        final @Nullable FREEZABLE_SET set = loadedSet;
+        if (set == null) { return load(locking); } // This should never trigger a reentrance exception as add(value), remove(value) and reset() that call external code ensure that the set is loaded.
+        PersistentPropertyCache.access(registration);
+        return set;
+    }
+    
+    /**
+     * Populates a new set with the given entries and publishes it as the loaded values of this property.
+     */
+    @Impure
+    @SuppressWarnings("unchecked")
+    private @Nonnull @NonFrozen FREEZABLE_SET populate(@Nonnull @NonNullableElements Iterable<PersistentSetPropertyEntry<SUBJECT, VALUE>> entries) {
+        final @Nonnull FREEZABLE_SET set = (FREEZABLE_SET) getSet().clone();
+        set.clear();
+        for (@Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry : entries) {
+            set.add(entry.getValue());
+        }
+        this.loadedSet = set;
+        discardCachedValues();
+        cache(set);
+        return set;
+    }
+    
+    @Impure
+    @Override
+    public void prefetch(@Nonnull @NonNullableElements List<PersistentSetPropertyEntry<SUBJECT, VALUE>> entries) {
+        if (lock.isHeldByCurrentThread() || !lock.tryLock()) { return; }
+        try {
+            if (loadedSet == null) { populate(entries); }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the where condition that matches the entries of the subject of this property.
+     */
+    @Pure
+    private @Nonnull WhereCondition<SUBJECT> getSubjectWhereCondition() {
+        final @Nonnull String prefix = getTable().getParentModule().getSubjectTable().getTypeName().toLowerCase();
+        return WhereConditionBuilder.withConverter(getTable().getParentModule().getSubjectTable()).withObject(getSubject()).withPrefix(prefix).build();
+    }
+    
+    /* -------------------------------------------------- Caching -------------------------------------------------- */
+    
+    /**
+     * Stores the registration of this property in the cache while the values are loaded.
+     */
+    private volatile @Nullable PersistentPropertyCache.Registration registration;
+    
+    /**
+     * Registers the loaded values of this property in the cache, which replace the {@link #cachedValues cached values} in the registration.
+     */
+    @Impure
+    private void cache(@Nonnull @NonNullableElements FREEZABLE_SET set) {
+        long bytes = 0;
+        for (@Nonnull VALUE value : set) { bytes += PersistentPropertyCache.estimateEntrySize(value, null); }
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration == null) { this.registration = PersistentPropertyCache.register(this, set.size(), bytes); }
+        else { registration.resize(set.size(), bytes); }
+    }
+    
+    /**
+     * Updates the size of this property in the cache after an entry with the given estimated number of bytes has been added or removed.
+     */
+    @Impure
+    private void recache(@Nonnull @NonNullableElements FREEZABLE_SET set, boolean added, long bytes) {
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration != null) { registration.resize(set.size(), Math.max(0, registration.getBytes() + (added ? bytes : -bytes))); }
+    }
+    
+    /**
+     * Removes this property from the cache after the values have been discarded.
+     */
+    @Impure
+    private void uncache() {
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration != null) {
+            registration.unregister();
+            this.registration = null;
+        }
+    }
+    
+    /**
+     * Discards the loaded values of this property so that they are loaded again when they are accessed next.
+     * The discarded set is left untouched because other threads might still be reading it without the lock.
+     */
+    @Impure
+    private void discard() {
+        this.loadedSet = null;
+        discardCachedValues();
+        uncache();
+    }
+    
+    @Impure
+    @Override
+    public boolean unload() {
+        if (lock.isHeldByCurrentThread() || !lock.tryLock()) { return false; }
+        try {
+            discard();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Discards the values of this property after a rollback because they might no longer match the database.
+     */
+    @Impure
+    private void discardAfterRollback() {
+        final boolean locking = !lock.isHeldByCurrentThread();
+        if (locking) { lock.lock(); }
+        try {
+            discard();
+        } finally {
+            if (locking) { lock.unlock(); }
+        }
+    }
+    
+    /* -------------------------------------------------- Partial Loading -------------------------------------------------- */
+    
+    /**
+     * Caches whether the values that were looked up individually while the set is {@link PersistentSetPropertyTable#isLoadedPartially() loaded partially} are contained in the set.
+     * The map is only modified while the lock is held and only as long as the set is not loaded, in which case the registration in the {@link PersistentPropertyCache cache} accounts for its entries.
+     */
+    private final @Nonnull Map<@Nonnull VALUE, @Nonnull Boolean> cachedValues = Collections.synchronizedMap(new HashMap<>());
+    
+    /**
+     * Stores the estimated number of bytes of the cached values.
+     */
+    private long cachedBytes = 0;
+    
+    /**
+     * Caches whether the given value is contained in the set and accounts for it in the cache unless the whole set is loaded.
+     * This method has to be called while the lock is held.
+     */
+    @Impure
+    private void cacheValue(@Nonnull @Valid VALUE value, boolean contained) {
+        if (loadedSet != null || cachedValues.put(value, contained) != null) { return; }
+        cachedBytes += PersistentPropertyCache.estimateEntrySize(value, contained);
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration == null) { this.registration = PersistentPropertyCache.register(this, cachedValues.size(), cachedBytes); }
+        else { registration.resize(cachedValues.size(), cachedBytes); }
+    }
+    
+    /**
+     * Discards the cached values without updating the registration, which is either removed or replaced by the caller.
+     */
+    @Impure
+    private void discardCachedValues() {
+        cachedValues.clear();
+        cachedBytes = 0;
+    }
+    
+    /**
+     * Looks up whether the given value is contained in the set in the database and caches the result.
+     * This method has to be called while the lock is held.
+     */
+    @Pure
+    @NonCommitting
+    private boolean lookUp(@NonCaptured @Unmodified @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
+        // A concurrent add(value) or remove(value) might have cached the result while this thread was waiting for the lock.
+        final @Nullable Boolean cachedResult = cachedValues.get(value);
+        if (cachedResult != null) { return cachedResult; }
+        final @Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry = new PersistentSetPropertyEntrySubclass<>(getSubject(), value);
+        final boolean result = SQL.selectFirst(getTable(), getSubject().getUnit(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build()) != null;
+        cacheValue(value, result);
+        return result;
+    }
+    
+    /**
+     * Returns whether the values of this property are added and removed directly in the database.
+     */
+    @Pure
+    private boolean isWriteThrough() {
+        return getTable().isWriteThrough() || getTable().isLoadedPartially();
+    }
+    
+    /* -------------------------------------------------- Getters -------------------------------------------------- */
     
     @Pure
     @Override
     @NonCommitting
     @SuppressWarnings("unchecked")
     public @Nonnull @NonFrozen @NonNullableElements READONLY_SET get() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as add(value), remove(value) and reset() that call external code ensure that the set is loaded.
-        return (READONLY_SET) getSet();
+        return (READONLY_SET) getLoadedSet(true);
+    }
+    
+    @Pure
+    @Override
+    @NonCommitting
+    public boolean contains(@NonCaptured @Unmodified @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
+        if (loadedSet == null && getTable().isLoadedPartially()) {
+            final @Nullable Boolean cachedResult = cachedValues.get(value);
+            if (cachedResult != null) {
+                PersistentPropertyCache.access(registration);
+                return cachedResult;
+            }
+            final boolean locking = !lock.isHeldByCurrentThread();
+            if (locking) { lock.lock(); }
+            try {
+                if (loadedSet == null) { return lookUp(value); }
+            } finally {
+                if (locking) { lock.unlock(); }
+            }
+        }
+        return getLoadedSet(true).contains(value);
+    }
+    
+    @Pure
+    @Override
+    @NonCommitting
+    public @Nonnull @NonNullableElements @NonFrozen FreezableList<VALUE> getPage(@NonCaptured @Unmodified @Nullable @Valid VALUE after) throws DatabaseException, RecoveryException {
+        final @Nonnull FreezableList<VALUE> values = FreezableArrayList.withNoElements();
+        for (@Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry : SQL.selectPage(getTable(), getSubject().getUnit(), getSubject().getUnit(), getTable().getValueConverter(), "value", after, getTable().getPageSize(), getSubjectWhereCondition())) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+    
+    /* -------------------------------------------------- Notification -------------------------------------------------- */
+    
+    /**
+     * Returns the {@link PersistentSetPropertyTable#getObserverDispatch() observer dispatch} of the table, where coalesced notifications are dispatched asynchronously instead
+     * because the notifications of a set property are about different values and an addition followed by a removal cannot be coalesced.
+     */
+    @Pure
+    private @Nonnull PersistentObserverDispatch getObserverDispatch() {
+        return getTable().getObserverDispatch() == PersistentObserverDispatch.COALESCED ? PersistentObserverDispatch.ASYNCHRONOUS : getTable().getObserverDispatch();
+    }
+    
+    /**
+     * Notifies the observers about the addition or removal of the given value with the {@link #getObserverDispatch() observer dispatch} of this property.
+     */
+    @Impure
+    private void dispatchNotification(@Nonnull @Valid VALUE value, boolean added) {
+        PersistentObserverDispatcher.instance.get().dispatch(getObserverDispatch(), this, () -> notifyObservers(value, added));
+    }
+    
+    /* -------------------------------------------------- Delta Observers -------------------------------------------------- */
+    
+    private final @Nonnull List<@Nonnull PersistentSetDeltaObserver<SUBJECT, VALUE, READONLY_SET>> deltaObservers = new CopyOnWriteArrayList<>();
+    
+    @Impure
+    @Override
+    public void registerDeltaObserver(@Captured @Nonnull PersistentSetDeltaObserver<SUBJECT, VALUE, READONLY_SET> observer) {
+        deltaObservers.add(observer);
+    }
+    
+    @Impure
+    @Override
+    public void deregisterDeltaObserver(@NonCaptured @Unmodified @Nonnull PersistentSetDeltaObserver<SUBJECT, VALUE, READONLY_SET> observer) {
+        deltaObservers.remove(observer);
+    }
+    
+    /**
+     * Stores the net changes of this property by the transactions that have not yet been committed, where each value is mapped to whether it was added.
+     */
+    private final @Nonnull Map<@Nonnull Transaction, @Nonnull Map<@Nonnull VALUE, @Nonnull Boolean>> pendingChanges = new ConcurrentHashMap<>();
+    
+    /**
+     * Records the addition or removal of the given value by the current transaction so that the delta observers are notified once after its commit.
+     * All changes within a {@link Database#runAsUnitOfWork(net.digitalid.utility.functional.failable.FailableConsumer) unit of work} are thus combined into a single delta.
+     */
+    @Impure
+    private void recordChange(@Nonnull @Valid VALUE value, boolean added) {
+        if (deltaObservers.isEmpty()) { return; }
+        final @Nonnull Transaction transaction = Database.instance.get().getCurrentTransaction();
+        @Nullable Map<@Nonnull VALUE, @Nonnull Boolean> changes = pendingChanges.get(transaction);
+        if (changes == null) {
+            changes = new LinkedHashMap<>();
+            pendingChanges.put(transaction, changes);
+            transaction.runAfterCommit(() -> {
+                final @Nullable Map<@Nonnull VALUE, @Nonnull Boolean> committedChanges = pendingChanges.remove(transaction);
+                if (committedChanges != null) { dispatchDelta(committedChanges); }
+            });
+            transaction.runAfterRollback(() -> pendingChanges.remove(transaction));
+        }
+        final @Nullable Boolean previouslyAdded = changes.get(value);
+        if (previouslyAdded != null && previouslyAdded != added) { changes.remove(value); }
+        else { changes.put(value, added); }
+    }
+    
+    /**
+     * Notifies the delta observers about the given changes, where each value is mapped to whether it was added.
+     * Deltas are never coalesced, which is why they are dispatched with the {@link #getObserverDispatch() observer dispatch} of this property.
+     */
+    @Impure
+    private void dispatchDelta(@Nonnull Map<@Nonnull VALUE, @Nonnull Boolean> changes) {
+        if (changes.isEmpty() || deltaObservers.isEmpty()) { return; }
+        final @Nonnull List<@Nonnull VALUE> addedValues = new ArrayList<>();
+        final @Nonnull List<@Nonnull VALUE> removedValues = new ArrayList<>();
+        for (Map.@Nonnull Entry<@Nonnull VALUE, @Nonnull Boolean> change : changes.entrySet()) {
+            if (change.getValue()) { addedValues.add(change.getKey()); }
+            else { removedValues.add(change.getKey()); }
+        }
+        final @Nonnull PersistentSetDelta<VALUE> delta = PersistentSetDeltaBuilder.withAddedValues(ImmutableList.withElementsOf(addedValues)).withRemovedValues(ImmutableList.withElementsOf(removedValues)).build();
+        PersistentObserverDispatcher.instance.get().dispatch(getObserverDispatch(), this, () -> {
+            for (@Nonnull PersistentSetDeltaObserver<SUBJECT, VALUE, READONLY_SET> observer : deltaObservers) { observer.notify(this, delta); }
+        });
     }
     
     /* -------------------------------------------------- Operations -------------------------------------------------- */
@@ -127,20 +455,34 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     public boolean add(@Captured @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
-            if (getSet().contains(value)) {
+            if (isWriteThrough()) {
+                final @Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry = new PersistentSetPropertyEntrySubclass<>(getSubject(), value);
+                final boolean added = SQL.insertOrIgnore(getTable(), entry, getSubject().getUnit()) > 0;
+                final @Nullable FREEZABLE_SET set = loadedSet;
+                if (added && set != null) { set.add(value); recache(set, true, PersistentPropertyCache.estimateEntrySize(value, null)); }
+                if (getTable().isLoadedPartially()) { cacheValue(value, true); }
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                if (added) { recordChange(value, true); Database.commitAndNotify(() -> dispatchNotification(value, true)); }
+                else { Database.commit(); }
+                return added;
+            }
+            final @Nonnull FREEZABLE_SET set = getLoadedSet(false);
+            if (set.contains(value)) {
                 Database.commit();
                 return false;
             } else {
                 final @Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry = new PersistentSetPropertyEntrySubclass<>(getSubject(), value);
                 SQL.insertOrAbort(getTable(), entry, getSubject().getUnit());
-                getSet().add(value);
-                Database.commit();
-                notifyObservers(value, true);
+                set.add(value);
+                recache(set, true, PersistentPropertyCache.estimateEntrySize(value, null));
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                recordChange(value, true);
+                Database.commitAndNotify(() -> dispatchNotification(value, true));
                 return true;
             }
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -151,13 +493,26 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     public boolean remove(@NonCaptured @Unmodified @Nonnull @Valid VALUE value) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
-            if (getSet().contains(value)) {
+            if (isWriteThrough()) {
+                final @Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry = new PersistentSetPropertyEntrySubclass<>(getSubject(), value);
+                final boolean removed = SQL.delete(getTable(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build()) > 0;
+                final @Nullable FREEZABLE_SET set = loadedSet;
+                if (removed && set != null) { set.remove(value); recache(set, false, PersistentPropertyCache.estimateEntrySize(value, null)); }
+                if (getTable().isLoadedPartially()) { cacheValue(value, false); }
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                if (removed) { recordChange(value, false); Database.commitAndNotify(() -> dispatchNotification(value, false)); }
+                else { Database.commit(); }
+                return removed;
+            }
+            final @Nonnull FREEZABLE_SET set = getLoadedSet(false);
+            if (set.contains(value)) {
                 final @Nonnull PersistentSetPropertyEntry<SUBJECT, VALUE> entry = new PersistentSetPropertyEntrySubclass<>(getSubject(), value);
                 SQL.delete(getTable(), getSubject().getUnit(), WhereConditionBuilder.withConverter(getTable()).withObject(entry).build());
-                getSet().remove(value);
-                Database.commit();
-                notifyObservers(value, false);
+                set.remove(value);
+                recache(set, false, PersistentPropertyCache.estimateEntrySize(value, null));
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                recordChange(value, false);
+                Database.commitAndNotify(() -> dispatchNotification(value, false));
                 return true;
             } else {
                 Database.commit();
@@ -165,6 +520,7 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
             }
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -177,23 +533,25 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     public void reset() throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (loaded) {
-                if (observers.isEmpty()) {
-                    this.loaded = false;
-                } else {
-                    final @Nonnull FreezableSet<VALUE> oldSet = getSet().clone();
-                    load(false);
-                    final @Nonnull FreezableSet<VALUE> newSet = getSet();
-                    for (@Nonnull @Valid VALUE value : newSet.exclude(oldSet)) {
-                        notifyObservers(value, true);
-                    }
-                    for (@Nonnull @Valid VALUE value : oldSet.exclude(newSet)) {
-                        notifyObservers(value, false);
-                    }
+            final @Nullable FREEZABLE_SET oldSet = loadedSet;
+            if (oldSet == null || observers.isEmpty() && deltaObservers.isEmpty()) {
+                discard();
+            } else {
+                final @Nonnull FREEZABLE_SET newSet = load(false);
+                final @Nonnull Map<@Nonnull VALUE, @Nonnull Boolean> changes = new LinkedHashMap<>();
+                for (@Nonnull @Valid VALUE value : newSet.exclude(oldSet)) {
+                    dispatchNotification(value, true);
+                    changes.put(value, true);
                 }
+                for (@Nonnull @Valid VALUE value : oldSet.exclude(newSet)) {
+                    dispatchNotification(value, false);
+                    changes.put(value, false);
+                }
+                dispatchDelta(changes);
             }
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -205,8 +563,11 @@ public abstract class WritablePersistentSetPropertyImplementation<@Unspecifiable
     public void validate() {
         super.validate();
         
-        Validate.that(!getSet().containsNull()).orThrow("None of the values may be null.");
-        Validate.that(getSet().matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+        final @Nullable FREEZABLE_SET set = loadedSet;
+        if (set != null) {
+            Validate.that(!set.containsNull()).orThrow("None of the values may be null.");
+            Validate.that(set.matchAll(getValueValidator())).orThrow("Each value has to be valid.");
+        }
     }
     
     /* -------------------------------------------------- Initialization -------------------------------------------------- */
@@ -50,6 +50,7 @@ import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
 import net.digitalid.database.annotations.constraints.PrimaryKey;
+import net.digitalid.database.property.PersistentObserverDispatch;
 import net.digitalid.database.property.PersistentPropertyTable;
 import net.digitalid.database.property.subject.Subject;
 
@@ -86,6 +87,15 @@ public abstract class PersistentValuePropertyTable<@Unspecifiable UNIT extends U
     @Pure
     public abstract @Valid VALUE getDefaultValue();
     
+    /* -------------------------------------------------- Observer Dispatch -------------------------------------------------- */
+    
+    /**
+     * Returns how the observers of the property are notified about changes of its value.
+     */
+    @Pure
+    @Default("net.digitalid.database.property.PersistentObserverDispatch.SYNCHRONOUS")
+    public abstract @Nonnull PersistentObserverDispatch getObserverDispatch();
+    
     /* -------------------------------------------------- Type -------------------------------------------------- */
     
     @Pure
@@ -15,6 +15,7 @@
  */
 package net.digitalid.database.property.value;
 
+import java.util.List;
 import java.util.Objects;
 
 import javax.annotation.Nonnull;
@@ -39,7 +40,9 @@ import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.time.Time;
 import net.digitalid.utility.time.TimeBuilder;
 import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.lock.LockNotHeldByCurrentThread;
+import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.utility.validation.annotations.value.Valid;
 
 import net.digitalid.database.annotations.transaction.Committing;
@@ -49,6 +52,9 @@ import net.digitalid.database.conversion.WhereCondition;
 import net.digitalid.database.conversion.WhereConditionBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.PersistentObserverDispatcher;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.PersistentPropertyTable;
 import net.digitalid.database.property.subject.Subject;
 import net.digitalid.database.property.subject.SubjectUtility;
 
@@ -58,7 +64,7 @@ import net.digitalid.database.property.subject.SubjectUtility;
 @ThreadSafe
 @GenerateBuilder
 @GenerateSubclass
-public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Specifiable VALUE> extends WritableValuePropertyImplementation<VALUE, DatabaseException, RecoveryException, PersistentValueObserver<SUBJECT, VALUE>, ReadOnlyPersistentValueProperty<SUBJECT, VALUE>> implements WritablePersistentValueProperty<SUBJECT, VALUE> {
+public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiable UNIT extends Unit, @Unspecifiable SUBJECT extends Subject<UNIT>, @Specifiable VALUE> extends WritableValuePropertyImplementation<VALUE, DatabaseException, RecoveryException, PersistentValueObserver<SUBJECT, VALUE>, ReadOnlyPersistentValueProperty<SUBJECT, VALUE>> implements WritablePersistentValueProperty<SUBJECT, VALUE>, PersistentPropertyCache.Evictable, PersistentPropertyTable.Prefetchable<PersistentValuePropertyEntry<SUBJECT, VALUE>> {
     
     /* -------------------------------------------------- Validator -------------------------------------------------- */
     
@@ -74,31 +80,190 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     @Override
     public abstract @Nonnull PersistentValuePropertyTable<UNIT, SUBJECT, VALUE, ?> getTable();
     
-    /* -------------------------------------------------- Loading -------------------------------------------------- */
+    /* -------------------------------------------------- Snapshot -------------------------------------------------- */
+    
+    /**
+     * A snapshot stores the loaded value of a property together with the time of its last modification and the version of the property.
+     * Since a snapshot is immutable and published through a volatile field, readers see a consistent pair of value and time without locking.
+     */
+    @Immutable
+    private static class Snapshot<@Specifiable VALUE> {
+        
+        private final @Nullable VALUE value;
+        
+        private final @Nullable Time time;
+        
+        private final long version;
+        
+        private Snapshot(@Nullable VALUE value, @Nullable Time time, long version) {
+            this.value = value;
+            this.time = time;
+            this.version = version;
+        }
+        
+    }
     
-    protected boolean loaded = false;
+    /**
+     * Stores the snapshot of the loaded value or null if the value is not loaded.
+     * The snapshot is only replaced while the non-reentrant lock is held.
+     */
+    private volatile @Nullable Snapshot<VALUE> snapshot;
     
     /**
-     * Loads the time and value of this property from the database.
-     * 
-     * @param locking whether this method acquires the non-reentrant lock.
+     * Stores the version of the latest snapshot, which is incremented whenever the value is loaded or changed.
+     * This field is only accessed while the non-reentrant lock is held.
+     */
+    private long version = 0;
+    
+    /**
+     * Publishes a new snapshot with the given value and time and registers it in the cache.
+     * This method may only be called while the non-reentrant lock is held.
+     */
+    @Impure
+    private @Nonnull Snapshot<VALUE> publish(@Nullable @Valid VALUE value, @Nullable Time time) {
+        final @Nonnull Snapshot<VALUE> snapshot = new Snapshot<>(value, time, ++version);
+        this.snapshot = snapshot;
+        cache(value);
+        return snapshot;
+    }
+    
+    /**
+     * Returns the snapshot of the loaded value and loads it first if necessary.
+     * Only the loading acquires the non-reentrant lock, whereas reads of a loaded value never block.
      */
     @Pure
     @NonCommitting
-    protected void load(final boolean locking) throws DatabaseException, RecoveryException {
+    private @Nonnull Snapshot<VALUE> getSnapshot() throws DatabaseException, RecoveryException {
+        @Nullable Snapshot<VALUE> snapshot = this.snapshot;
+        if (snapshot != null) {
+            PersistentPropertyCache.access(registration);
+            return snapshot;
+        }
+        lock.lock(); // This should never trigger a reentrance exception as both set(value) and reset() that call external code ensure that the value is loaded.
+        try {
+            return getLoadedSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the snapshot of the loaded value and loads it first if necessary.
+     * This method may only be called while the non-reentrant lock is held, which prevents the snapshot from being evicted.
+     */
+    @Pure
+    @NonCommitting
+    private @Nonnull Snapshot<VALUE> getLoadedSnapshot() throws DatabaseException, RecoveryException {
+        final @Nullable Snapshot<VALUE> snapshot = this.snapshot;
+        if (snapshot != null) { return snapshot; }
+        return load();
+    }
+    
+    /**
+     * Returns the version of the value of this property, which is incremented whenever the value is loaded or changed.
+     * Two reads with the same version observed the same value.
+     */
+    @Pure
+    @NonCommitting
+    public long getVersion() throws DatabaseException, RecoveryException {
+        return getSnapshot().version;
+    }
+    
+    /* -------------------------------------------------- Loading -------------------------------------------------- */
+    
+    /**
+     * Loads the time and value of this property from the database and publishes them as a new snapshot.
+     * This method may only be called while the non-reentrant lock is held.
+     */
+    @Pure
+    @NonCommitting
+    private @Nonnull Snapshot<VALUE> load() throws DatabaseException, RecoveryException {
+        final @Nonnull Converter<SUBJECT, ?> subjectConverter = getTable().getParentModule().getSubjectTable();
+        final @Nonnull WhereCondition<SUBJECT> whereCondition = WhereConditionBuilder.withConverter(subjectConverter).withObject(getSubject()).withPrefix(subjectConverter.getTypeName().toLowerCase()).build();
+        return populate(SQL.selectFirst(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition));
+    }
+    
+    /**
+     * Populates the time and value of this property with the given entry or the default value if the entry is null.
+     */
+    @Impure
+    private @Nonnull Snapshot<VALUE> populate(@Nullable PersistentValuePropertyEntry<SUBJECT, VALUE> entry) {
+        if (entry != null) { return publish(entry.getValue(), entry.getTime()); }
+        else { return publish(getTable().getDefaultValue(), null); }
+    }
+    
+    @Impure
+    @Override
+    public void prefetch(@Nonnull @NonNullableElements List<PersistentValuePropertyEntry<SUBJECT, VALUE>> entries) {
+        if (lock.isHeldByCurrentThread() || !lock.tryLock()) { return; }
+        try {
+            if (snapshot == null) { populate(entries.isEmpty() ? null : entries.get(0)); }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /* -------------------------------------------------- Caching -------------------------------------------------- */
+    
+    /**
+     * Stores the registration of this property in the cache while the value is loaded.
+     */
+    private volatile @Nullable PersistentPropertyCache.Registration registration;
+    
+    /**
+     * Registers the given loaded value of this property in the cache or updates its estimated size.
+     */
+    @Impure
+    private void cache(@Nullable VALUE value) {
+        final long bytes = PersistentPropertyCache.estimateSize(value);
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration == null) { this.registration = PersistentPropertyCache.register(this, 1, bytes); }
+        else { registration.resize(1, bytes); }
+    }
+    
+    /**
+     * Removes this property from the cache after the value has been discarded.
+     */
+    @Impure
+    private void uncache() {
+        final @Nullable PersistentPropertyCache.Registration registration = this.registration;
+        if (registration != null) {
+            registration.unregister();
+            this.registration = null;
+        }
+    }
+    
+    /**
+     * Discards the loaded value of this property so that it is loaded again when it is accessed next.
+     * This method may only be called while the non-reentrant lock is held.
+     */
+    @Impure
+    private void discard() {
+        this.snapshot = null;
+        uncache();
+    }
+    
+    @Impure
+    @Override
+    public boolean unload() {
+        if (lock.isHeldByCurrentThread() || !lock.tryLock()) { return false; }
+        try {
+            discard();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Discards the value of this property after a rollback because the value might no longer match the database.
+     */
+    @Impure
+    private void discardAfterRollback() {
+        final boolean locking = !lock.isHeldByCurrentThread();
         if (locking) { lock.lock(); }
         try {
-            final @Nonnull Converter<SUBJECT, ?> subjectConverter = getTable().getParentModule().getSubjectTable();
-            final @Nonnull WhereCondition<SUBJECT> whereCondition = WhereConditionBuilder.withConverter(subjectConverter).withObject(getSubject()).withPrefix(subjectConverter.getTypeName().toLowerCase()).build();
-            final @Nullable PersistentValuePropertyEntry<SUBJECT, VALUE> entry = SQL.selectFirst(getTable(), getSubject().getUnit(), getSubject().getUnit(), whereCondition);
-            if (entry != null) {
-                this.time = entry.getTime();
-                this.value = entry.getValue();
-            } else {
-                this.time = null;
-                this.value = getTable().getDefaultValue();
-            }
-            this.loaded = true;
+            discard();
         } finally {
             if (locking) { lock.unlock(); }
         }
@@ -106,26 +271,30 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     
     /* -------------------------------------------------- Time -------------------------------------------------- */
     
-    protected @Nullable Time time;
-    
     @Pure
     @Override
     @NonCommitting
     public @Nullable Time getTime() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as both set(value) and reset() that call external code ensure that the time is loaded.
-        return time;
+        return getSnapshot().time;
     }
     
-    /* -------------------------------------------------- Value -------------------------------------------------- */
+    /* -------------------------------------------------- Notification -------------------------------------------------- */
     
-    protected @Nullable @Valid VALUE value;
+    /**
+     * Notifies the observers about the change from the given old value to the given new value with the {@link PersistentValuePropertyTable#getObserverDispatch() observer dispatch} of the table.
+     */
+    @Impure
+    private void dispatchNotification(@Valid VALUE oldValue, @Valid VALUE newValue) {
+        PersistentObserverDispatcher.instance.get().dispatch(getTable().getObserverDispatch(), this, () -> notifyObservers(oldValue, newValue));
+    }
+    
+    /* -------------------------------------------------- Value -------------------------------------------------- */
     
     @Pure
     @Override
     @NonCommitting
     public @Valid VALUE get() throws DatabaseException, RecoveryException {
-        if (!loaded) { load(true); } // This should never trigger a reentrance exception as both set(value) and reset() that call external code ensure that the value is loaded.
-        return value;
+        return getSnapshot().value;
     }
     
     @Impure
@@ -135,20 +304,19 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     public @Capturable @Valid VALUE set(@Captured @Valid VALUE newValue) throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (!loaded) { load(false); }
-            final @Valid VALUE oldValue = value;
+            final @Valid VALUE oldValue = getLoadedSnapshot().value;
             if (!Objects.equals(newValue, oldValue)) {
                 final @Nonnull Time newTime = TimeBuilder.build();
                 final @Nonnull PersistentValuePropertyEntry<SUBJECT, VALUE> entry = new PersistentValuePropertyEntrySubclass<>(getSubject(), newTime, newValue);
-                SQL.insertOrReplace(getTable(), entry, getSubject().getUnit());
-                this.time = newTime;
-                this.value = newValue;
-                Database.commit();
-                notifyObservers(oldValue, newValue);
+                SQL.upsert(getTable(), entry, getSubject().getUnit());
+                publish(newValue, newTime);
+                Database.instance.get().runAfterRollback(this::discardAfterRollback);
+                Database.commitAndNotify(() -> dispatchNotification(oldValue, newValue));
             } else { Database.commit(); }
             return oldValue;
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -159,13 +327,8 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     @NonCommitting
     @LockNotHeldByCurrentThread
     public @Nonnull Pair<@Valid VALUE, @Nullable Time> getValueWithTimeOfLastModification() throws DatabaseException, RecoveryException {
-        lock.lock();
-        try {
-            if (!loaded) { load(false); }
-            return Pair.of(value, time);
-        } finally {
-            lock.unlock();
-        }
+        final @Nonnull Snapshot<VALUE> snapshot = getSnapshot();
+        return Pair.of(snapshot.value, snapshot.time);
     }
     
     /* -------------------------------------------------- Reset -------------------------------------------------- */
@@ -177,20 +340,21 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
     public void reset() throws DatabaseException, RecoveryException {
         lock.lock();
         try {
-            if (loaded) {
+            final @Nullable Snapshot<VALUE> oldSnapshot = snapshot;
+            if (oldSnapshot != null) {
                 if (observers.isEmpty()) {
-                    this.loaded = false;
+                    discard();
                 } else {
-                    final @Valid VALUE oldValue = value;
-                    load(false);
-                    final @Valid VALUE newValue = value;
+                    final @Valid VALUE oldValue = oldSnapshot.value;
+                    final @Valid VALUE newValue = load().value;
                     if (!Objects.equals(newValue, oldValue)) {
-                        notifyObservers(oldValue, newValue);
+                        dispatchNotification(oldValue, newValue);
                     }
                 }
             }
         } finally {
             lock.unlock();
+            PersistentObserverDispatcher.instance.get().awaitCapacity(this);
         }
     }
     
@@ -203,7 +367,6 @@ public abstract class WritablePersistentValuePropertyImplementation<@Unspecifiab
         super.initialize();
         
         SubjectUtility.add(getSubject(), this);
-        this.value = getTable().getDefaultValue();
     }
     
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistentObserverDispatcherTest extends DatabaseTest {
+    
+    private final @Nonnull Object firstProperty = new Object();
+    
+    private final @Nonnull Object secondProperty = new Object();
+    
+    private final @Nonnull List<@Nonnull Integer> notifications = Collections.synchronizedList(new ArrayList<>());
+    
+    private final @Nonnull CountDownLatch release = new CountDownLatch(1);
+    
+    private @Nonnull PersistentObserverDispatcher dispatcher;
+    
+    @Before
+    public void createDispatcher() {
+        this.dispatcher = PersistentObserverDispatcherBuilder.withNumberOfLanes(1).withQueueCapacity(2).build();
+    }
+    
+    @After
+    public void closeDispatcher() throws InterruptedException {
+        release.countDown();
+        dispatcher.close();
+    }
+    
+    /**
+     * Occupies the only lane of the dispatcher until the latch is released.
+     */
+    private void blockLane() {
+        dispatcher.dispatch(PersistentObserverDispatch.ASYNCHRONOUS, secondProperty, () -> {
+            try {
+                release.await();
+            } catch (@Nonnull InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+    
+    @Test
+    public void testSynchronousNotificationsAreRunImmediately() throws Exception {
+        dispatcher.dispatch(PersistentObserverDispatch.SYNCHRONOUS, firstProperty, () -> notifications.add(1));
+        assertThat(notifications).containsExactly(1);
+        assertThat(dispatcher.getAsynchronousNotifications()).isEqualTo(0);
+    }
+    
+    @Test
+    public void testAsynchronousNotificationsAreExecutedInOrder() throws Exception {
+        blockLane();
+        for (int i = 1; i <= 3; i++) {
+            final int value = i;
+            dispatcher.dispatch(PersistentObserverDispatch.ASYNCHRONOUS, firstProperty, () -> notifications.add(value));
+        }
+        assertThat(notifications).isEmpty();
+        release.countDown();
+        dispatcher.close();
+        assertThat(notifications).containsExactly(1, 2, 3);
+        assertThat(dispatcher.getCoalescedDispatches()).isEqualTo(0);
+    }
+    
+    @Test
+    public void testCoalescedNotificationsOfTheSameProperty() throws Exception {
+        blockLane();
+        for (int i = 1; i <= 3; i++) {
+            final int value = i;
+            dispatcher.dispatch(PersistentObserverDispatch.COALESCED, firstProperty, () -> notifications.add(value));
+        }
+        dispatcher.dispatch(PersistentObserverDispatch.COALESCED, secondProperty, () -> notifications.add(4));
+        release.countDown();
+        dispatcher.close();
+        assertThat(notifications).containsExactly(3, 4);
+        assertThat(dispatcher.getCoalescedDispatches()).isEqualTo(2);
+        assertThat(dispatcher.getDispatches()).isEqualTo(5);
+    }
+    
+    @Test
+    public void testDispatchDoesNotWaitWhenTheQueueIsFull() throws Exception {
+        blockLane();
+        for (int i = 1; i <= 5; i++) {
+            final int value = i;
+            dispatcher.dispatch(PersistentObserverDispatch.ASYNCHRONOUS, firstProperty, () -> notifications.add(value));
+        }
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(5);
+        assertThat(dispatcher.getBlockedDispatches()).isEqualTo(0);
+        
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull Future<?> waiting = executor.submit(() -> dispatcher.awaitCapacity(firstProperty));
+            Thread.sleep(100);
+            assertThat(waiting.isDone()).isFalse();
+            release.countDown();
+            waiting.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(dispatcher.getBlockedDispatches()).isEqualTo(1);
+        dispatcher.close();
+        assertThat(notifications).containsExactly(1, 2, 3, 4, 5);
+    }
+    
+    @Test
+    public void testAwaitingCapacityOnTheLaneItselfDoesNotBlock() throws Exception {
+        final @Nonnull CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatch(PersistentObserverDispatch.ASYNCHRONOUS, firstProperty, () -> {
+            for (int i = 1; i <= 5; i++) {
+                final int value = i;
+                dispatcher.dispatch(PersistentObserverDispatch.ASYNCHRONOUS, firstProperty, () -> notifications.add(value));
+            }
+            dispatcher.awaitCapacity(firstProperty);
+            done.countDown();
+        });
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        dispatcher.close();
+        assertThat(notifications).containsExactly(1, 2, 3, 4, 5);
+        assertThat(dispatcher.getBlockedDispatches()).isEqualTo(0);
+    }
+    
+    /**
+     * Lanes must not wait for each other because the other lane might in turn wait for the full lane.
+     */
+    @Test
+    public void testAwaitingCapacityOnAnotherLaneDoesNotBlock() throws Exception {
+        blockLane();
+        for (int i = 1; i <= 3; i++) {
+            final int value = i;
+            dispatcher.dispatch(PersistentObserverDispatch.ASYNCHRONOUS, firstProperty, () -> notifications.add(value));
+        }
+        final @Nonnull PersistentObserverDispatcher otherDispatcher = PersistentObserverDispatcherBuilder.withNumberOfLanes(1).withQueueCapacity(2).build();
+        try {
+            final @Nonnull CountDownLatch done = new CountDownLatch(1);
+            otherDispatcher.dispatch(PersistentObserverDispatch.ASYNCHRONOUS, secondProperty, () -> {
+                dispatcher.awaitCapacity(firstProperty);
+                done.countDown();
+            });
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            otherDispatcher.close();
+        }
+        assertThat(dispatcher.getBlockedDispatches()).isEqualTo(0);
+    }
+    
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.collections.map.ReadOnlyMap;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.generator.annotations.generators.GenerateTableConverter;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.value.Valid;
+
+import net.digitalid.database.annotations.constraints.PrimaryKey;
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.annotations.GeneratePersistentProperty;
+import net.digitalid.database.property.subject.Subject;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+@GenerateTableConverter
+abstract class Examinee extends Subject<Unit> {
+    
+    /* -------------------------------------------------- Key -------------------------------------------------- */
+    
+    @Pure
+    @PrimaryKey
+    public abstract long getKey();
+    
+    @Pure
+    @GeneratePersistentProperty
+    public abstract @Nonnull WritablePersistentSimpleMapProperty<Examinee, Integer, Integer> grades();
+    
+}
+
+public class MapPropertyTest extends DatabaseTest {
+    
+    @Impure
+    @BeforeClass
+    public static void createTables() throws Exception {
+        SQL.createTable(ExamineeConverter.INSTANCE, Unit.DEFAULT);
+        ExamineeSubclass.MODULE.accept(table -> SQL.createTable(table, Unit.DEFAULT));
+        Database.commit();
+    }
+    
+    private static final @Nonnull AtomicLong keys = new AtomicLong();
+    
+    /**
+     * Returns a new examinee, which is stored in the database so that each test modifies only the grades of its own examinee.
+     */
+    @Impure
+    private static @Nonnull Examinee createExaminee() throws DatabaseException {
+        final @Nonnull Examinee examinee = ExamineeBuilder.withKey(keys.incrementAndGet()).build();
+        SQL.insertOrAbort(ExamineeConverter.INSTANCE, examinee, Unit.DEFAULT);
+        Database.commit();
+        return examinee;
+    }
+    
+    @Test
+    public void testDeltaObserver() throws Exception {
+        final @Nonnull Examinee examinee = createExaminee();
+        final @Nonnull List<@Nonnull PersistentMapDelta<Examinee, Integer, Integer>> deltas = new ArrayList<>();
+        final @Nonnull PersistentMapDeltaObserver<Examinee, Integer, Integer, ReadOnlyMap<@Nonnull @Valid("key") Integer, @Nonnull @Valid Integer>> observer = (property, delta) -> deltas.add(delta);
+        examinee.grades().registerDeltaObserver(observer);
+        try {
+            Database.runAsUnitOfWork(transaction -> {
+                examinee.grades().add(3, 4);
+                examinee.grades().add(4, 6);
+                examinee.grades().remove(4);
+            });
+        } finally {
+            examinee.grades().deregisterDeltaObserver(observer);
+        }
+        assertThat(deltas).as("deltas").hasSize(1);
+        assertThat(deltas.get(0).getAddedEntries()).as("added entries").extracting("key").containsExactly(3);
+        assertThat(deltas.get(0).getRemovedEntries()).as("removed entries").isEmpty();
+    }
+    
+    @Test
+    public void testEvictionWhileReading() throws Exception {
+        final @Nonnull Examinee examinee = createExaminee();
+        examinee.grades().add(5, 3);
+        final @Nonnull PersistentPropertyCache.Evictable evictable = (PersistentPropertyCache.Evictable) examinee.grades();
+        final @Nonnull AtomicBoolean reading = new AtomicBoolean(true);
+        final @Nonnull Thread evictor = new Thread(() -> {
+            while (reading.get()) { evictable.unload(); }
+        });
+        evictor.start();
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                final @Nonnull ReadOnlyMap<@Nonnull @Valid("key") Integer, @Nonnull @Valid Integer> grades = examinee.grades().get();
+                assertThat(grades.size()).as("size").isEqualTo(1);
+                assertThat(grades.get(5)).as("grade").isEqualTo(3);
+                assertThat(examinee.grades().get(5)).as("grade").isEqualTo(3);
+            }
+        } finally {
+            reading.set(false);
+            evictor.join();
+            Database.commit();
+        }
+    }
+    
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.property.set;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.generator.annotations.generators.GenerateTableConverter;
+import net.digitalid.utility.storage.interfaces.Unit;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.constraints.PrimaryKey;
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.property.PersistentObserverDispatch;
+import net.digitalid.database.property.PersistentPropertyCache;
+import net.digitalid.database.property.annotations.GeneratePersistentProperty;
+import net.digitalid.database.property.subject.Subject;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+@GenerateTableConverter
+abstract class Pupil extends Subject<Unit> {
+    
+    /* -------------------------------------------------- Key -------------------------------------------------- */
+    
+    @Pure
+    @PrimaryKey
+    public abstract long getKey();
+    
+    @Pure
+    @GeneratePersistentProperty
+    public abstract @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> friends();
+    
+}
+
+public class SetPropertyTest extends DatabaseTest {
+    
+    /**
+     * The table of a set property whose values are added and removed directly in the database.
+     */
+    private static final @Nonnull PersistentSetPropertyTable<Unit, Pupil, Pupil, Unit> CLASSMATES_TABLE = PersistentSetPropertyTableBuilder.<Unit, Pupil, Pupil, Unit>withName("classmates").withParentModule(PupilSubclass.MODULE).withValueConverter(PupilConverter.INSTANCE).withWriteThrough(true).build();
+    
+    /**
+     * The table of a set property whose values are loaded only on demand one at a time.
+     */
+    private static final @Nonnull PersistentSetPropertyTable<Unit, Pupil, Pupil, Unit> SCHOOLMATES_TABLE = PersistentSetPropertyTableBuilder.<Unit, Pupil, Pupil, Unit>withName("schoolmates").withParentModule(PupilSubclass.MODULE).withValueConverter(PupilConverter.INSTANCE).withLoadedPartially(true).withPageSize(1).build();
+    
+    /**
+     * The table of a set property whose observers are notified with coalesced dispatch.
+     */
+    private static final @Nonnull PersistentSetPropertyTable<Unit, Pupil, Pupil, Unit> TEAMMATES_TABLE = PersistentSetPropertyTableBuilder.<Unit, Pupil, Pupil, Unit>withName("teammates").withParentModule(PupilSubclass.MODULE).withValueConverter(PupilConverter.INSTANCE).withObserverDispatch(PersistentObserverDispatch.COALESCED).build();
+    
+    @Impure
+    @BeforeClass
+    public static void createTables() throws Exception {
+        SQL.createTable(PupilConverter.INSTANCE, Unit.DEFAULT);
+        PupilSubclass.MODULE.accept(table -> SQL.createTable(table, Unit.DEFAULT));
+        SQL.createTable(CLASSMATES_TABLE, Unit.DEFAULT);
+        SQL.createTable(SCHOOLMATES_TABLE, Unit.DEFAULT);
+        SQL.createTable(TEAMMATES_TABLE, Unit.DEFAULT);
+        Database.commit();
+    }
+    
+    private static final @Nonnull AtomicLong keys = new AtomicLong();
+    
+    /**
+     * Returns a new pupil, which is stored in the database so that each test modifies only the sets of its own pupils.
+     */
+    @Impure
+    private static @Nonnull Pupil createPupil() throws DatabaseException {
+        final @Nonnull Pupil pupil = PupilBuilder.withKey(keys.incrementAndGet()).build();
+        SQL.insertOrAbort(PupilConverter.INSTANCE, pupil, Unit.DEFAULT);
+        Database.commit();
+        return pupil;
+    }
+    
+    /**
+     * Returns a new set property of the given pupil that is stored in the given table.
+     */
+    @Impure
+    private static @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> buildProperty(@Nonnull Pupil pupil, @Nonnull PersistentSetPropertyTable<Unit, Pupil, Pupil, Unit> table) {
+        return WritablePersistentSimpleSetPropertyImplementationBuilder.<Unit, Pupil, Pupil>withSubject(pupil).withTable(table).build();
+    }
+    
+    @Test
+    public void testDuplicateFriends() throws DatabaseException, RecoveryException {
+        final @Nonnull Pupil pupil = createPupil();
+        final @Nonnull Pupil friend = createPupil();
+        assertThat(pupil.friends().add(friend)).as("first addition").isTrue();
+        assertThat(pupil.friends().add(friend)).as("duplicate addition").isFalse();
+        assertThat(pupil.friends().remove(friend)).as("first removal").isTrue();
+        assertThat(pupil.friends().remove(friend)).as("duplicate removal").isFalse();
+    }
+    
+    @Test
+    public void testDuplicateClassmatesWrittenThrough() throws DatabaseException, RecoveryException {
+        final @Nonnull Pupil pupil = createPupil();
+        final @Nonnull Pupil classmate = createPupil();
+        final @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> classmates = buildProperty(pupil, CLASSMATES_TABLE);
+        assertThat(classmates.add(classmate)).as("first addition").isTrue();
+        assertThat(classmates.add(classmate)).as("duplicate addition").isFalse();
+        assertThat(classmates.remove(classmate)).as("first removal").isTrue();
+        assertThat(classmates.remove(classmate)).as("duplicate removal").isFalse();
+        assertThat(classmates.remove(pupil)).as("removal of an absent value").isFalse();
+    }
+    
+    @Test
+    public void testPartiallyLoadedSchoolmates() throws DatabaseException, RecoveryException {
+        final @Nonnull Pupil pupil = createPupil();
+        final @Nonnull Pupil schoolmate = createPupil();
+        final @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> schoolmates = buildProperty(pupil, SCHOOLMATES_TABLE);
+        assertThat(schoolmates.add(schoolmate)).as("first addition").isTrue();
+        assertThat(schoolmates.add(schoolmate)).as("duplicate addition").isFalse();
+        
+        // A new property has to look up the values in the database.
+        final @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> reloaded = buildProperty(pupil, SCHOOLMATES_TABLE);
+        final long entries = PersistentPropertyCache.getEntries();
+        assertThat(reloaded.contains(schoolmate)).as("contained value").isTrue();
+        assertThat(reloaded.contains(pupil)).as("missing value").isFalse();
+        assertThat(PersistentPropertyCache.getEntries()).as("cached entries").isEqualTo(entries + 2);
+        
+        final long hits = PersistentPropertyCache.getHits();
+        assertThat(reloaded.contains(schoolmate)).as("cached contained value").isTrue();
+        assertThat(reloaded.contains(pupil)).as("cached missing value").isFalse();
+        assertThat(PersistentPropertyCache.getHits()).as("hits").isEqualTo(hits + 2);
+        assertThat(PersistentPropertyCache.getEntries()).as("cached entries").isEqualTo(entries + 2);
+        
+        assertThat(((PersistentPropertyCache.Evictable) reloaded).unload()).as("unloaded").isTrue();
+        assertThat(PersistentPropertyCache.getEntries()).as("entries after eviction").isEqualTo(entries);
+        assertThat(reloaded.contains(schoolmate)).as("contained value after eviction").isTrue();
+        
+        assertThat(reloaded.getPage(null)).as("first page").extracting("key").containsExactly(schoolmate.getKey());
+        assertThat(reloaded.getPage(schoolmate)).as("second page").isEmpty();
+        
+        // Loading the whole set replaces the individually cached values.
+        assertThat(reloaded.get()).as("schoolmates").extracting("key").containsExactly(schoolmate.getKey());
+        assertThat(PersistentPropertyCache.getEntries()).as("entries of the loaded set").isEqualTo(entries + 1);
+        
+        assertThat(reloaded.remove(schoolmate)).as("removal").isTrue();
+        assertThat(schoolmates.remove(schoolmate)).as("removal through the other property").isFalse();
+        assertThat(((PersistentPropertyCache.Evictable) schoolmates).unload()).as("unloaded").isTrue();
+        assertThat(schoolmates.contains(schoolmate)).as("removed value").isFalse();
+    }
+    
+    @Test
+    public void testPrefetchRespectsPartialLoading() throws DatabaseException, RecoveryException {
+        final @Nonnull Pupil pupil = createPupil();
+        final @Nonnull Pupil mate = createPupil();
+        assertThat(buildProperty(pupil, SCHOOLMATES_TABLE).add(mate)).as("schoolmate addition").isTrue();
+        assertThat(buildProperty(pupil, CLASSMATES_TABLE).add(mate)).as("classmate addition").isTrue();
+        
+        // The properties that are built last are the ones of the subject, which are not loaded yet.
+        final @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> schoolmates = buildProperty(pupil, SCHOOLMATES_TABLE);
+        final @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> classmates = buildProperty(pupil, CLASSMATES_TABLE);
+        final long entries = PersistentPropertyCache.getEntries();
+        SCHOOLMATES_TABLE.prefetch(Collections.singletonList(pupil));
+        assertThat(PersistentPropertyCache.getEntries()).as("entries after prefetching partially loaded values").isEqualTo(entries);
+        CLASSMATES_TABLE.prefetch(Collections.singletonList(pupil));
+        assertThat(PersistentPropertyCache.getEntries()).as("entries after prefetching all values").isEqualTo(entries + 1);
+        
+        assertThat(schoolmates.contains(mate)).as("partially loaded schoolmate").isTrue();
+        assertThat(classmates.get()).as("prefetched classmates").extracting("key").containsExactly(mate.getKey());
+    }
+    
+    @Test
+    public void testCoalescedTeammatesNotifyEveryChange() throws Exception {
+        final @Nonnull Pupil pupil = createPupil();
+        final @Nonnull Pupil teammate = createPupil();
+        final @Nonnull WritablePersistentSimpleSetProperty<Pupil, Pupil> teammates = buildProperty(pupil, TEAMMATES_TABLE);
+        final @Nonnull List<@Nonnull Boolean> changes = Collections.synchronizedList(new ArrayList<>());
+        final @Nonnull CountDownLatch notified = new CountDownLatch(2);
+        teammates.register((property, value, added) -> {
+            changes.add(added);
+            notified.countDown();
+        });
+        teammates.add(teammate);
+        teammates.remove(teammate);
+        // The removal must not replace the pending notification about the addition of the same value.
+        assertThat(notified.await(5, TimeUnit.SECONDS)).as("notified").isTrue();
+        assertThat(changes).as("changes").containsExactly(true, false);
+    }
+    
+}
@@ -44,6 +44,7 @@ import net.digitalid.database.property.set.WritablePersistentSimpleSetProperty;
 import net.digitalid.database.property.subject.Subject;
 import net.digitalid.database.testing.DatabaseTest;
 
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -114,6 +115,44 @@ public class ValuePropertyTest extends DatabaseTest {
         assertThat(object.age().get()).isEqualTo(29);
     }
     
+    @Test
+    public void testUnitOfWorkRollback() throws Exception {
+        object.age().set(30);
+        try {
+            Database.runAsUnitOfWork(transaction -> {
+                object.name().set("unit");
+                object.age().set(31);
+                throw new IllegalStateException("The unit of work fails on purpose.");
+            });
+            Assert.fail("The unit of work should have failed.");
+        } catch (@Nonnull IllegalStateException exception) {
+            assertThat(exception).hasMessage("The unit of work fails on purpose.");
+        }
+        assertThat(object.age().get()).isEqualTo(30);
+        assertThat(object.name().get()).isNotEqualTo("unit");
+    }
+    
+    @Test
+    public void testObserverWritingAfterCommit() throws Exception {
+        final @Nonnull PersistentValueObserver<Student, @Nonnull Integer> observer = (property, oldValue, newValue) -> {
+            try {
+                object.name().set("observer");
+            } catch (@Nonnull DatabaseException | RecoveryException exception) {
+                throw new RuntimeException(exception);
+            }
+        };
+        object.age().register(observer);
+        try {
+            // The notification is run after the commit at the end of the unit of work, where the observer commits again.
+            Database.runAsUnitOfWork(transaction -> object.age().set(40));
+            Database.runAsUnitOfWork(transaction -> object.age().set(41));
+        } finally {
+            object.age().deregister(observer);
+        }
+        assertThat(object.age().get()).isEqualTo(41);
+        assertThat(object.name().get()).isEqualTo("observer");
+    }
+    
     @Test
     public void testFriendsProperty() throws DatabaseException, RecoveryException {
         object.friends().add(object);
@@ -82,7 +82,8 @@ public abstract class ServerDatabaseInitializer {
         }
         
         final @Nonnull String URL = "jdbc:mysql://" + server + ":" + port + "/" + database + "?rewriteBatchedStatements=true";
-        Database.instance.set(JDBCDatabaseBuilder.withDriver(new Driver()).withURL(URL).withUser(user).withPassword(password).build());
+        // The MySQL driver streams the rows of a result set only with a fetch size of Integer.MIN_VALUE.
+        Database.instance.set(JDBCDatabaseBuilder.withDriver(new Driver()).withURL(URL).withUser(user).withPassword(password).withStreamingFetchSize(Integer.MIN_VALUE).build());
     }
     
 }
@@ -33,19 +33,20 @@ import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.initialization.annotations.Initialize;
 import net.digitalid.utility.storage.interfaces.Unit;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Stateless;
 
 import net.digitalid.database.annotations.sql.SQLFraction;
 import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.dialect.SQLDialect;
-import net.digitalid.database.dialect.SQLNode;
 import net.digitalid.database.dialect.expression.SQLExpression;
 import net.digitalid.database.dialect.expression.bool.SQLBooleanExpression;
 import net.digitalid.database.dialect.expression.bool.SQLBooleanLiteral;
 import net.digitalid.database.dialect.expression.number.SQLCurrentTime;
 import net.digitalid.database.dialect.expression.number.SQLVariadicNumberOperator;
 import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
+import net.digitalid.database.dialect.statement.insert.SQLUpsertStatement;
 import net.digitalid.database.dialect.statement.schema.SQLCreateSchemaStatement;
 import net.digitalid.database.dialect.statement.table.create.SQLColumnDeclaration;
 import net.digitalid.database.dialect.statement.table.create.SQLReference;
@@ -71,6 +72,30 @@ public abstract class SQLiteDialect extends SQLDialect {
         SQLDialect.instance.set(new SQLiteDialectSubclass());
     }
     
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected SQLiteDialect() {
+        register(SQLType.class, this::unparse);
+        register(SQLColumnDeclaration.class, this::unparse);
+        register(SQLBooleanLiteral.class, this::unparse);
+        register(SQLVariadicNumberOperator.class, this::unparse);
+        register(SQLCreateSchemaStatement.class, (createSchemaStatement, unit, string) -> string.append("CREATE TABLE IF NOT EXISTS schema_dummy (id INTEGER)"));
+        register(SQLQualifiedTable.class, (qualifiedTable, unit, string) -> unparse(qualifiedTable.getTable(), unit, string));
+        register(SQLUpsertStatement.class, (upsertStatement, unit, string) -> unparse(upsertStatement.toInsertStatement(), unit, string)); // TODO: Use ON CONFLICT DO UPDATE as soon as the bundled drivers are based on SQLite 3.24 or later.
+        register(SQLCurrentTime.class, (currentTime, unit, string) -> string.append("CAST((JULIANDAY('NOW') - 2440587.5)*86400000 AS INTEGER)")); // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
+    }
+    
+    /* -------------------------------------------------- Limits -------------------------------------------------- */
+    
+    /**
+     * SQLite limits the number of parameters to 999 before version 3.32.0 and to 32,766 since then, and the bundled driver uses an older version.
+     */
+    @Pure
+    @Override
+    public @Positive int getMaximumNumberOfParameters() {
+        return 999;
+    }
+    
     /* -------------------------------------------------- Unparsing -------------------------------------------------- */
     
     @Pure
@@ -121,19 +146,6 @@ public abstract class SQLiteDialect extends SQLDialect {
         else { variadicNumberOperator.unparse(this, unit, string); }
     }
     
-    @Pure
-    @Override
-    public void unparse(@Nonnull SQLNode node, @Nonnull Unit unit, @NonCaptured @Modified @Nonnull @SQLFraction StringBuilder string) {
-        if (node instanceof SQLType) { unparse((SQLType) node, unit, string); }
-        else if (node instanceof SQLColumnDeclaration) { unparse((SQLColumnDeclaration) node, unit, string); }
-        else if (node instanceof SQLBooleanLiteral) { unparse((SQLBooleanLiteral) node, unit, string); }
-        else if (node instanceof SQLVariadicNumberOperator) { unparse((SQLVariadicNumberOperator) node, unit, string); }
-        else if (node instanceof SQLCreateSchemaStatement) { string.append("CREATE TABLE IF NOT EXISTS schema_dummy (id INTEGER)"); }
-        else if (node instanceof SQLQualifiedTable) { unparse(((SQLQualifiedTable) node).getTable(), unit, string); }
-        else if (node instanceof SQLCurrentTime) { string.append("CAST((JULIANDAY('NOW') - 2440587.5)*86400000 AS INTEGER)"); } // TODO: Is it important that it is the UNIX timestamp? Maybe we could just define another column type.
-        else { super.unparse(node, unit, string); }
-    }
-    
     /* -------------------------------------------------- TODO -------------------------------------------------- */
     
     @Pure
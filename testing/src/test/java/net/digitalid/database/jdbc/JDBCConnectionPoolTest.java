@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.h2.Driver;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JDBCConnectionPoolTest extends DatabaseTest {
+    
+    private final @Nonnull JDBCDatabase database = JDBCDatabaseBuilder.withDriver(new Driver()).withURL("jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1").withUser("sa").withPassword("sa").withPoolSize(1).build();
+    
+    @Pure
+    private @Nonnull JDBCConnectionPool createPool(int size, long idleTimeout, long maxLifetime, long waitTimeout) {
+        return JDBCConnectionPoolBuilder.withDatabase(database).withSize(size).withIdleTimeout(idleTimeout).withMaxLifetime(maxLifetime).withWaitTimeout(waitTimeout).build();
+    }
+    
+    @Test
+    public void testBounds() throws Exception {
+        final @Nonnull JDBCConnectionPool pool = createPool(2, 0, 0, 50);
+        final @Nonnull JDBCConnection first = pool.lease();
+        final @Nonnull JDBCConnection second = pool.lease();
+        assertThat(pool.getActiveConnections()).isEqualTo(2);
+        try {
+            pool.lease();
+            Assert.fail("The pool should not lease more connections than its size.");
+        } catch (@Nonnull DatabaseException exception) {
+            assertThat(pool.getTimeouts()).isEqualTo(1);
+        }
+        pool.release(first);
+        assertThat(pool.lease()).isSameAs(first);
+        assertThat(pool.getOpenedConnections()).isEqualTo(2);
+        assertThat(pool.getLeases()).isEqualTo(3);
+        pool.release(first);
+        pool.release(second);
+        assertThat(pool.getActiveConnections()).isEqualTo(0);
+        assertThat(pool.getIdleConnections()).isEqualTo(2);
+        pool.close();
+        assertThat(pool.getClosedConnections()).isEqualTo(2);
+    }
+    
+    @Test
+    public void testWaitMetrics() throws Exception {
+        final @Nonnull JDBCConnectionPool pool = createPool(1, 0, 0, 5_000);
+        final @Nonnull JDBCConnection connection = pool.lease();
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull Future<JDBCConnection> future = executor.submit(pool::lease);
+            Thread.sleep(100);
+            pool.release(connection);
+            assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(connection);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(pool.getWaits()).isEqualTo(1);
+        assertThat(pool.getTimeouts()).isEqualTo(0);
+        assertThat(pool.getMaximumWaitTime()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(pool.getTotalWaitTime()).isEqualTo(pool.getMaximumWaitTime());
+        pool.release(connection);
+        pool.close();
+    }
+    
+    @Test
+    public void testIdleEviction() throws Exception {
+        final @Nonnull JDBCConnectionPool pool = createPool(2, 50, 0, 50);
+        final @Nonnull JDBCConnection connection = pool.lease();
+        pool.release(connection);
+        assertThat(pool.getIdleConnections()).isEqualTo(1);
+        Thread.sleep(100);
+        pool.evictIdleConnections();
+        assertThat(pool.getIdleConnections()).isEqualTo(0);
+        assertThat(pool.getClosedConnections()).isEqualTo(1);
+        assertThat(pool.lease()).isNotSameAs(connection);
+        assertThat(pool.getOpenedConnections()).isEqualTo(2);
+    }
+    
+    @Test
+    public void testPeriodicIdleEviction() throws Exception {
+        final @Nonnull JDBCConnectionPool pool = createPool(2, 50, 0, 50);
+        pool.release(pool.lease());
+        assertThat(pool.getIdleConnections()).isEqualTo(1);
+        // The idle connection is closed without any further use of the pool.
+        Thread.sleep(200);
+        assertThat(pool.getIdleConnections()).isEqualTo(0);
+        assertThat(pool.getClosedConnections()).isEqualTo(1);
+        pool.close();
+    }
+    
+    @Test
+    public void testMaxLifetime() throws Exception {
+        final @Nonnull JDBCConnectionPool pool = createPool(1, 0, 50, 50);
+        final @Nonnull JDBCConnection connection = pool.lease();
+        Thread.sleep(100);
+        pool.release(connection);
+        assertThat(pool.getIdleConnections()).isEqualTo(0);
+        assertThat(pool.getClosedConnections()).isEqualTo(1);
+        assertThat(pool.getActiveConnections()).isEqualTo(0);
+    }
+    
+    @Test
+    public void testCommitWithoutStatementsLeasesNoConnection() throws Exception {
+        final @Nonnull JDBCConnectionPool pool = database.getPool();
+        database.commitTransaction();
+        database.rollbackTransaction();
+        assertThat(pool.getLeases()).isEqualTo(0);
+        database.executeQuery("SELECT 1").close();
+        database.commitTransaction();
+        assertThat(pool.getLeases()).isEqualTo(1);
+        assertThat(pool.getActiveConnections()).isEqualTo(0);
+        database.close();
+    }
+    
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sqlite.JDBC;
+
+/**
+ * SQLite locks the whole database file, which is why the reading connection of a transaction must not block the physical commit of the writer connection.
+ */
+public class JDBCGroupCommitterSQLiteTest extends DatabaseTest {
+    
+    private @Nonnull File file;
+    
+    private @Nonnull JDBCDatabase database;
+    
+    @Impure
+    private int countRows() throws SQLException {
+        try (@Nonnull Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath()); @Nonnull Statement statement = connection.createStatement(); @Nonnull ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM group_commit_test")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+    
+    @Before
+    public void createDatabase() throws Exception {
+        this.file = File.createTempFile("group-commit", ".db");
+        try (@Nonnull Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath()); @Nonnull Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE group_commit_test (id INTEGER PRIMARY KEY)");
+        }
+        this.database = JDBCDatabaseBuilder.withDriver(new JDBC()).withURL("jdbc:sqlite:" + file.getAbsolutePath()).withGroupCommitWindow(50).withPoolWaitTimeout(1_000).build();
+    }
+    
+    @After
+    public void deleteDatabase() throws Exception {
+        database.close();
+        file.delete();
+    }
+    
+    @Test
+    public void testReadingBeforeWritingDoesNotBlockTheCommit() throws Exception {
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull Future<Integer> future = executor.submit(() -> {
+                final int count;
+                try (@Nonnull ResultSet resultSet = database.executeQuery("SELECT COUNT(*) FROM group_commit_test")) {
+                    resultSet.next();
+                    count = resultSet.getInt(1);
+                }
+                try (@Nonnull Statement statement = database.getModifyingConnection().createStatement()) {
+                    statement.execute("INSERT INTO group_commit_test (id) VALUES (" + (count + 1) + ")");
+                }
+                database.commitTransaction();
+                return count;
+            });
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(0);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(countRows()).isEqualTo(1);
+        assertThat(database.getGroupCommitter().getFailures()).isEqualTo(0);
+    }
+    
+}
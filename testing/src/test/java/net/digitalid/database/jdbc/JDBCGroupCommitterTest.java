@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.h2.Driver;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JDBCGroupCommitterTest extends DatabaseTest {
+    
+    private static final @Nonnull String URL = "jdbc:h2:mem:groupcommit;DB_CLOSE_DELAY=-1";
+    
+    private @Nonnull JDBCDatabase database;
+    
+    private @Nonnull JDBCGroupCommitter groupCommitter;
+    
+    @Impure
+    private static void execute(@Nonnull Connection connection, @Nonnull String statement) throws SQLException {
+        try (@Nonnull Statement sqlStatement = connection.createStatement()) {
+            sqlStatement.execute(statement);
+        }
+    }
+    
+    @Impure
+    private static int countRows() throws SQLException {
+        try (@Nonnull Connection connection = DriverManager.getConnection(URL, "sa", "sa"); @Nonnull Statement statement = connection.createStatement(); @Nonnull ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM group_commit_test")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+    
+    @Before
+    public void createTable() throws SQLException {
+        try (@Nonnull Connection connection = DriverManager.getConnection(URL, "sa", "sa")) {
+            execute(connection, "CREATE TABLE IF NOT EXISTS group_commit_test (id INT PRIMARY KEY)");
+            execute(connection, "DELETE FROM group_commit_test");
+        }
+        this.database = JDBCDatabaseBuilder.withDriver(new Driver()).withURL(URL).withUser("sa").withPassword("sa").withGroupCommitWindow(100).withPoolWaitTimeout(500).build();
+        this.groupCommitter = database.getGroupCommitter();
+    }
+    
+    @After
+    public void closeDatabase() throws Exception {
+        database.close();
+    }
+    
+    @Impure
+    private void insert(int id) throws Exception {
+        execute(groupCommitter.lease().getConnection(), "INSERT INTO group_commit_test (id) VALUES (" + id + ")");
+    }
+    
+    @Test
+    public void testConcurrentCommitsShareAPhysicalCommit() throws Exception {
+        final int numberOfTransactions = 8;
+        final @Nonnull ExecutorService executor = Executors.newFixedThreadPool(numberOfTransactions);
+        try {
+            final @Nonnull CountDownLatch start = new CountDownLatch(1);
+            final @Nonnull List<@Nonnull Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < numberOfTransactions; i++) {
+                final int id = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    insert(id);
+                    groupCommitter.commit();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (@Nonnull Future<?> future : futures) { future.get(5, TimeUnit.SECONDS); }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(countRows()).isEqualTo(numberOfTransactions);
+        assertThat(groupCommitter.getCommits()).isEqualTo(numberOfTransactions);
+        assertThat(groupCommitter.getPhysicalCommits()).isLessThan(numberOfTransactions);
+    }
+    
+    @Test
+    public void testRollbackKeepsTheOtherMembers() throws Exception {
+        insert(1);
+        groupCommitter.commit();
+        insert(2);
+        groupCommitter.rollback();
+        insert(3);
+        groupCommitter.commit();
+        assertThat(countRows()).isEqualTo(2);
+    }
+    
+    @Test
+    public void testReadingDoesNotWaitForTheWriterConnection() throws Exception {
+        insert(1);
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull Future<Integer> future = executor.submit(() -> {
+                try (@Nonnull ResultSet resultSet = database.executeQuery("SELECT 1")) {
+                    resultSet.next();
+                    return resultSet.getInt(1);
+                } finally {
+                    database.rollbackTransaction();
+                }
+            });
+            assertThat(future.get(250, TimeUnit.MILLISECONDS)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+            groupCommitter.rollback();
+        }
+    }
+    
+    @Test
+    public void testLeaseTimesOut() throws Exception {
+        insert(1);
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull Future<?> future = executor.submit(() -> { insert(2); return null; });
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.fail("The writer connection should not have been leased twice.");
+            } catch (@Nonnull ExecutionException exception) {
+                assertThat(exception.getCause()).isInstanceOf(DatabaseException.class);
+            }
+        } finally {
+            executor.shutdownNow();
+            groupCommitter.rollback();
+        }
+    }
+    
+    /**
+     * The first transaction holds a lock while it waits for the physical commit and the second transaction needs this lock while it holds the writer connection.
+     * Without timeouts, the committer thread would wait for the writer connection forever.
+     */
+    @Test
+    public void testWaitingForALockOfACommittingTransactionDoesNotDeadlock() throws Exception {
+        final @Nonnull ReentrantLock lock = new ReentrantLock();
+        final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            insert(1);
+            lock.lock();
+            final @Nonnull CountDownLatch leasing = new CountDownLatch(1);
+            final @Nonnull Future<?> second = executor.submit(() -> {
+                leasing.countDown();
+                insert(2);
+                lock.lock();
+                try {
+                    groupCommitter.commit();
+                } finally {
+                    lock.unlock();
+                }
+                return null;
+            });
+            leasing.await();
+            Thread.sleep(50); // Lets the second transaction queue for the writer connection before the committer thread.
+            try {
+                groupCommitter.commit();
+                Assert.fail("The first transaction should not have been committed while the second transaction holds the writer connection.");
+            } catch (@Nonnull DatabaseException exception) {
+                // The first transaction gives up waiting for the physical commit.
+            } finally {
+                lock.unlock();
+            }
+            try {
+                second.get(5, TimeUnit.SECONDS);
+                Assert.fail("The second transaction should have been rolled back together with the first transaction.");
+            } catch (@Nonnull ExecutionException exception) {
+                assertThat(exception.getCause()).isInstanceOf(DatabaseException.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(countRows()).isEqualTo(0);
+        assertThat(groupCommitter.getFailures()).isEqualTo(2);
+        
+        insert(3);
+        groupCommitter.commit();
+        assertThat(countRows()).isEqualTo(1);
+    }
+    
+}
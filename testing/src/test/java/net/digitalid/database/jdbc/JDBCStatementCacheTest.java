@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JDBCStatementCacheTest extends DatabaseTest {
+    
+    private @Nonnull Connection connection;
+    
+    @Before
+    public void openConnection() throws Exception {
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1", "sa", "sa");
+    }
+    
+    @After
+    public void closeConnection() throws Exception {
+        connection.close();
+    }
+    
+    @Pure
+    private @Nonnull JDBCStatementCache createCache(int capacity) {
+        return JDBCStatementCacheBuilder.withConnection(connection).withCapacity(capacity).withResultSetType(ResultSet.TYPE_FORWARD_ONLY).build();
+    }
+    
+    @Test
+    public void testReleasedStatementIsReused() throws Exception {
+        final @Nonnull JDBCStatementCache cache = createCache(2);
+        final @Nonnull PreparedStatement first = cache.prepare("SELECT 1");
+        cache.release(first);
+        final @Nonnull PreparedStatement second = cache.prepare("SELECT 1");
+        assertThat(second).isSameAs(first);
+        assertThat(second.isClosed()).as("closed").isFalse();
+        assertThat(cache.getHits()).as("hits").isEqualTo(1);
+        assertThat(cache.getMisses()).as("misses").isEqualTo(1);
+    }
+    
+    @Test
+    public void testLeasedStatementIsNotShared() throws Exception {
+        final @Nonnull JDBCStatementCache cache = createCache(2);
+        final @Nonnull PreparedStatement first = cache.prepare("SELECT 1");
+        final @Nonnull PreparedStatement second = cache.prepare("SELECT 1");
+        assertThat(second).isNotSameAs(first);
+        assertThat(cache.getHits()).as("hits").isEqualTo(0);
+        assertThat(cache.getMisses()).as("misses").isEqualTo(2);
+        
+        // Only one of the equivalent statements is kept when both are released.
+        cache.release(first);
+        cache.release(second);
+        assertThat(second.isClosed()).as("closed").isTrue();
+        assertThat(cache.prepare("SELECT 1")).isSameAs(first);
+    }
+    
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() throws Exception {
+        final @Nonnull JDBCStatementCache cache = createCache(1);
+        final @Nonnull PreparedStatement first = cache.prepare("SELECT 1");
+        cache.release(first);
+        final @Nonnull PreparedStatement second = cache.prepare("SELECT 2");
+        cache.release(second);
+        assertThat(cache.getEvictions()).as("evictions").isEqualTo(1);
+        assertThat(first.isClosed()).as("evicted statement closed").isTrue();
+        assertThat(cache.prepare("SELECT 2")).isSameAs(second);
+        assertThat(cache.prepare("SELECT 1")).isNotSameAs(first);
+    }
+    
+    @Test
+    public void testUnknownStatementIsIgnored() throws Exception {
+        final @Nonnull JDBCStatementCache cache = createCache(1);
+        final @Nonnull PreparedStatement statement = JDBCStatementCache.prepare(connection, "SELECT 1", ResultSet.TYPE_FORWARD_ONLY);
+        cache.release(statement);
+        assertThat(cache.prepare("SELECT 1")).isNotSameAs(statement);
+        statement.close();
+    }
+    
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.h2.Driver;
+import org.junit.Test;
+
+public class JDBCValidationPolicyTest extends DatabaseTest {
+    
+    @Pure
+    private static @Nonnull JDBCDatabase createDatabase(@Nonnull JDBCValidationPolicy validationPolicy) {
+        return JDBCDatabaseBuilder.withDriver(new Driver()).withURL("jdbc:h2:mem:validation;DB_CLOSE_DELAY=-1").withUser("sa").withPassword("sa").withValidationPolicy(validationPolicy).withValidationIdleThreshold(60_000).build();
+    }
+    
+    @Test
+    public void testAlways() throws Exception {
+        final @Nonnull JDBCConnection connection = createDatabase(JDBCValidationPolicy.ALWAYS).openConnection();
+        try {
+            assertThat(JDBCValidationPolicy.ALWAYS.requiresValidation(connection, 60_000)).isTrue();
+            connection.setFailed(true);
+            assertThat(JDBCValidationPolicy.ALWAYS.requiresValidation(connection, 60_000)).isTrue();
+        } finally {
+            connection.close();
+        }
+    }
+    
+    @Test
+    public void testAfterIdle() throws Exception {
+        final @Nonnull JDBCConnection connection = createDatabase(JDBCValidationPolicy.AFTER_IDLE).openConnection();
+        try {
+            assertThat(JDBCValidationPolicy.AFTER_IDLE.requiresValidation(connection, 60_000)).isFalse();
+            Thread.sleep(20);
+            assertThat(JDBCValidationPolicy.AFTER_IDLE.requiresValidation(connection, 10)).isTrue();
+            connection.setFailed(true);
+            assertThat(JDBCValidationPolicy.AFTER_IDLE.requiresValidation(connection, 60_000)).isTrue();
+        } finally {
+            connection.close();
+        }
+    }
+    
+    @Test
+    public void testAfterFailure() throws Exception {
+        final @Nonnull JDBCConnection connection = createDatabase(JDBCValidationPolicy.AFTER_FAILURE).openConnection();
+        try {
+            Thread.sleep(20);
+            assertThat(JDBCValidationPolicy.AFTER_FAILURE.requiresValidation(connection, 10)).isFalse();
+            connection.setFailed(true);
+            assertThat(JDBCValidationPolicy.AFTER_FAILURE.requiresValidation(connection, 10)).isTrue();
+        } finally {
+            connection.close();
+        }
+    }
+    
+    @Test
+    public void testValidationsOfTransactions() throws Exception {
+        for (@Nonnull JDBCValidationPolicy validationPolicy : JDBCValidationPolicy.values()) {
+            final @Nonnull JDBCDatabase database = createDatabase(validationPolicy);
+            try {
+                database.executeQuery("SELECT 1").close();
+                database.commitTransaction();
+                database.executeQuery("SELECT 1").close();
+                database.rollbackTransaction();
+                database.executeQuery("SELECT 1").close();
+                database.commitTransaction();
+                final long expectedValidations = validationPolicy == JDBCValidationPolicy.ALWAYS ? 3 : 1;
+                assertThat(database.getValidations()).as("validations with " + validationPolicy).isEqualTo(expectedValidations);
+                assertThat(database.getReplacements()).as("replacements with " + validationPolicy).isEqualTo(0);
+            } finally {
+                database.close();
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.database.jdbc.encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.Test;
+
+public class JDBCCopyEncoderTest extends DatabaseTest {
+    
+    /**
+     * This sink collects the written bytes and counts the complete rows.
+     */
+    private static class CollectingSink implements JDBCCopyEncoder.Sink {
+        
+        private final @Nonnull ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        
+        private int writes = 0;
+        
+        private boolean active = true;
+        
+        private boolean cancelled = false;
+        
+        private final long rows;
+        
+        private CollectingSink(long rows) {
+            this.rows = rows;
+        }
+        
+        @Override
+        public void write(@Nonnull byte[] bytes, int length) throws SQLException {
+            this.bytes.write(bytes, 0, length);
+            writes++;
+        }
+        
+        @Override
+        public long end() throws SQLException {
+            active = false;
+            return rows;
+        }
+        
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+        
+        @Override
+        public void cancel() throws SQLException {
+            active = false;
+            cancelled = true;
+        }
+        
+    }
+    
+    @Test
+    public void testBinaryFormat() throws Exception {
+        final @Nonnull CollectingSink sink = new CollectingSink(1);
+        final @Nonnull JDBCCopyEncoder encoder = new JDBCCopyEncoder(sink);
+        encoder.encodeBoolean(true);
+        encoder.encodeInteger08((byte) -2);
+        encoder.encodeInteger32(7);
+        encoder.encodeInteger64(-1L);
+        encoder.encodeDecimal64(1.5);
+        encoder.encodeString("ab");
+        encoder.encodeNull(Types.VARCHAR);
+        encoder.addRow();
+        assertThat(sink.writes).isEqualTo(0);
+        assertThat(encoder.execute()).isEqualTo(1);
+        encoder.close();
+        
+        final @Nonnull ByteBuffer expected = ByteBuffer.allocate(128);
+        expected.put(new byte[] { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 }).putInt(0).putInt(0);
+        expected.putShort((short) 7);
+        expected.putInt(1).put((byte) 1);
+        expected.putInt(2).putShort((short) -2);
+        expected.putInt(4).putInt(7);
+        expected.putInt(8).putLong(-1L);
+        expected.putInt(8).putDouble(1.5);
+        expected.putInt(2).put((byte) 'a').put((byte) 'b');
+        expected.putInt(-1);
+        expected.putShort((short) -1);
+        final @Nonnull byte[] expectedBytes = new byte[expected.position()];
+        expected.flip();
+        expected.get(expectedBytes);
+        
+        assertThat(sink.bytes.toByteArray()).isEqualTo(expectedBytes);
+        assertThat(sink.writes).isEqualTo(1);
+        assertThat(sink.cancelled).isFalse();
+    }
+    
+    @Test
+    public void testChunking() throws Exception {
+        final @Nonnull CollectingSink sink = new CollectingSink(0);
+        final @Nonnull JDBCCopyEncoder encoder = new JDBCCopyEncoder(sink);
+        final @Nonnull byte[] value = new byte[1_000];
+        int rows = 0;
+        while (sink.writes == 0) {
+            encoder.encodeBinary(value);
+            encoder.addRow();
+            rows++;
+        }
+        
+        final int headerSize = 19;
+        final int rowSize = 2 + 4 + value.length;
+        assertThat(headerSize + (rows - 1) * rowSize).isLessThan(JDBCCopyEncoder.CHUNK_SIZE);
+        assertThat(headerSize + rows * rowSize).isGreaterThanOrEqualTo(JDBCCopyEncoder.CHUNK_SIZE);
+        assertThat(sink.bytes.size()).isEqualTo(headerSize + rows * rowSize);
+    }
+    
+    @Test
+    public void testClosingWithoutExecutionCancelsTheCopy() throws Exception {
+        final @Nonnull CollectingSink sink = new CollectingSink(0);
+        final @Nonnull JDBCCopyEncoder encoder = new JDBCCopyEncoder(sink);
+        encoder.encodeInteger32(1);
+        encoder.addRow();
+        encoder.close();
+        
+        assertThat(sink.cancelled).isTrue();
+        assertThat(sink.writes).isEqualTo(0);
+    }
+    
+}